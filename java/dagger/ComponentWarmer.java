@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import dagger.internal.GwtIncompatible;
+import dagger.internal.WarmableComponent;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the scoped bindings of a component ahead of their first request, concurrently where the
+ * binding graph allows it.
+ *
+ * <p>Only components generated with {@code -Adagger.warmUpScopedBindings=enabled} can be warmed
+ * up. For those, {@link #warmUp} creates every scoped (but not {@link Reusable}) binding that is
+ * owned by the given component. Bindings are created in the topological order of the binding
+ * graph: a binding is only created once every scoped binding it depends on exists, and bindings
+ * that don't depend on each other are created concurrently on the given executor.
+ *
+ * <pre><code>
+ *   MyComponent component = DaggerMyComponent.create();
+ *   ComponentWarmer.warmUp(component, executor).get();
+ * </code></pre>
+ *
+ * <p>Warming up is an optimization only: requests made while it is in progress are still served,
+ * and every scoped binding is still created at most once.
+ */
+@GwtIncompatible
+public final class ComponentWarmer {
+  /**
+   * Starts creating the scoped bindings of {@code component} on {@code executor} and returns a
+   * future that completes once all of them exist, or fails with the first exception thrown while
+   * creating one. Cancelling the future stops scheduling further bindings.
+   *
+   * @throws IllegalArgumentException if {@code component} was not generated with warm-up support
+   */
+  public static Future<Void> warmUp(Object component, Executor executor) {
+    checkNotNull(component);
+    checkNotNull(executor);
+    if (!(component instanceof WarmableComponent)) {
+      throw new IllegalArgumentException(
+          component.getClass().getName()
+              + " was not generated with -Adagger.warmUpScopedBindings=enabled");
+    }
+    WarmUp warmUp = new WarmUp((WarmableComponent) component, executor);
+    warmUp.startLevel(0);
+    return warmUp.completion;
+  }
+
+  /** The state of one {@link #warmUp} call. */
+  private static final class WarmUp {
+    private final WarmableComponent component;
+    private final Executor executor;
+    private final int[] levels;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Completion completion = new Completion();
+
+    WarmUp(WarmableComponent component, Executor executor) {
+      this.component = component;
+      this.executor = executor;
+      this.levels = component.warmUpLevels();
+    }
+
+    void startLevel(int level) {
+      // Skip empty levels.
+      while (level < levels.length - 1 && levels[level] == levels[level + 1]) {
+        level++;
+      }
+      if (level >= levels.length - 1) {
+        completion.complete();
+        return;
+      }
+      final int nextLevel = level + 1;
+      pending.set(levels[nextLevel] - levels[level]);
+      for (int id = levels[level]; id < levels[nextLevel]; id++) {
+        if (completion.isDone()) {
+          return;
+        }
+        final int bindingId = id;
+        try {
+          executor.execute(
+              new Runnable() {
+                @Override
+                public void run() {
+                  warmUpBinding(bindingId, nextLevel);
+                }
+              });
+        } catch (RejectedExecutionException e) {
+          completion.fail(e);
+          return;
+        }
+      }
+    }
+
+    private void warmUpBinding(int id, int nextLevel) {
+      if (completion.isDone()) {
+        return;
+      }
+      try {
+        component.warmUpBinding(id);
+      } catch (Throwable t) {
+        completion.fail(t);
+        return;
+      }
+      if (pending.decrementAndGet() == 0) {
+        startLevel(nextLevel);
+      }
+    }
+  }
+
+  /** A future completed by the warm-up rather than by running a task. */
+  private static final class Completion implements Future<Void> {
+    private static final Object SUCCESS = new Object();
+    private static final Object CANCELLED = new Object();
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    /** {@link #SUCCESS}, {@link #CANCELLED}, the {@link Throwable} that failed, or null. */
+    private volatile Object outcome;
+
+    void complete() {
+      finish(SUCCESS);
+    }
+
+    void fail(Throwable t) {
+      finish(t);
+    }
+
+    /** Sets the outcome unless there already is one, and returns whether it was set. */
+    private synchronized boolean finish(Object outcome) {
+      if (this.outcome != null) {
+        return false;
+      }
+      this.outcome = outcome;
+      done.countDown();
+      return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      return finish(CANCELLED);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return outcome == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+      return outcome != null;
+    }
+
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+      done.await();
+      return result();
+    }
+
+    @Override
+    public Void get(long timeout, TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+      if (!done.await(timeout, unit)) {
+        throw new TimeoutException();
+      }
+      return result();
+    }
+
+    private Void result() throws ExecutionException {
+      Object outcome = this.outcome;
+      if (outcome == CANCELLED) {
+        throw new CancellationException();
+      }
+      if (outcome instanceof Throwable) {
+        throw new ExecutionException((Throwable) outcome);
+      }
+      return null;
+    }
+  }
+
+  private ComponentWarmer() {}
+}
@@ -18,7 +18,6 @@ package dagger.internal;
 
 import static dagger.internal.DaggerCollections.newLinkedHashMapWithExpectedSize;
 import static dagger.internal.Preconditions.checkNotNull;
-import static java.util.Collections.unmodifiableMap;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -32,14 +31,16 @@ import javax.inject.Provider;
  * @param <V2> the value type of the map that this provides
  */
 abstract class AbstractMapFactory<K, V, V2> implements Factory<Map<K, V2>> {
-  private final Map<K, Provider<V>> contributingMap;
+  private final ImmutableArrayMap<K, Provider<V>> contributingMap;
 
   AbstractMapFactory(Map<K, Provider<V>> map) {
-    this.contributingMap = unmodifiableMap(map);
+    // The keys are hashed once here, and the resulting index is shared by every map that
+    // subclasses create from contributingMap().
+    this.contributingMap = ImmutableArrayMap.copyOf(map);
   }
 
   /** The map of {@link Provider}s that contribute to this map binding. */
-  final Map<K, Provider<V>> contributingMap() {
+  final ImmutableArrayMap<K, Provider<V>> contributingMap() {
     return contributingMap;
   }
 
@@ -58,14 +58,6 @@ public final class DaggerCollections {
     return list.size() != asSet.size();
   }
 
-  /**
-   * Creates a {@link HashSet} instance, with a high enough "intial capcity" that it <em>should</em>
-   * hold {@code expectedSize} elements without growth.
-   */
-  static <T> HashSet<T> newHashSetWithExpectedSize(int expectedSize) {
-    return new HashSet<T>(calculateInitialCapacity(expectedSize));
-  }
-
   /**
    * Creates a {@link LinkedHashMap} instance, with a high enough "initial capacity" that it
    * <em>should</em> hold {@code expectedSize} elements without growth.
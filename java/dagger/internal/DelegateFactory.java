@@ -58,6 +58,24 @@ public final class DelegateFactory<T> implements Factory<T> {
     asDelegateFactory.delegate = delegate;
   }
 
+  /**
+   * Sets {@code delegateFactory}'s delegate provider to {@code delegate}, and returns {@code
+   * delegate}.
+   *
+   * <p>Generated components use this to replace their own reference to {@code delegateFactory}
+   * once a dependency cycle is complete, so that later calls through that reference skip the
+   * indirection. Providers that captured {@code delegateFactory} while the cycle was being created
+   * keep using it.
+   *
+   * <p>{@code delegateFactory} must be an instance of {@link DelegateFactory}, otherwise this
+   * method will throw a {@link ClassCastException}.
+   */
+  public static <T> Provider<T> setDelegateAndUnwrap(
+      Provider<T> delegateFactory, Provider<T> delegate) {
+    setDelegate(delegateFactory, delegate);
+    return delegate;
+  }
+
   /**
    * Returns the factory's delegate.
    *
@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import javax.inject.Provider;
+
+/**
+ * A {@link Provider} that memoizes its value and is safe to use from multiple threads, so it never
+ * needs to be wrapped in another scoped provider.
+ *
+ * <p>This lets {@link DoubleCheck} and {@link SingleCheck} recognize every such provider without
+ * referring to implementations that aren't compatible with GWT.
+ */
+interface DoubleCheckedProvider<T> extends Provider<T> {}
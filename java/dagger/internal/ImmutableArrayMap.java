@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable {@link Map} made of an {@link ImmutableArraySet} of keys and an array of values at
+ * the same positions. Iteration follows the order of the keys.
+ *
+ * <p>The keys of a multibound map never change once its factory is built, so every map returned by
+ * a factory {@linkplain #withValues shares} the same key index and only allocates its values.
+ */
+final class ImmutableArrayMap<K, V> extends AbstractMap<K, V> {
+  /** Returns an {@link ImmutableArrayMap} with the entries of {@code map}, in the same order. */
+  static <K, V> ImmutableArrayMap<K, V> copyOf(Map<K, V> map) {
+    Object[] keys = new Object[map.size()];
+    Object[] values = new Object[map.size()];
+    int i = 0;
+    for (Map.Entry<K, V> entry : map.entrySet()) {
+      keys[i] = entry.getKey();
+      values[i] = entry.getValue();
+      i++;
+    }
+    return new ImmutableArrayMap<>(ImmutableArraySet.<K>createKeyIndex(keys), values);
+  }
+
+  private final ImmutableArraySet<K> keys;
+  private final Object[] values;
+
+  private ImmutableArrayMap(ImmutableArraySet<K> keys, Object[] values) {
+    assert keys.size() == values.length;
+    this.keys = keys;
+    this.values = values;
+  }
+
+  /**
+   * Returns a map with the same keys as this one, mapped to the values at the same positions in
+   * {@code values}. The array is owned by the returned map and must not be modified afterwards.
+   */
+  <V2> ImmutableArrayMap<K, V2> withValues(Object[] values) {
+    return new ImmutableArrayMap<>(keys, values);
+  }
+
+  /** Returns the value at {@code index} in iteration order. */
+  @SuppressWarnings("unchecked") // the array only contains values of type V
+  V valueAt(int index) {
+    return (V) values[index];
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return keys.indexOf(key) >= 0;
+  }
+
+  @Override
+  public V get(Object key) {
+    int index = keys.indexOf(key);
+    return index < 0 ? null : valueAt(index);
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return keys;
+  }
+
+  @Override
+  public Collection<V> values() {
+    return new AbstractCollection<V>() {
+      @Override
+      public int size() {
+        return values.length;
+      }
+
+      @Override
+      public Iterator<V> iterator() {
+        return new IndexIterator<V>() {
+          @Override
+          V get(int index) {
+            return valueAt(index);
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public int size() {
+        return values.length;
+      }
+
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new IndexIterator<Map.Entry<K, V>>() {
+          @Override
+          Map.Entry<K, V> get(int index) {
+            return new SimpleImmutableEntry<>(keys.elementAt(index), valueAt(index));
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public V put(K key, V value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public V remove(Object key) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** An unmodifiable iterator over the positions of this map. */
+  private abstract class IndexIterator<T> implements Iterator<T> {
+    private int index = 0;
+
+    abstract T get(int index);
+
+    @Override
+    public boolean hasNext() {
+      return index < values.length;
+    }
+
+    @Override
+    public T next() {
+      if (index >= values.length) {
+        throw new NoSuchElementException();
+      }
+      return get(index++);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
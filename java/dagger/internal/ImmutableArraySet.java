@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable {@link Set} backed by an array of its elements in insertion order. Small sets are
+ * searched linearly; larger sets also build an open-addressing hash table that indexes the array.
+ *
+ * <p>Compared to an unmodifiable {@link java.util.HashSet}, this avoids allocating a node per
+ * element and the unmodifiable wrapper, which matters for unscoped set multibindings that are
+ * requested frequently.
+ *
+ * <p>Sets created by {@link #createKeyIndex} also specialize lookups for the keys of enum- and
+ * {@code Class}-keyed maps, which never need to call {@code equals()} or {@code hashCode()}.
+ */
+final class ImmutableArraySet<E> extends AbstractSet<E> {
+  /** Sets with at most this many elements do not build a hash table. */
+  private static final int MAX_LINEAR_SEARCH_SIZE = 8;
+
+  /**
+   * Returns a set of the first {@code size} elements of {@code elements}, in order, ignoring
+   * duplicates. The array is owned by the returned set and must not be modified afterwards.
+   */
+  @SuppressWarnings("unchecked") // the array only contains elements of type E
+  static <E> Set<E> ownedCopyOf(Object[] elements, int size) {
+    if (size == 0) {
+      return Collections.emptySet();
+    }
+    if (size == 1) {
+      return Collections.singleton((E) elements[0]);
+    }
+    return create(elements, size);
+  }
+
+  /**
+   * Returns an {@link ImmutableArraySet} of the first {@code size} elements of {@code elements},
+   * in order, ignoring duplicates. The array is owned by the returned set and must not be modified
+   * afterwards.
+   */
+  static <E> ImmutableArraySet<E> create(Object[] elements, int size) {
+    if (size <= MAX_LINEAR_SEARCH_SIZE) {
+      int distinct = 0;
+      for (int i = 0; i < size; i++) {
+        Object element = elements[i];
+        if (linearIndexOf(elements, distinct, element) < 0) {
+          elements[distinct++] = element;
+        }
+      }
+      return new ImmutableArraySet<E>(elements, distinct, null, Lookup.EQUALS);
+    }
+
+    // Each slot of the table holds the index of an element plus one, so that 0 marks an empty slot.
+    int[] table = new int[tableSize(size)];
+    int mask = table.length - 1;
+    int distinct = 0;
+    for (int i = 0; i < size; i++) {
+      Object element = elements[i];
+      for (int slot = smear(element.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+        int existing = table[slot];
+        if (existing == 0) {
+          elements[distinct++] = element;
+          table[slot] = distinct;
+          break;
+        } else if (elements[existing - 1].equals(element)) {
+          break;
+        }
+      }
+    }
+    return new ImmutableArraySet<E>(elements, distinct, table, Lookup.EQUALS);
+  }
+
+  /**
+   * Returns an {@link ImmutableArraySet} of {@code keys}, which must be distinct, for indexing the
+   * keys of a map. The array is owned by the returned set and must not be modified afterwards.
+   *
+   * <p>If every key is a constant of the same enum, lookups index an array by ordinal. If every key
+   * is a {@link Class}, lookups compare identities. The choice is made once here, so it costs
+   * nothing per lookup.
+   */
+  static <E> ImmutableArraySet<E> createKeyIndex(Object[] keys) {
+    Class<?> enumClass = keys.length > 0 ? declaringEnumClass(keys[0]) : null;
+    boolean allClasses = true;
+    int maxOrdinal = -1;
+    for (Object key : keys) {
+      if (enumClass != null && declaringEnumClass(key) == enumClass) {
+        maxOrdinal = Math.max(maxOrdinal, ((Enum<?>) key).ordinal());
+      } else {
+        enumClass = null;
+      }
+      allClasses &= key instanceof Class;
+    }
+
+    if (enumClass != null) {
+      int[] ordinals = new int[maxOrdinal + 1];
+      for (int i = 0; i < keys.length; i++) {
+        ordinals[((Enum<?>) keys[i]).ordinal()] = i + 1;
+      }
+      return new ImmutableArraySet<E>(keys, keys.length, ordinals, Lookup.ORDINAL);
+    }
+    if (!allClasses) {
+      return create(keys, keys.length);
+    }
+    if (keys.length <= MAX_LINEAR_SEARCH_SIZE) {
+      return new ImmutableArraySet<E>(keys, keys.length, null, Lookup.IDENTITY);
+    }
+    int[] table = new int[tableSize(keys.length)];
+    int mask = table.length - 1;
+    for (int i = 0; i < keys.length; i++) {
+      int slot = smear(System.identityHashCode(keys[i])) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = i + 1;
+    }
+    return new ImmutableArraySet<E>(keys, keys.length, table, Lookup.IDENTITY);
+  }
+
+  /** How {@link #indexOf} finds an element. */
+  private enum Lookup {
+    /** Compare with {@code equals()}, hashing with {@code hashCode()} if there is one. */
+    EQUALS,
+    /** Compare with {@code ==}, hashing with {@link System#identityHashCode} if there is one. */
+    IDENTITY,
+    /** The table holds, for each ordinal of a single enum, the index of that constant plus one. */
+    ORDINAL,
+  }
+
+  private final Object[] elements;
+  private final int size;
+  private final int[] table;
+  private final Lookup lookup;
+
+  private ImmutableArraySet(Object[] elements, int size, int[] table, Lookup lookup) {
+    this.elements = elements;
+    this.size = size;
+    this.table = table;
+    this.lookup = lookup;
+  }
+
+  /** Returns the position of {@code object} in iteration order, or -1 if it is not present. */
+  int indexOf(Object object) {
+    if (object == null) {
+      return -1;
+    }
+    switch (lookup) {
+      case ORDINAL:
+        return ordinalIndexOf(object);
+      case IDENTITY:
+        return table == null ? linearIdentityIndexOf(object) : hashedIdentityIndexOf(object);
+      default:
+        break;
+    }
+    if (table == null) {
+      return linearIndexOf(elements, size, object);
+    }
+    int mask = table.length - 1;
+    for (int slot = smear(object.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+      int existing = table[slot];
+      if (existing == 0) {
+        return -1;
+      } else if (elements[existing - 1].equals(object)) {
+        return existing - 1;
+      }
+    }
+  }
+
+  private int ordinalIndexOf(Object object) {
+    if (!(object instanceof Enum)) {
+      return -1;
+    }
+    int ordinal = ((Enum<?>) object).ordinal();
+    int index = ordinal < table.length ? table[ordinal] - 1 : -1;
+    // A constant of another enum may have the same ordinal, so check that it is the same constant.
+    return index >= 0 && elements[index] == object ? index : -1;
+  }
+
+  private int linearIdentityIndexOf(Object object) {
+    for (int i = 0; i < size; i++) {
+      if (elements[i] == object) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int hashedIdentityIndexOf(Object object) {
+    int mask = table.length - 1;
+    for (int slot = smear(System.identityHashCode(object)) & mask; ; slot = (slot + 1) & mask) {
+      int existing = table[slot];
+      if (existing == 0) {
+        return -1;
+      } else if (elements[existing - 1] == object) {
+        return existing - 1;
+      }
+    }
+  }
+
+  /** Returns the element at {@code index} in iteration order. */
+  @SuppressWarnings("unchecked") // the array only contains elements of type E
+  E elementAt(int index) {
+    return (E) elements[index];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean contains(Object object) {
+    return indexOf(object) >= 0;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new Iterator<E>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public E next() {
+        if (index >= size) {
+          throw new NoSuchElementException();
+        }
+        return elementAt(index++);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Override
+  public boolean add(E e) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends E> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Returns the enum that declares {@code object} if it is an enum constant, or else null. */
+  private static Class<?> declaringEnumClass(Object object) {
+    return object instanceof Enum ? ((Enum<?>) object).getDeclaringClass() : null;
+  }
+
+  private static int linearIndexOf(Object[] elements, int size, Object object) {
+    for (int i = 0; i < size; i++) {
+      if (elements[i].equals(object)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the smallest power of two that keeps the table at most half full. */
+  private static int tableSize(int size) {
+    return Integer.highestOneBit(size * 2 - 1) << 1;
+  }
+
+  /** Spreads the bits of a hash code so that the low bits used to index the table vary. */
+  private static int smear(int hashCode) {
+    return 0x1b873593 * Integer.rotateLeft(hashCode * 0xcc9e2d51, 15);
+  }
+}
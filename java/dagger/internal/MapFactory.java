@@ -16,12 +16,8 @@
 
 package dagger.internal;
 
-import static dagger.internal.DaggerCollections.newLinkedHashMapWithExpectedSize;
-import static java.util.Collections.unmodifiableMap;
-
 import java.util.Collections;
 import java.util.Map;
-import java.util.Map.Entry;
 import javax.inject.Provider;
 
 /**
@@ -53,11 +49,12 @@ public final class MapFactory<K, V> extends AbstractMapFactory<K, V, V> {
    */
   @Override
   public Map<K, V> get() {
-    Map<K, V> result = newLinkedHashMapWithExpectedSize(contributingMap().size());
-    for (Entry<K, Provider<V>> entry : contributingMap().entrySet()) {
-      result.put(entry.getKey(), entry.getValue().get());
+    ImmutableArrayMap<K, Provider<V>> contributingMap = contributingMap();
+    Object[] values = new Object[contributingMap.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = contributingMap.valueAt(i).get();
     }
-    return unmodifiableMap(result);
+    return contributingMap.withValues(values);
   }
 
   /** A builder for {@link MapFactory}. */
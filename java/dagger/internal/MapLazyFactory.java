@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import dagger.Lazy;
+import java.util.Map;
+import javax.inject.Provider;
+
+/**
+ * A {@link Factory} implementation used to implement {@link Map} bindings. This factory returns a
+ * {@code Map<K, Lazy<V>>} when calling {@link #get} (as specified by {@link Factory}).
+ *
+ * <p>Unlike {@link MapFactory}, no values are created until they are requested from their {@link
+ * Lazy}, and unlike {@link MapProviderFactory}, each value is created at most once per map.
+ */
+public final class MapLazyFactory<K, V> extends AbstractMapFactory<K, V, Lazy<V>> {
+  /** Returns a new {@link Builder} */
+  public static <K, V> Builder<K, V> builder(int size) {
+    return new Builder<>(size);
+  }
+
+  private MapLazyFactory(Map<K, Provider<V>> map) {
+    super(map);
+  }
+
+  /**
+   * Returns a {@code Map<K, Lazy<V>>} whose iteration order is that of the elements given by each
+   * of the providers. Each {@link Lazy} invokes its provider on its first call to {@link Lazy#get},
+   * as {@link DoubleCheck#lazy} does.
+   */
+  @Override
+  public Map<K, Lazy<V>> get() {
+    ImmutableArrayMap<K, Provider<V>> contributingMap = contributingMap();
+    Object[] values = new Object[contributingMap.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = DoubleCheck.lazy(contributingMap.valueAt(i));
+    }
+    return contributingMap.withValues(values);
+  }
+
+  /** A builder for {@link MapLazyFactory}. */
+  public static final class Builder<K, V> extends AbstractMapFactory.Builder<K, V, Lazy<V>> {
+    private Builder(int size) {
+      super(size);
+    }
+
+    @Override
+    public Builder<K, V> put(K key, Provider<V> providerOfValue) {
+      super.put(key, providerOfValue);
+      return this;
+    }
+
+    @Override
+    public Builder<K, V> putAll(Provider<Map<K, Lazy<V>>> mapLazyFactory) {
+      super.putAll(mapLazyFactory);
+      return this;
+    }
+
+    /** Returns a new {@link MapLazyFactory}. */
+    public MapLazyFactory<K, V> build() {
+      return new MapLazyFactory<>(map);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import dagger.monitoring.ProvisionMonitor;
+import javax.inject.Provider;
+
+/**
+ * Utility methods used by generated components to report provisions to a {@link
+ * ProvisionMonitor}.
+ */
+public final class ProvisionMonitors {
+  /**
+   * Returns a provider that reports each call to {@code provider} to the monitor returned by
+   * {@code monitorProvider}.
+   */
+  public static <T> Provider<T> monitored(
+      final Provider<T> provider,
+      final Provider<? extends ProvisionMonitor> monitorProvider,
+      final String bindingToken) {
+    checkNotNull(provider);
+    checkNotNull(monitorProvider);
+    checkNotNull(bindingToken);
+    return new Provider<T>() {
+      @Override
+      public T get() {
+        ProvisionMonitor monitor = monitorProvider.get();
+        monitor.provisionStarted(bindingToken);
+        T instance;
+        try {
+          instance = provider.get();
+        } catch (RuntimeException | Error e) {
+          monitor.provisionFailed(bindingToken, e);
+          throw e;
+        }
+        monitor.provisionFinished(bindingToken, instance);
+        return instance;
+      }
+    };
+  }
+
+  private ProvisionMonitors() {}
+}
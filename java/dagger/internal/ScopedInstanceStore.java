@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.DoubleCheck.UNINITIALIZED;
+import static dagger.internal.DoubleCheck.reentrantCheck;
+import static dagger.internal.Preconditions.checkNotNull;
+
+import dagger.Lazy;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.inject.Provider;
+
+/**
+ * Memoizes the instances of all scoped bindings of a component (or component shard) in a single
+ * array, indexed by an id assigned to each binding at compile time.
+ *
+ * <p>This replaces one {@link DoubleCheck} object per scoped binding with one array slot per scoped
+ * binding. Reads are a single volatile array load. While a binding's instance is being created, its
+ * slot holds a lock for that binding alone, so creation has the same semantics as {@link
+ * DoubleCheck}: concurrent first requests for the same binding wait for one creation, requests for
+ * different bindings don't wait for each other, and a binding that (indirectly) requests itself
+ * while being created reenters its lock. The lock is a {@link ReentrantLock} rather than a monitor,
+ * so a virtual thread waiting for it doesn't pin its carrier thread. Once the instance is stored,
+ * the lock is released for garbage collection.
+ *
+ * <p>Used for scoped bindings when {@code -Adagger.compactScopedInstances} is enabled.
+ */
+@GwtIncompatible
+public final class ScopedInstanceStore {
+  /** Creates the instance of the binding with the given id. */
+  public interface Factory {
+    Object create(int id);
+  }
+
+  private final AtomicReferenceArray<Object> instances;
+  private final Factory factory;
+
+  public ScopedInstanceStore(int size, Factory factory) {
+    this.instances = new AtomicReferenceArray<Object>(size);
+    this.factory = checkNotNull(factory);
+    for (int i = 0; i < size; i++) {
+      instances.lazySet(i, UNINITIALIZED);
+    }
+  }
+
+  /** Returns the instance of the binding with the given id, creating it on first request. */
+  @SuppressWarnings("unchecked") // the id determines the type of the instance
+  public <T> T get(int id) {
+    Object result = instances.get(id);
+    if (result == UNINITIALIZED || result instanceof SlotLock) {
+      result = create(id);
+    }
+    return (T) result;
+  }
+
+  private Object create(int id) {
+    SlotLock lock = slotLock(id);
+    if (lock == null) {
+      // Another thread stored the instance since get() read the slot.
+      return instances.get(id);
+    }
+    lock.lock();
+    try {
+      Object current = instances.get(id);
+      if (current != lock) {
+        return current;
+      }
+      Object result = factory.create(id);
+      current = instances.get(id);
+      instances.set(id, reentrantCheck(current == lock ? UNINITIALIZED : current, result));
+      return result;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the lock for the binding with the given id, installing one if its instance hasn't been
+   * requested yet, or {@code null} if its instance has already been stored.
+   */
+  private SlotLock slotLock(int id) {
+    while (true) {
+      Object current = instances.get(id);
+      if (current instanceof SlotLock) {
+        return (SlotLock) current;
+      }
+      if (current != UNINITIALIZED) {
+        return null;
+      }
+      SlotLock lock = new SlotLock();
+      if (instances.compareAndSet(id, UNINITIALIZED, lock)) {
+        return lock;
+      }
+    }
+  }
+
+  /** The lock held in a slot while its binding's instance is being created. */
+  private static final class SlotLock extends ReentrantLock {
+    private static final long serialVersionUID = 0L;
+  }
+
+  /**
+   * Returns a {@link Provider} (that is also a {@link Lazy}) of the binding with the given id, for
+   * requests that need a framework type.
+   */
+  public <T> Provider<T> provider(int id) {
+    return new InstanceProvider<T>(this, id);
+  }
+
+  private static final class InstanceProvider<T> implements Provider<T>, Lazy<T> {
+    private final ScopedInstanceStore store;
+    private final int id;
+
+    InstanceProvider(ScopedInstanceStore store, int id) {
+      this.store = store;
+      this.id = id;
+    }
+
+    @Override
+    public T get() {
+      return store.get(id);
+    }
+  }
+}
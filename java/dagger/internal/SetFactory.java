@@ -17,13 +17,10 @@
 package dagger.internal;
 
 import static dagger.internal.DaggerCollections.hasDuplicates;
-import static dagger.internal.DaggerCollections.newHashSetWithExpectedSize;
 import static dagger.internal.DaggerCollections.presizedList;
 import static dagger.internal.Preconditions.checkNotNull;
 import static java.util.Collections.emptySet;
-import static java.util.Collections.unmodifiableSet;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -32,7 +29,8 @@ import javax.inject.Provider;
 /**
  * A {@link Factory} implementation used to implement {@link Set} bindings. This factory always
  * returns a new {@link Set} instance for each call to {@link #get} (as required by {@link Factory})
- * whose elements are populated by subsequent calls to their {@link Provider#get} methods.
+ * whose elements are populated by subsequent calls to their {@link Provider#get} methods. The
+ * returned set is immutable and iterates in the order in which the providers were added.
  */
 public final class SetFactory<T> implements Factory<Set<T>> {
   private static final Factory<Set<Object>> EMPTY_FACTORY = InstanceFactory.create(emptySet());
@@ -113,24 +111,34 @@ public final class SetFactory<T> implements Factory<Set<T>> {
     // these loops were changed to use c-style for.  Versus enhanced for-each loops, C-style for is
     // faster for ArrayLists, at least through Java 8.
 
-    List<Collection<T>> providedCollections =
-        new ArrayList<Collection<T>>(collectionProviders.size());
-    for (int i = 0, c = collectionProviders.size(); i < c; i++) {
-      Collection<T> providedCollection = collectionProviders.get(i).get();
-      size += providedCollection.size();
-      providedCollections.add(providedCollection);
+    // The collections are only held onto if there are @ElementsIntoSet contributions, which are
+    // requested first so that the elements array can be sized exactly. They're copied with
+    // toArray() so that the size is that of the elements actually returned, even for a collection
+    // whose size() doesn't match its iteration.
+    Object[][] providedCollections = null;
+    if (!collectionProviders.isEmpty()) {
+      providedCollections = new Object[collectionProviders.size()][];
+      for (int i = 0, c = collectionProviders.size(); i < c; i++) {
+        Object[] providedCollection = collectionProviders.get(i).get().toArray();
+        size += providedCollection.length;
+        providedCollections[i] = providedCollection;
+      }
     }
 
-    Set<T> providedValues = newHashSetWithExpectedSize(size);
+    Object[] providedValues = new Object[size];
+    int index = 0;
     for (int i = 0, c = individualProviders.size(); i < c; i++) {
-      providedValues.add(checkNotNull(individualProviders.get(i).get()));
+      providedValues[index++] = checkNotNull(individualProviders.get(i).get());
     }
-    for (int i = 0, c = providedCollections.size(); i < c; i++) {
-      for (T element : providedCollections.get(i)) {
-        providedValues.add(checkNotNull(element));
+    if (providedCollections != null) {
+      for (int i = 0; i < providedCollections.length; i++) {
+        Object[] providedCollection = providedCollections[i];
+        for (int j = 0; j < providedCollection.length; j++) {
+          providedValues[index++] = checkNotNull(providedCollection[j]);
+        }
       }
     }
 
-    return unmodifiableSet(providedValues);
+    return ImmutableArraySet.ownedCopyOf(providedValues, index);
   }
 }
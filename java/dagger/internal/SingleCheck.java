@@ -62,7 +62,7 @@ public final class SingleCheck<T> implements Provider<T> {
   // to work around an Eclipse type inference bug: https://github.com/google/dagger/issues/949.
   public static <P extends Provider<T>, T> Provider<T> provider(P provider) {
     // If a scoped @Binds delegates to a scoped binding, don't cache the value again.
-    if (provider instanceof SingleCheck || provider instanceof DoubleCheck) {
+    if (provider instanceof SingleCheck || provider instanceof DoubleCheckedProvider) {
       return provider;
     }
     return new SingleCheck<T>(checkNotNull(provider));
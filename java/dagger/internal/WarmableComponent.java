@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+/**
+ * Implemented by generated components whose scoped bindings can be created ahead of time by {@link
+ * dagger.ComponentWarmer}.
+ *
+ * <p>Each scoped binding local to the component has an id. Ids are grouped into levels such that
+ * every binding only depends (directly or through unscoped bindings) on bindings of earlier levels,
+ * so all the bindings of a level can be created concurrently once the previous level is done.
+ */
+public interface WarmableComponent {
+  /**
+   * Returns the first id of each level followed by the number of ids, so that level {@code i}
+   * consists of the ids in {@code [levels[i], levels[i + 1])}.
+   */
+  // Note that these names are intentionally a bit verbose to make it unlikely that they will
+  // conflict with any user-defined methods on a component.
+  int[] warmUpLevels();
+
+  /**
+   * Returns the instance of the scoped binding with the given id, creating it if it doesn't exist
+   * yet.
+   */
+  Object warmUpBinding(int id);
+}
@@ -26,6 +26,7 @@ import com.google.errorprone.annotations.CheckReturnValue;
 import dagger.BindsInstance;
 import dagger.Component;
 import dagger.internal.codegen.base.ClearableCache;
+import dagger.internal.codegen.base.ProcessingProfiler;
 import dagger.internal.codegen.base.SourceFileGenerationException;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.binding.InjectBindingRegistry;
@@ -58,6 +59,7 @@ final class DelegateComponentProcessor {
   @Inject ValidationBindingGraphPlugins validationBindingGraphPlugins;
   @Inject ExternalBindingGraphPlugins externalBindingGraphPlugins;
   @Inject Set<ClearableCache> clearableCaches;
+  @Inject ProcessingProfiler profiler;
 
   public void initialize(
       XProcessingEnv env,
@@ -107,6 +109,7 @@ final class DelegateComponentProcessor {
       externalBindingGraphPlugins.endPlugins();
     }
     clearableCaches.forEach(ClearableCache::clearCache);
+    profiler.endRound(env.getMessager());
   }
 
   @Singleton
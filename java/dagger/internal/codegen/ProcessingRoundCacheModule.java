@@ -20,6 +20,7 @@ import dagger.Binds;
 import dagger.Module;
 import dagger.internal.codegen.base.ClearableCache;
 import dagger.internal.codegen.binding.BindingGraphFactory;
+import dagger.internal.codegen.binding.KeyFactory;
 import dagger.internal.codegen.binding.ModuleDescriptor;
 import dagger.internal.codegen.kotlin.KotlinMetadataFactory;
 import dagger.internal.codegen.validation.AnyBindingMethodValidator;
@@ -61,4 +62,8 @@ interface ProcessingRoundCacheModule {
   @Binds
   @IntoSet
   ClearableCache kotlinMetadata(KotlinMetadataFactory cache);
+
+  @Binds
+  @IntoSet
+  ClearableCache keyFactory(KeyFactory cache);
 }
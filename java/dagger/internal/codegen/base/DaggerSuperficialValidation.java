@@ -70,6 +70,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import javax.inject.Inject;
+import javax.lang.model.SourceVersion;
 
 /**
  * A fork of {@link com.google.auto.common.SuperficialValidation}.
@@ -105,6 +106,37 @@ public final class DaggerSuperficialValidation {
     return type;
   }
 
+  /**
+   * Returns {@code true} if the type named {@code errorTypeName}, as reported by a {@link
+   * ValidationException.KnownErrorType} in an earlier round, is known to still be unresolvable.
+   *
+   * <p>This is only known for a top-level type referenced by its qualified name in an existing
+   * package, since such a reference can only be resolved by generating exactly that type. Simple
+   * names may be resolved through imports or inherited member types, so for those, and for KSP,
+   * this returns {@code false} and the element must be validated again.
+   */
+  public static boolean isKnownUnresolvable(XProcessingEnv processingEnv, String errorTypeName) {
+    if (processingEnv.getBackend() != Backend.JAVAC) {
+      return false;
+    }
+    String rawTypeName =
+        errorTypeName.contains("<")
+            ? errorTypeName.substring(0, errorTypeName.indexOf('<'))
+            : errorTypeName;
+    while (rawTypeName.endsWith("[]")) {
+      rawTypeName = rawTypeName.substring(0, rawTypeName.length() - 2);
+    }
+    int lastDot = rawTypeName.lastIndexOf('.');
+    if (lastDot < 0 || !SourceVersion.isName(rawTypeName)) {
+      return false;
+    }
+    return processingEnv.findTypeElement(rawTypeName) == null
+        && toJavac(processingEnv)
+                .getElementUtils()
+                .getPackageElement(rawTypeName.substring(0, lastDot))
+            != null;
+  }
+
   private final boolean isStrictValidationEnabled;
   private final XProcessingEnv processingEnv;
 
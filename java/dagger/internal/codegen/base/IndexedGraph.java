@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.base;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.IntPredicate;
+
+/**
+ * A directed graph whose nodes are the integers {@code 0} to {@code nodeCount() - 1}, with the
+ * successors of all nodes stored in a single array.
+ *
+ * <p>This is meant for algorithms that run over every node of a large graph, such as cycle
+ * detection, where the per-node maps and sets of a {@link com.google.common.graph.Network} are the
+ * dominant cost. Parallel edges are collapsed into one; self-loops are kept.
+ */
+public final class IndexedGraph {
+  /** Returns a builder for a graph with {@code nodeCount} nodes. */
+  public static Builder builder(int nodeCount) {
+    return new Builder(nodeCount);
+  }
+
+  // The successors of node n are successors[successorOffsets[n]] to
+  // successors[successorOffsets[n + 1] - 1], in the order their edges were added.
+  private final int[] successorOffsets;
+  private final int[] successors;
+
+  private IndexedGraph(int[] successorOffsets, int[] successors) {
+    this.successorOffsets = successorOffsets;
+    this.successors = successors;
+  }
+
+  /** Returns the number of nodes in this graph. */
+  public int nodeCount() {
+    return successorOffsets.length - 1;
+  }
+
+  /** Returns the number of (distinct) successors of {@code node}. */
+  public int successorCount(int node) {
+    return successorOffsets[node + 1] - successorOffsets[node];
+  }
+
+  /** Returns the {@code i}th successor of {@code node}. */
+  public int successor(int node, int i) {
+    checkElementIndex(i, successorCount(node));
+    return successors[successorOffsets[node] + i];
+  }
+
+  /**
+   * Returns a shortest path from {@code from} to {@code to} as the nodes visited in sequence,
+   * including both {@code from} and {@code to}, or an empty array if there is no such path. Only
+   * nodes for which {@code traversable} is {@code true} are visited.
+   */
+  public int[] shortestPath(int from, int to, IntPredicate traversable) {
+    if (from == to) {
+      return new int[] {from};
+    }
+    // Most searches stay within a small strongly connected component, so the shortest path tree is
+    // kept in a map rather than in an array the size of the graph.
+    Map<Integer, Integer> pathPredecessors = new HashMap<>();
+    Queue<Integer> queue = new ArrayDeque<>();
+    pathPredecessors.put(from, from);
+    queue.add(from);
+    while (!queue.isEmpty()) {
+      int node = queue.remove();
+      for (int i = successorOffsets[node]; i < successorOffsets[node + 1]; i++) {
+        int successor = successors[i];
+        if (pathPredecessors.containsKey(successor) || !traversable.test(successor)) {
+          continue;
+        }
+        pathPredecessors.put(successor, node);
+        if (successor == to) {
+          return path(from, to, pathPredecessors);
+        }
+        queue.add(successor);
+      }
+    }
+    return new int[0];
+  }
+
+  private static int[] path(int from, int to, Map<Integer, Integer> pathPredecessors) {
+    int length = 1;
+    for (int node = to; node != from; node = pathPredecessors.get(node)) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int node = to, i = length - 1; i >= 0; node = pathPredecessors.get(node), i--) {
+      path[i] = node;
+    }
+    return path;
+  }
+
+  /** A builder for {@link IndexedGraph}s. */
+  public static final class Builder {
+    private final int nodeCount;
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    private int edgeCount;
+
+    private Builder(int nodeCount) {
+      this.nodeCount = nodeCount;
+    }
+
+    /** Adds an edge from {@code source} to {@code target}. */
+    public Builder addEdge(int source, int target) {
+      checkElementIndex(source, nodeCount);
+      checkElementIndex(target, nodeCount);
+      if (edgeCount == sources.length) {
+        sources = Arrays.copyOf(sources, edgeCount * 2);
+        targets = Arrays.copyOf(targets, edgeCount * 2);
+      }
+      sources[edgeCount] = source;
+      targets[edgeCount] = target;
+      edgeCount++;
+      return this;
+    }
+
+    public IndexedGraph build() {
+      // Counting sort of the edges by source, which keeps the edges of each source in order.
+      int[] successorOffsets = new int[nodeCount + 1];
+      for (int i = 0; i < edgeCount; i++) {
+        successorOffsets[sources[i] + 1]++;
+      }
+      for (int node = 0; node < nodeCount; node++) {
+        successorOffsets[node + 1] += successorOffsets[node];
+      }
+      int[] next = Arrays.copyOf(successorOffsets, nodeCount);
+      int[] successors = new int[edgeCount];
+      for (int i = 0; i < edgeCount; i++) {
+        successors[next[sources[i]]++] = targets[i];
+      }
+
+      // Collapse parallel edges, compacting the array in place.
+      int[] lastSource = new int[nodeCount];
+      Arrays.fill(lastSource, -1);
+      int distinctCount = 0;
+      int start = 0;
+      for (int node = 0; node < nodeCount; node++) {
+        int end = successorOffsets[node + 1];
+        successorOffsets[node] = distinctCount;
+        for (int i = start; i < end; i++) {
+          int successor = successors[i];
+          if (lastSource[successor] != node) {
+            lastSource[successor] = node;
+            successors[distinctCount++] = successor;
+          }
+        }
+        start = end;
+      }
+      successorOffsets[nodeCount] = distinctCount;
+      return new IndexedGraph(successorOffsets, Arrays.copyOf(successors, distinctCount));
+    }
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.base;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.XMessager;
+import com.google.common.collect.ImmutableMap;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.spi.model.BindingGraph;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.tools.Diagnostic;
+
+/**
+ * Measures the wall time, allocation and output sizes of the phases of processing, and writes them
+ * to the file given by {@code -Adagger.profileReport=<path>}.
+ *
+ * <p>The report is written as JSON if the path ends with {@code .json}, and as CSV otherwise. It
+ * is rewritten after every round, so it is complete even if processing fails.
+ */
+@Singleton
+public final class ProcessingProfiler {
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final ProcessingProfiler DISABLED = new ProcessingProfiler(Optional.empty());
+  private static final Measurement DISABLED_MEASUREMENT = new Measurement(DISABLED, "", "");
+
+  /** Returns a profiler that measures nothing. */
+  public static ProcessingProfiler disabled() {
+    return DISABLED;
+  }
+
+  private final Optional<Path> reportPath;
+  private final List<Entry> entries = new ArrayList<>();
+  private int round = 1;
+
+  @Inject
+  ProcessingProfiler(CompilerOptions compilerOptions) {
+    this(compilerOptions.profileReport());
+  }
+
+  private ProcessingProfiler(Optional<Path> reportPath) {
+    this.reportPath = reportPath;
+  }
+
+  /** Returns {@code true} if phases are measured. */
+  public boolean isEnabled() {
+    return reportPath.isPresent();
+  }
+
+  /**
+   * Starts measuring a phase of processing {@code subject}, such as a component or element. The
+   * phase ends when the returned measurement is {@linkplain Measurement#close() closed}, which must
+   * happen on the same thread.
+   */
+  public Measurement start(String phase, String subject) {
+    return isEnabled() ? new Measurement(this, phase, subject) : DISABLED_MEASUREMENT;
+  }
+
+  /** Starts measuring a {@code BindingGraphPlugin}'s visit of {@code graph}. */
+  public Measurement startPlugin(String pluginName, BindingGraph graph) {
+    return isEnabled()
+        ? start(
+            "plugin " + pluginName,
+            graph.rootComponentNode().componentPath() + (graph.isFullBindingGraph() ? " (full)" : ""))
+        : DISABLED_MEASUREMENT;
+  }
+
+  /**
+   * Records counts for {@code subject} that aren't tied to a measured phase, such as the number of
+   * elements a processing step deferred in this round.
+   */
+  public void count(String phase, String subject, Map<String, Long> counts) {
+    if (isEnabled()) {
+      record(phase, subject, 0, -1, counts);
+    }
+  }
+
+  /** Ends the current round and rewrites the report, reporting any failure to {@code messager}. */
+  public void endRound(XMessager messager) {
+    if (!isEnabled()) {
+      return;
+    }
+    List<Entry> snapshot;
+    synchronized (this) {
+      round++;
+      snapshot = new ArrayList<>(entries);
+    }
+    Path path = reportPath.get();
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      try (Writer writer = Files.newBufferedWriter(path, UTF_8)) {
+        if (path.getFileName().toString().endsWith(".json")) {
+          writeJson(snapshot, writer);
+        } else {
+          writeCsv(snapshot, writer);
+        }
+      }
+    } catch (IOException e) {
+      messager.printMessage(
+          Diagnostic.Kind.WARNING,
+          String.format("Could not write the Dagger profile report to %s: %s", path, e));
+    }
+  }
+
+  private synchronized void record(
+      String phase, String subject, long wallNanos, long allocatedBytes, Map<String, Long> sizes) {
+    entries.add(new Entry(round, phase, subject, wallNanos, allocatedBytes, sizes));
+  }
+
+  private static void writeCsv(List<Entry> entries, Writer writer) throws IOException {
+    Set<String> sizeNames = new LinkedHashSet<>();
+    entries.forEach(entry -> sizeNames.addAll(entry.sizes.keySet()));
+    writer.write("round,phase,subject,wallNanos,allocatedBytes");
+    for (String sizeName : sizeNames) {
+      writer.write(',');
+      writer.write(csvField(sizeName));
+    }
+    writer.write('\n');
+    for (Entry entry : entries) {
+      writer.write(
+          String.format(
+              "%d,%s,%s,%d,%s",
+              entry.round,
+              csvField(entry.phase),
+              csvField(entry.subject),
+              entry.wallNanos,
+              entry.allocatedBytes < 0 ? "" : Long.toString(entry.allocatedBytes)));
+      for (String sizeName : sizeNames) {
+        writer.write(',');
+        if (entry.sizes.containsKey(sizeName)) {
+          writer.write(Long.toString(entry.sizes.get(sizeName)));
+        }
+      }
+      writer.write('\n');
+    }
+  }
+
+  private static String csvField(String value) {
+    return value.contains(",") || value.contains("\"") || value.contains("\n")
+        ? "\"" + value.replace("\"", "\"\"") + "\""
+        : value;
+  }
+
+  private static void writeJson(List<Entry> entries, Writer writer) throws IOException {
+    writer.write("[");
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      writer.write(i == 0 ? "\n" : ",\n");
+      writer.write(
+          String.format(
+              "  {\"round\": %d, \"phase\": %s, \"subject\": %s, \"wallNanos\": %d",
+              entry.round,
+              jsonString(entry.phase),
+              jsonString(entry.subject),
+              entry.wallNanos));
+      if (entry.allocatedBytes >= 0) {
+        writer.write(", \"allocatedBytes\": " + entry.allocatedBytes);
+      }
+      for (Map.Entry<String, Long> size : entry.sizes.entrySet()) {
+        writer.write(", " + jsonString(size.getKey()) + ": " + size.getValue());
+      }
+      writer.write("}");
+    }
+    writer.write("\n]\n");
+  }
+
+  private static String jsonString(String value) {
+    StringBuilder json = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      switch (c) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        default:
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    return json.append('"').toString();
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread so far, or {@code -1} if the JVM
+   * doesn't measure it.
+   */
+  private static long allocatedBytes() {
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+      if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  /** A phase of processing that is being measured. */
+  public static final class Measurement implements AutoCloseable {
+    private final ProcessingProfiler profiler;
+    private final String phase;
+    private final String subject;
+    private final Map<String, Long> sizes = new LinkedHashMap<>();
+    private final long startNanos;
+    private final long startAllocatedBytes;
+
+    private Measurement(ProcessingProfiler profiler, String phase, String subject) {
+      this.profiler = profiler;
+      this.phase = phase;
+      this.subject = subject;
+      this.startNanos = profiler.isEnabled() ? System.nanoTime() : 0;
+      this.startAllocatedBytes = profiler.isEnabled() ? allocatedBytes() : 0;
+    }
+
+    /** Records the size of something the phase read or produced, such as a number of nodes. */
+    public void addSize(String name, long size) {
+      if (profiler.isEnabled()) {
+        sizes.merge(name, size, Long::sum);
+      }
+    }
+
+    /** Ends the phase and records its measurements. */
+    @Override
+    public void close() {
+      if (!profiler.isEnabled()) {
+        return;
+      }
+      long endAllocatedBytes = allocatedBytes();
+      profiler.record(
+          phase,
+          subject,
+          System.nanoTime() - startNanos,
+          startAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes,
+          sizes);
+    }
+  }
+
+  private static final class Entry {
+    private final int round;
+    private final String phase;
+    private final String subject;
+    private final long wallNanos;
+    private final long allocatedBytes;
+    private final ImmutableMap<String, Long> sizes;
+
+    Entry(
+        int round,
+        String phase,
+        String subject,
+        long wallNanos,
+        long allocatedBytes,
+        Map<String, Long> sizes) {
+      this.round = round;
+      this.phase = phase;
+      this.subject = subject;
+      this.wallNanos = wallNanos;
+      this.allocatedBytes = allocatedBytes;
+      this.sizes = ImmutableMap.copyOf(sizes);
+    }
+  }
+}
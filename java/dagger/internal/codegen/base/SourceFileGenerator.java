@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.RAWTYPES;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
 import static dagger.internal.codegen.xprocessing.XElements.closestEnclosingTypeElement;
+import static dagger.internal.codegen.xprocessing.XElements.toStableString;
 
 import androidx.room.compiler.processing.XElement;
 import androidx.room.compiler.processing.XFiler;
@@ -49,14 +50,21 @@ public abstract class SourceFileGenerator<T> {
 
   private final XFiler filer;
   private final XProcessingEnv processingEnv;
+  private final ProcessingProfiler profiler;
 
   public SourceFileGenerator(XFiler filer, XProcessingEnv processingEnv) {
+    this(filer, processingEnv, ProcessingProfiler.disabled());
+  }
+
+  public SourceFileGenerator(
+      XFiler filer, XProcessingEnv processingEnv, ProcessingProfiler profiler) {
     this.filer = checkNotNull(filer);
     this.processingEnv = checkNotNull(processingEnv);
+    this.profiler = checkNotNull(profiler);
   }
 
   public SourceFileGenerator(SourceFileGenerator<T> delegate) {
-    this(delegate.filer, delegate.processingEnv);
+    this(delegate.filer, delegate.processingEnv, delegate.profiler);
   }
 
   /**
@@ -73,9 +81,21 @@ public abstract class SourceFileGenerator<T> {
 
   /** Generates a source file to be compiled for {@code T}. */
   public void generate(T input) throws SourceFileGenerationException {
-    for (TypeSpec.Builder type : topLevelTypes(input)) {
-      try {
-        filer.write(buildJavaFile(input, type), XFiler.Mode.Isolating);
+    String generatorName = getClass().getSimpleName();
+    String subject = profiler.isEnabled() ? toStableString(originatingElement(input)) : "";
+    ImmutableList<TypeSpec.Builder> topLevelTypes;
+    try (ProcessingProfiler.Measurement measurement =
+        profiler.start(generatorName + ".topLevelTypes", subject)) {
+      topLevelTypes = topLevelTypes(input);
+    }
+    for (TypeSpec.Builder type : topLevelTypes) {
+      try (ProcessingProfiler.Measurement measurement =
+          profiler.start(generatorName + ".write", subject)) {
+        JavaFile javaFile = buildJavaFile(input, type);
+        if (profiler.isEnabled()) {
+          measurement.addSize("lines", lineCount(javaFile.toString()));
+        }
+        filer.write(javaFile, XFiler.Mode.Isolating);
       } catch (Exception e) {
         // if the code above threw a SFGE, use that
         Throwables.propagateIfPossible(e, SourceFileGenerationException.class);
@@ -85,6 +105,10 @@ public abstract class SourceFileGenerator<T> {
     }
   }
 
+  private static long lineCount(String source) {
+    return source.chars().filter(c -> c == '\n').count();
+  }
+
   private JavaFile buildJavaFile(T input, TypeSpec.Builder typeSpecBuilder) {
     XElement originatingElement = originatingElement(input);
     addOriginatingElement(typeSpecBuilder, originatingElement);
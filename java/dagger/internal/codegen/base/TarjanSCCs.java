@@ -26,6 +26,7 @@ import com.google.common.collect.Sets;
 import com.google.common.graph.SuccessorsFunction;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +45,73 @@ public final class TarjanSCCs {
     return new TarjanSCC<>(nodes, successorsFunction).compute();
   }
 
+  /**
+   * Returns the strongly connected component of each node of {@code graph}, as an array indexed by
+   * node. Components are numbered from {@code 0} in reverse topological order.
+   *
+   * <p>Unlike {@link #compute(ImmutableCollection, SuccessorsFunction)}, this doesn't recurse, so
+   * it can be used on graphs with arbitrarily long paths.
+   */
+  public static int[] compute(IndexedGraph graph) {
+    int nodeCount = graph.nodeCount();
+    int[] indexes = new int[nodeCount];
+    Arrays.fill(indexes, -1);
+    int[] lowLinks = new int[nodeCount];
+    int[] components = new int[nodeCount];
+    boolean[] onStack = new boolean[nodeCount];
+    int[] stack = new int[nodeCount];
+    int stackSize = 0;
+    // The nodes whose successors are being visited, and the next successor to visit for each.
+    int[] path = new int[nodeCount];
+    int[] nextSuccessors = new int[nodeCount];
+    int nextIndex = 0;
+    int componentCount = 0;
+
+    for (int root = 0; root < nodeCount; root++) {
+      if (indexes[root] != -1) {
+        continue;
+      }
+      int depth = 0;
+      path[0] = root;
+      indexes[root] = lowLinks[root] = nextIndex++;
+      stack[stackSize++] = root;
+      onStack[root] = true;
+      while (depth >= 0) {
+        int node = path[depth];
+        if (nextSuccessors[node] < graph.successorCount(node)) {
+          int successor = graph.successor(node, nextSuccessors[node]++);
+          if (indexes[successor] == -1) {
+            // Successor has not been processed.
+            indexes[successor] = lowLinks[successor] = nextIndex++;
+            stack[stackSize++] = successor;
+            onStack[successor] = true;
+            path[++depth] = successor;
+          } else if (onStack[successor]) {
+            // Successor is on the stack and hence in the current SCC.
+            lowLinks[node] = min(lowLinks[node], indexes[successor]);
+          }
+          continue;
+        }
+
+        // If node is the root of an SCC, pop the stack until reaching it to get all SCC nodes.
+        if (lowLinks[node] == indexes[node]) {
+          int member;
+          do {
+            member = stack[--stackSize];
+            onStack[member] = false;
+            components[member] = componentCount;
+          } while (member != node);
+          componentCount++;
+        }
+        if (--depth >= 0) {
+          int parent = path[depth];
+          lowLinks[parent] = min(lowLinks[parent], lowLinks[node]);
+        }
+      }
+    }
+    return components;
+  }
+
   private static class TarjanSCC<NodeT> {
     private final ImmutableCollection<NodeT> nodes;
     private final SuccessorsFunction<NodeT> successorsFunction;
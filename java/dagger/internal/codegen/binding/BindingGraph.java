@@ -106,12 +106,10 @@ public abstract class BindingGraph {
 
     TopLevelBindingGraph() {}
 
-    // This overrides dagger.spi.model.BindingGraph with a more efficient implementation.
+    // This overrides dagger.spi.model.BindingGraph with the index built in create().
     @Override
-    public Optional<ComponentNode> componentNode(ComponentPath componentPath) {
-      return componentNodes.containsKey(componentPath)
-          ? Optional.of(componentNodes.get(componentPath))
-          : Optional.empty();
+    protected ImmutableMap<ComponentPath, ComponentNode> componentNodesByPath() {
+      return componentNodes;
     }
 
     /** Returns the set of subcomponent nodes of the given component node. */
@@ -125,6 +123,36 @@ public abstract class BindingGraph {
       return super.nodesByClass();
     }
 
+    @Override
+    @Memoized
+    public ImmutableSet<DependencyEdge> dependencyEdges() {
+      return super.dependencyEdges();
+    }
+
+    @Override
+    @Memoized
+    public ImmutableSet<DependencyEdge> entryPointEdges() {
+      return super.entryPointEdges();
+    }
+
+    @Override
+    @Memoized
+    protected ImmutableSetMultimap<Key, dagger.spi.model.Binding> bindingsByKey() {
+      return super.bindingsByKey();
+    }
+
+    @Override
+    @Memoized
+    protected ImmutableSetMultimap<DependencyRequest, DependencyEdge> dependencyEdgesByRequest() {
+      return super.dependencyEdgesByRequest();
+    }
+
+    @Override
+    @Memoized
+    protected ImmutableNetwork<Node, DependencyEdge> dependencyGraph() {
+      return super.dependencyGraph();
+    }
+
     /**
      * Returns an index of each {@link BindingNode} by its {@link ComponentPath}. Accessing this for
      * a component and its parent components is faster than doing a graph traversal.
@@ -49,6 +49,7 @@ import dagger.internal.codegen.base.DaggerSuperficialValidation;
 import dagger.internal.codegen.base.Keys;
 import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.base.OptionalType;
+import dagger.internal.codegen.base.ProcessingProfiler;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.xprocessing.XTypeElements;
@@ -81,6 +82,7 @@ public final class BindingGraphFactory implements ClearableCache {
   private final BindingGraphConverter bindingGraphConverter;
   private final Map<Key, ImmutableSet<Key>> keysMatchingRequestCache = new HashMap<>();
   private final CompilerOptions compilerOptions;
+  private final ProcessingProfiler profiler;
 
   @Inject
   BindingGraphFactory(
@@ -90,7 +92,8 @@ public final class BindingGraphFactory implements ClearableCache {
       BindingFactory bindingFactory,
       ModuleDescriptor.Factory moduleDescriptorFactory,
       BindingGraphConverter bindingGraphConverter,
-      CompilerOptions compilerOptions) {
+      CompilerOptions compilerOptions,
+      ProcessingProfiler profiler) {
     this.processingEnv = processingEnv;
     this.injectBindingRegistry = injectBindingRegistry;
     this.keyFactory = keyFactory;
@@ -98,6 +101,7 @@ public final class BindingGraphFactory implements ClearableCache {
     this.moduleDescriptorFactory = moduleDescriptorFactory;
     this.bindingGraphConverter = bindingGraphConverter;
     this.compilerOptions = compilerOptions;
+    this.profiler = profiler;
   }
 
   /**
@@ -108,9 +112,20 @@ public final class BindingGraphFactory implements ClearableCache {
    */
   public BindingGraph create(
       ComponentDescriptor componentDescriptor, boolean createFullBindingGraph) {
-    return bindingGraphConverter.convert(
-        createLegacyBindingGraph(Optional.empty(), componentDescriptor, createFullBindingGraph),
-        createFullBindingGraph);
+    try (ProcessingProfiler.Measurement measurement =
+        profiler.start(
+            createFullBindingGraph
+                ? "BindingGraphFactory.create (full)"
+                : "BindingGraphFactory.create",
+            componentDescriptor.typeElement().getQualifiedName())) {
+      LegacyBindingGraph legacyBindingGraph =
+          createLegacyBindingGraph(Optional.empty(), componentDescriptor, createFullBindingGraph);
+      BindingGraph bindingGraph =
+          bindingGraphConverter.convert(legacyBindingGraph, createFullBindingGraph);
+      measurement.addSize("nodes", bindingGraph.topLevelBindingGraph().network().nodes().size());
+      measurement.addSize("edges", bindingGraph.topLevelBindingGraph().network().edges().size());
+      return bindingGraph;
+    }
   }
 
   private LegacyBindingGraph createLegacyBindingGraph(
@@ -211,12 +226,22 @@ public final class BindingGraphFactory implements ClearableCache {
               }
             });
 
+    if (compilerOptions.monitorProvisions()) {
+      // Resolve the ProvisionMonitor, if one is bound, so that the component can report its
+      // provisions to it. It isn't required, so a missing binding is not an error.
+      Key provisionMonitorKey = keyFactory.forProvisionMonitor();
+      if (!requestResolver.lookUpBindings(provisionMonitorKey).bindings().isEmpty()) {
+        requestResolver.resolve(provisionMonitorKey);
+      }
+    }
+
     if (createFullBindingGraph) {
       // Resolve the keys for all bindings in all modules, stripping any multibinding contribution
       // identifier so that the multibinding itself is resolved.
       modules(componentDescriptor, parentResolver).stream()
           .flatMap(module -> module.allBindingKeys().stream())
           .map(Key::withoutMultibindingContributionIdentifier)
+          .map(keyFactory::intern)
           .forEach(requestResolver::resolve);
     }
 
@@ -316,6 +341,23 @@ public final class BindingGraphFactory implements ClearableCache {
     final Map<Key, Boolean> keyDependsOnLocalBindingsCache = new HashMap<>();
     final Map<Binding, Boolean> bindingDependsOnLocalBindingsCache = new HashMap<>();
     final Queue<ComponentDescriptor> subcomponentsToResolve = new ArrayDeque<>();
+    /** The keys of all of the declarations in this component's own modules and creator. */
+    final ImmutableSet<Key> localDeclarationKeys;
+    /** The keys whose bindings were looked up in this component, rather than inherited. */
+    final Set<Key> locallyResolvedKeys = new HashSet<>();
+    /**
+     * The checks of keys that the subcomponents of this component inherit, shared by all of them.
+     * See {@link #inheritedKeyCheck(Key)}.
+     */
+    final Map<Key, InheritedKeyCheck> inheritedKeyChecks = new HashMap<>();
+    /** The number of keys looked up in this component that an ancestor had already resolved. */
+    int shadowingResolutionCount;
+    /**
+     * The {@link #lineageVersion()} of the parent when this resolver first relied on its resolved
+     * bindings, {@link #NO_LINEAGE_VERSION} if it hasn't yet, or {@link #MIXED_LINEAGE_VERSIONS} if
+     * it has at different versions.
+     */
+    int observedParentLineageVersion = NO_LINEAGE_VERSION;
 
     Resolver(
         Optional<Resolver> parentResolver,
@@ -336,6 +378,16 @@ public final class BindingGraphFactory implements ClearableCache {
       this.explicitMultibindings = multibindingContributionsByMultibindingKey(explicitBindingsSet);
       this.delegateMultibindingDeclarations =
           multibindingContributionsByMultibindingKey(delegateDeclarations.values());
+      this.localDeclarationKeys =
+          ImmutableSet.<Key>builder()
+              .addAll(explicitBindings.keySet())
+              .addAll(explicitMultibindings.keySet())
+              .addAll(multibindingDeclarations.keySet())
+              .addAll(subcomponentDeclarations.keySet())
+              .addAll(delegateDeclarations.keySet())
+              .addAll(delegateMultibindingDeclarations.keySet())
+              .addAll(optionalBindingDeclarations.keySet())
+              .build();
       subcomponentsToResolve.addAll(
           componentDescriptor.childComponentsDeclaredByFactoryMethods().values());
       subcomponentsToResolve.addAll(
@@ -516,6 +568,8 @@ public final class BindingGraphFactory implements ClearableCache {
       keyFactory
           .rewrapMapKey(requestKey, TypeNames.PROVIDER, TypeNames.PRODUCER)
           .ifPresent(keys::add);
+      // Map<K, Lazy<V>> is satisfied by the same contributions as Map<K, Provider<V>>.
+      keyFactory.rewrapMapKey(requestKey, TypeNames.LAZY, TypeNames.PROVIDER).ifPresent(keys::add);
       keys.addAll(keyFactory.implicitFrameworkMapKeys(requestKey));
       return keys.build();
     }
@@ -795,14 +849,15 @@ public final class BindingGraphFactory implements ClearableCache {
        * 2. If there are any explicit bindings in this component, they may conflict with those in
        *    the ancestor component, so resolve them here so that conflicts can be caught.
        */
-      if (getPreviouslyResolvedBindings(key).isPresent() && !Keys.isComponentOrCreator(key)) {
+      boolean resolvedInAncestor = getPreviouslyResolvedBindings(key).isPresent();
+      if (resolvedInAncestor && !Keys.isComponentOrCreator(key)) {
         /* Resolve in the parent in case there are multibinding contributions or conflicts in some
          * component between this one and the previously-resolved one. */
         parentResolver.get().resolve(key);
-        if (!new LocalDependencyChecker().dependsOnLocalBindings(key)
-            && getLocalExplicitBindings(key).isEmpty()) {
+        if (!inheritedKeyDependsOnLocalBindings(key) && getLocalExplicitBindings(key).isEmpty()) {
           /* Cache the inherited parent component's bindings in case resolving at the parent found
            * bindings in some component between this one and the previously-resolved one. */
+          observeParentLineage();
           resolvedContributionBindings.put(key, getPreviouslyResolvedBindings(key).get());
           return;
         }
@@ -812,12 +867,138 @@ public final class BindingGraphFactory implements ClearableCache {
       try {
         ResolvedBindings bindings = lookUpBindings(key);
         resolvedContributionBindings.put(key, bindings);
+        locallyResolvedKeys.add(key);
+        if (resolvedInAncestor) {
+          shadowingResolutionCount++;
+        }
         resolveDependencies(bindings);
       } finally {
         cycleStack.pop();
       }
     }
 
+    /**
+     * Returns {@code true} if {@code key}, which was resolved in an ancestor, depends on local
+     * bindings as defined by {@link LocalDependencyChecker#dependsOnLocalBindings(Key)}.
+     *
+     * <p>Sibling subcomponents mostly inherit the same keys from their parent, and mostly have no
+     * declarations that affect them. Rather than have each sibling check all of the dependencies of
+     * each key, the parent checks them once for all of its children, and records the keys whose
+     * local declarations could change the result. If this component has no declarations for any of
+     * those keys, the result is the same as the parent's check.
+     */
+    private boolean inheritedKeyDependsOnLocalBindings(Key key) {
+      InheritedKeyCheck check = parentResolver.get().inheritedKeyCheck(key);
+      if (check.conclusive
+          && (observedParentLineageVersion == NO_LINEAGE_VERSION
+              || observedParentLineageVersion == check.lineageVersion)
+          && check.footprint.stream().noneMatch(localDeclarationKeys::contains)
+          && !containsAny(check.dependencyKeys, locallyResolvedKeys)) {
+        return false;
+      }
+      return new LocalDependencyChecker().dependsOnLocalBindings(key);
+    }
+
+    /**
+     * Returns the check of whether {@code key}, which was resolved in this component or an
+     * ancestor, depends on local bindings in a subcomponent of this component that has no
+     * declarations for any of the check's {@link InheritedKeyCheck#footprint footprint} keys.
+     *
+     * <p>This mirrors {@link LocalDependencyChecker#dependsOnLocalBindings(Key)} for such a
+     * subcomponent. If the dependencies of the key have a cycle, or if ancestors have optional
+     * binding declarations that would make the result {@code true}, the check is inconclusive and
+     * the subcomponent has to do its own.
+     */
+    private InheritedKeyCheck inheritedKeyCheck(Key key) {
+      int lineageVersion = lineageVersion();
+      InheritedKeyCheck check = inheritedKeyChecks.get(key);
+      if (check == null || check.lineageVersion != lineageVersion) {
+        check = new InheritedKeyCheck(lineageVersion);
+        if (!collectInheritedDependencies(key, check, new HashSet<>())) {
+          check.conclusive = false;
+          check.dependencyKeys.clear();
+          check.footprint.clear();
+        }
+        inheritedKeyChecks.put(key, check);
+      }
+      return check;
+    }
+
+    /**
+     * Adds {@code key} and its unscoped dependencies to {@code check}. Returns {@code false} if
+     * the check is inconclusive.
+     */
+    private boolean collectInheritedDependencies(
+        Key key, InheritedKeyCheck check, Set<Key> keysBeingVisited) {
+      if (keysBeingVisited.contains(key)) {
+        return false; // cycle
+      }
+      if (!check.dependencyKeys.add(key)) {
+        return true;
+      }
+      Optional<ResolvedBindings> resolvedBindings = getPreviouslyResolvedBindings(key);
+      if (!resolvedBindings.isPresent()) {
+        return false;
+      }
+      // The keys of the multibinding contributions checked by hasLocalMultibindingContributions().
+      for (Key matchingKey : keysMatchingRequest(key)) {
+        check.footprint.add(matchingKey);
+        check.footprint.add(keyFactory.unwrapMapValueType(matchingKey));
+      }
+      // The keys of the bindings and declarations checked by hasLocalOptionalBindingContribution().
+      Optional<Key> unwrappedOptionalKey = keyFactory.unwrapOptional(key);
+      if (unwrappedOptionalKey.isPresent()) {
+        check.footprint.add(unwrappedOptionalKey.get());
+        check.footprint.add(keyFactory.unwrapMapValueType(unwrappedOptionalKey.get()));
+      }
+      if (resolvedBindings.get().contributionBindings().stream()
+              .map(ContributionBinding::kind)
+              .noneMatch(isEqual(OPTIONAL))
+          && !getOptionalBindingDeclarations(key).isEmpty()) {
+        return false;
+      }
+
+      keysBeingVisited.add(key);
+      try {
+        for (Binding binding : resolvedBindings.get().bindings()) {
+          if ((!binding.scope().isPresent() || binding.scope().get().isReusable())
+              && !binding.bindingType().equals(BindingType.PRODUCTION)) {
+            for (DependencyRequest dependency : binding.dependencies()) {
+              if (!collectInheritedDependencies(dependency.key(), check, keysBeingVisited)) {
+                return false;
+              }
+            }
+          }
+        }
+        return true;
+      } finally {
+        keysBeingVisited.remove(key);
+      }
+    }
+
+    /**
+     * Returns a number that changes whenever this component or an ancestor looks up the bindings
+     * for a key that an ancestor had already resolved, which can change the bindings that
+     * {@link #getPreviouslyResolvedBindings(Key)} returns.
+     */
+    private int lineageVersion() {
+      return shadowingResolutionCount
+          + parentResolver.map(Resolver::lineageVersion).orElse(0);
+    }
+
+    /** Records that this resolver relied on the bindings resolved by its ancestors. */
+    private void observeParentLineage() {
+      if (!parentResolver.isPresent()) {
+        return;
+      }
+      int parentLineageVersion = parentResolver.get().lineageVersion();
+      if (observedParentLineageVersion == NO_LINEAGE_VERSION) {
+        observedParentLineageVersion = parentLineageVersion;
+      } else if (observedParentLineageVersion != parentLineageVersion) {
+        observedParentLineageVersion = MIXED_LINEAGE_VERSIONS;
+      }
+    }
+
     /**
      * {@link #resolve(Key) Resolves} each of the dependencies of the bindings owned by this
      * component.
@@ -852,6 +1033,11 @@ public final class BindingGraphFactory implements ClearableCache {
     private final class LocalDependencyChecker {
       private final Set<Object> cycleChecker = new HashSet<>();
 
+      LocalDependencyChecker() {
+        // The results are cached, so they rely on the bindings that ancestors have resolved.
+        observeParentLineage();
+      }
+
       /**
        * Returns {@code true} if any of the bindings resolved for {@code key} are multibindings with
        * contributions declared within this component's modules or optional bindings with present
@@ -955,17 +1141,50 @@ public final class BindingGraphFactory implements ClearableCache {
     }
   }
 
+  private static final int NO_LINEAGE_VERSION = -1;
+  private static final int MIXED_LINEAGE_VERSIONS = -2;
+
+  /**
+   * A check of whether a key that the subcomponents of a component inherit depends on bindings
+   * local to those subcomponents, when they don't have any declarations for its {@link #footprint}.
+   */
+  private static final class InheritedKeyCheck {
+    /** The key and its transitive unscoped dependencies. */
+    final Set<Key> dependencyKeys = new HashSet<>();
+    /** The keys of the local declarations that would affect the check. */
+    final Set<Key> footprint = new HashSet<>();
+    /** The lineage version of the component at the time of the check. */
+    final int lineageVersion;
+    /**
+     * {@code false} if the key can't be checked once for all subcomponents, because its
+     * dependencies have a cycle or the ancestors' declarations affect it.
+     */
+    boolean conclusive = true;
+
+    InheritedKeyCheck(int lineageVersion) {
+      this.lineageVersion = lineageVersion;
+    }
+  }
+
+  private static boolean containsAny(Set<Key> set, Set<Key> keys) {
+    return set.size() < keys.size()
+        ? set.stream().anyMatch(keys::contains)
+        : keys.stream().anyMatch(set::contains);
+  }
+
   /**
    * A multimap of those {@code declarations} that are multibinding contribution declarations,
    * indexed by the key of the set or map to which they contribute.
    */
-  static <T extends BindingDeclaration>
+  private <T extends BindingDeclaration>
       ImmutableSetMultimap<Key, T> multibindingContributionsByMultibindingKey(
           Iterable<T> declarations) {
     ImmutableSetMultimap.Builder<Key, T> builder = ImmutableSetMultimap.builder();
     for (T declaration : declarations) {
       if (declaration.key().multibindingContributionIdentifier().isPresent()) {
-        builder.put(declaration.key().withoutMultibindingContributionIdentifier(), declaration);
+        builder.put(
+            keyFactory.intern(declaration.key().withoutMultibindingContributionIdentifier()),
+            declaration);
       }
     }
     return builder.build();
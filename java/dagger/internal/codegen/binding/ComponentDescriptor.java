@@ -181,7 +181,7 @@ public abstract class ComponentDescriptor {
    * </ul>
    */
   @Memoized
-  ImmutableSet<ComponentRequirement> requirements() {
+  public ImmutableSet<ComponentRequirement> requirements() {
     ImmutableSet.Builder<ComponentRequirement> requirements = ImmutableSet.builder();
     modules().stream()
         .filter(
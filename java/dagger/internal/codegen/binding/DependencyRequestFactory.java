@@ -29,6 +29,7 @@ import static dagger.internal.codegen.xprocessing.XTypes.isTypeOf;
 import static dagger.internal.codegen.xprocessing.XTypes.unwrapType;
 import static dagger.spi.model.RequestKind.FUTURE;
 import static dagger.spi.model.RequestKind.INSTANCE;
+import static dagger.spi.model.RequestKind.LAZY;
 import static dagger.spi.model.RequestKind.MEMBERS_INJECTION;
 import static dagger.spi.model.RequestKind.PRODUCER;
 import static dagger.spi.model.RequestKind.PROVIDER;
@@ -107,7 +108,7 @@ public final class DependencyRequestFactory {
 
   // TODO(b/28555349): support PROVIDER_OF_LAZY here too
   private static final ImmutableSet<RequestKind> WRAPPING_MAP_VALUE_FRAMEWORK_TYPES =
-      ImmutableSet.of(PROVIDER, PRODUCER);
+      ImmutableSet.of(PROVIDER, LAZY, PRODUCER);
 
   private RequestKind multibindingContributionRequestKind(
       Key multibindingKey, ContributionBinding multibindingContribution) {
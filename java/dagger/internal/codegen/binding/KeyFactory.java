@@ -41,6 +41,7 @@ import com.google.common.collect.ImmutableSet;
 import com.squareup.javapoet.ClassName;
 import dagger.Binds;
 import dagger.BindsOptionalOf;
+import dagger.internal.codegen.base.ClearableCache;
 import dagger.internal.codegen.base.ContributionType;
 import dagger.internal.codegen.base.FrameworkTypes;
 import dagger.internal.codegen.base.MapType;
@@ -58,13 +59,21 @@ import dagger.spi.model.Key;
 import dagger.spi.model.RequestKind;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import javax.inject.Inject;
+import javax.inject.Singleton;
 
-/** A factory for {@link Key}s. */
-public final class KeyFactory {
+/**
+ * A factory for {@link Key}s.
+ *
+ * <p>The keys it returns are {@linkplain #intern(Key) interned} for the processing round.
+ */
+@Singleton
+public final class KeyFactory implements ClearableCache {
   private final XProcessingEnv processingEnv;
   private final InjectionAnnotations injectionAnnotations;
+  private final Map<Key, Key> internedKeys = new ConcurrentHashMap<>();
 
   @Inject
   KeyFactory(XProcessingEnv processingEnv, InjectionAnnotations injectionAnnotations) {
@@ -72,6 +81,23 @@ public final class KeyFactory {
     this.injectionAnnotations = injectionAnnotations;
   }
 
+  /**
+   * Returns the canonical instance of {@code key} for this processing round.
+   *
+   * <p>Comparing a key to itself short-circuits {@link Key#equals(Object)}, and its hash code is
+   * computed once, so maps and sets of interned keys avoid comparing the types and qualifiers of
+   * equal keys.
+   */
+  public Key intern(Key key) {
+    Key internedKey = internedKeys.putIfAbsent(key, key);
+    return internedKey == null ? key : internedKey;
+  }
+
+  @Override
+  public void clearCache() {
+    internedKeys.clear();
+  }
+
   private XType setOf(XType elementType) {
     return processingEnv.getDeclaredType(
         processingEnv.requireTypeElement(TypeNames.SET), elementType.boxed());
@@ -105,11 +131,11 @@ public final class KeyFactory {
       XMethodElement subcomponentCreatorMethod, XType declaredContainer) {
     checkArgument(isDeclared(declaredContainer));
     XMethodType resolvedMethod = subcomponentCreatorMethod.asMemberOf(declaredContainer);
-    return Key.builder(DaggerType.from(resolvedMethod.getReturnType())).build();
+    return intern(Key.builder(DaggerType.from(resolvedMethod.getReturnType())).build());
   }
 
   public Key forSubcomponentCreator(XType creatorType) {
-    return Key.builder(DaggerType.from(creatorType)).build();
+    return intern(Key.builder(DaggerType.from(creatorType)).build());
   }
 
   public Key forProvidesMethod(XMethodElement method, XTypeElement contributingModule) {
@@ -154,8 +180,9 @@ public final class KeyFactory {
     Key key = forMethod(method, keyType);
     return contributionType.equals(ContributionType.UNIQUE)
         ? key
-        : key.withMultibindingContributionIdentifier(
-            DaggerTypeElement.from(contributingModule), DaggerExecutableElement.from(method));
+        : intern(
+            key.withMultibindingContributionIdentifier(
+                DaggerTypeElement.from(contributingModule), DaggerExecutableElement.from(method)));
   }
 
   /**
@@ -234,40 +261,50 @@ public final class KeyFactory {
   }
 
   public Key forInjectConstructorWithResolvedType(XType type) {
-    return Key.builder(DaggerType.from(type)).build();
+    return intern(Key.builder(DaggerType.from(type)).build());
   }
 
   // TODO(ronshapiro): Remove these conveniences which are simple wrappers around Key.Builder
   Key forType(XType type) {
-    return Key.builder(DaggerType.from(type)).build();
+    return intern(Key.builder(DaggerType.from(type)).build());
   }
 
   public Key forMembersInjectedType(XType type) {
-    return Key.builder(DaggerType.from(type)).build();
+    return intern(Key.builder(DaggerType.from(type)).build());
   }
 
   Key forQualifiedType(Optional<XAnnotation> qualifier, XType type) {
-    return Key.builder(DaggerType.from(type.boxed()))
-        .qualifier(qualifier.map(DaggerAnnotation::from))
-        .build();
+    return intern(
+        Key.builder(DaggerType.from(type.boxed()))
+            .qualifier(qualifier.map(DaggerAnnotation::from))
+            .build());
   }
 
   public Key forProductionExecutor() {
-    return Key.builder(DaggerType.from(processingEnv.requireType(TypeNames.EXECUTOR)))
-        .qualifier(DaggerAnnotation.from(productionQualifier(processingEnv)))
-        .build();
+    return intern(
+        Key.builder(DaggerType.from(processingEnv.requireType(TypeNames.EXECUTOR)))
+            .qualifier(DaggerAnnotation.from(productionQualifier(processingEnv)))
+            .build());
   }
 
   public Key forProductionImplementationExecutor() {
-    return Key.builder(DaggerType.from(processingEnv.requireType(TypeNames.EXECUTOR)))
-        .qualifier(DaggerAnnotation.from(productionImplementationQualifier(processingEnv)))
-        .build();
+    return intern(
+        Key.builder(DaggerType.from(processingEnv.requireType(TypeNames.EXECUTOR)))
+            .qualifier(DaggerAnnotation.from(productionImplementationQualifier(processingEnv)))
+            .build());
   }
 
   public Key forProductionComponentMonitor() {
-    return Key.builder(
-            DaggerType.from(processingEnv.requireType(TypeNames.PRODUCTION_COMPONENT_MONITOR)))
-        .build();
+    return intern(
+        Key.builder(
+                DaggerType.from(processingEnv.requireType(TypeNames.PRODUCTION_COMPONENT_MONITOR)))
+            .build());
+  }
+
+  public Key forProvisionMonitor() {
+    return intern(
+        Key.builder(DaggerType.from(processingEnv.requireType(TypeNames.PROVISION_MONITOR)))
+            .build());
   }
 
   /**
@@ -318,9 +355,10 @@ public final class KeyFactory {
         for (ClassName frameworkClass :
             asList(TypeNames.PROVIDER, TypeNames.PRODUCER, TypeNames.PRODUCED)) {
           if (mapType.valuesAreTypeOf(frameworkClass)) {
-            return key.withType(
-                DaggerType.from(
-                    mapOf(mapType.keyType(), mapType.unwrappedValueType(frameworkClass))));
+            return intern(
+                key.withType(
+                    DaggerType.from(
+                        mapOf(mapType.keyType(), mapType.unwrappedValueType(frameworkClass)))));
           }
         }
       }
@@ -360,7 +398,9 @@ public final class KeyFactory {
             processingEnv.getDeclaredType(
                 wrappingElement, mapType.unwrappedValueType(currentWrappingClassName));
         return Optional.of(
-            possibleMapKey.withType(DaggerType.from(mapOf(mapType.keyType(), wrappedValueType))));
+            intern(
+                possibleMapKey.withType(
+                    DaggerType.from(mapOf(mapType.keyType(), wrappedValueType)))));
       }
     }
     return Optional.empty();
@@ -386,7 +426,9 @@ public final class KeyFactory {
         XType wrappedValueType =
             processingEnv.getDeclaredType(wrappingElement, mapType.valueType());
         return Optional.of(
-            possibleMapKey.withType(DaggerType.from(mapOf(mapType.keyType(), wrappedValueType))));
+            intern(
+                possibleMapKey.withType(
+                    DaggerType.from(mapOf(mapType.keyType(), wrappedValueType)))));
       }
     }
     return Optional.empty();
@@ -401,7 +443,9 @@ public final class KeyFactory {
       SetType setType = SetType.from(key);
       if (!setType.isRawType() && setType.elementsAreTypeOf(wrappingClassName)) {
         return Optional.of(
-            key.withType(DaggerType.from(setOf(setType.unwrappedElementType(wrappingClassName)))));
+            intern(
+                key.withType(
+                    DaggerType.from(setOf(setType.unwrappedElementType(wrappingClassName))))));
       }
     }
     return Optional.empty();
@@ -418,6 +462,6 @@ public final class KeyFactory {
     }
 
     XType optionalValueType = OptionalType.from(key).valueType();
-    return Optional.of(key.withType(DaggerType.from(extractKeyType(optionalValueType))));
+    return Optional.of(intern(key.withType(DaggerType.from(extractKeyType(optionalValueType)))));
   }
 }
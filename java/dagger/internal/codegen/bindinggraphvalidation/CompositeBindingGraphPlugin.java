@@ -29,6 +29,7 @@ import com.google.errorprone.annotations.FormatMethod;
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
 import dagger.assisted.AssistedInject;
+import dagger.internal.codegen.base.ProcessingProfiler;
 import dagger.internal.codegen.validation.DiagnosticMessageGenerator;
 import dagger.spi.model.BindingGraph;
 import dagger.spi.model.BindingGraph.ChildFactoryMethodEdge;
@@ -55,13 +56,16 @@ final class CompositeBindingGraphPlugin implements BindingGraphPlugin {
 
   private final ImmutableSet<BindingGraphPlugin> plugins;
   private final DiagnosticMessageGenerator.Factory messageGeneratorFactory;
+  private final ProcessingProfiler profiler;
 
   @AssistedInject
   CompositeBindingGraphPlugin(
       @Assisted ImmutableSet<BindingGraphPlugin> plugins,
-      DiagnosticMessageGenerator.Factory messageGeneratorFactory) {
+      DiagnosticMessageGenerator.Factory messageGeneratorFactory,
+      ProcessingProfiler profiler) {
     this.plugins = plugins;
     this.messageGeneratorFactory = messageGeneratorFactory;
+    this.profiler = profiler;
   }
 
   @Override
@@ -70,7 +74,10 @@ final class CompositeBindingGraphPlugin implements BindingGraphPlugin {
         bindingGraph, diagnosticReporter, messageGeneratorFactory.create(bindingGraph));
     plugins.forEach(plugin -> {
       aggregatingDiagnosticReporter.setCurrentPlugin(plugin.pluginName());
-      plugin.visitGraph(bindingGraph, aggregatingDiagnosticReporter);
+      try (ProcessingProfiler.Measurement measurement =
+          profiler.startPlugin(plugin.pluginName(), bindingGraph)) {
+        plugin.visitGraph(bindingGraph, aggregatingDiagnosticReporter);
+      }
     });
     aggregatingDiagnosticReporter.report();
   }
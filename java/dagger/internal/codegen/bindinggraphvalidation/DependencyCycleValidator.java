@@ -20,7 +20,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Iterables.getLast;
 import static com.google.common.collect.Iterables.limit;
 import static com.google.common.collect.Iterables.skip;
-import static com.google.common.collect.Sets.newHashSetWithExpectedSize;
+import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
 import static dagger.internal.codegen.base.RequestKinds.extractKeyType;
 import static dagger.internal.codegen.base.RequestKinds.getRequestKind;
 import static dagger.internal.codegen.extension.DaggerGraphs.shortestPath;
@@ -35,27 +35,27 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.graph.EndpointPair;
-import com.google.common.graph.Graphs;
-import com.google.common.graph.ImmutableNetwork;
-import com.google.common.graph.MutableNetwork;
-import com.google.common.graph.NetworkBuilder;
 import dagger.internal.codegen.base.Formatter;
+import dagger.internal.codegen.base.IndexedGraph;
 import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.base.OptionalType;
+import dagger.internal.codegen.base.TarjanSCCs;
 import dagger.internal.codegen.binding.DependencyRequestFormatter;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.spi.model.Binding;
 import dagger.spi.model.BindingGraph;
 import dagger.spi.model.BindingGraph.ComponentNode;
 import dagger.spi.model.BindingGraph.DependencyEdge;
+import dagger.spi.model.BindingGraph.Edge;
 import dagger.spi.model.BindingGraph.Node;
 import dagger.spi.model.BindingGraphPlugin;
 import dagger.spi.model.BindingKind;
 import dagger.spi.model.DependencyRequest;
 import dagger.spi.model.DiagnosticReporter;
 import dagger.spi.model.RequestKind;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 import javax.inject.Inject;
@@ -77,40 +77,65 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
 
   @Override
   public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
-    ImmutableNetwork<Node, DependencyEdge> dependencyGraph =
-        nonCycleBreakingDependencyGraph(bindingGraph);
+    ImmutableList<Binding> bindings = bindingGraph.bindings().asList();
+    IndexedGraph dependencyGraph = nonCycleBreakingDependencyGraph(bindingGraph, bindings);
+    int[] components = TarjanSCCs.compute(dependencyGraph);
+    // A strongly connected component contains a cycle if it has more than one node or a self-loop.
+    int[] componentSizes = new int[bindings.size()];
+    boolean[] cyclicComponents = new boolean[bindings.size()];
+    boolean hasCycle = false;
+    for (int node = 0; node < bindings.size(); node++) {
+      if (++componentSizes[components[node]] > 1 || hasSelfLoop(dependencyGraph, node)) {
+        cyclicComponents[components[node]] = true;
+        hasCycle = true;
+      }
+    }
     // First check the graph for a cycle. If there is one, then we'll do more work to report where.
-    if (!Graphs.hasCycle(dependencyGraph)) {
+    if (!hasCycle) {
       return;
     }
-    // Check each endpoint pair only once, no matter how many parallel edges connect them.
-    Set<EndpointPair<Node>> dependencyEndpointPairs = dependencyGraph.asGraph().edges();
-    Set<EndpointPair<Node>> visited = newHashSetWithExpectedSize(dependencyEndpointPairs.size());
-    for (EndpointPair<Node> endpointPair : dependencyEndpointPairs) {
-      cycleContainingEndpointPair(endpointPair, dependencyGraph, visited)
-          .ifPresent(cycle -> reportCycle(cycle, bindingGraph, diagnosticReporter));
-    }
-  }
 
-  private Optional<Cycle<Node>> cycleContainingEndpointPair(
-      EndpointPair<Node> endpoints,
-      ImmutableNetwork<Node, DependencyEdge> dependencyGraph,
-      Set<EndpointPair<Node>> visited) {
-    if (!visited.add(endpoints)) {
-      // don't recheck endpoints we already know are part of a cycle
-      return Optional.empty();
+    // Check each pair of nodes in a cyclic component only once. Edges between components can't be
+    // part of a cycle.
+    Set<Long> visited = new HashSet<>();
+    for (int source = 0; source < bindings.size(); source++) {
+      int component = components[source];
+      if (!cyclicComponents[component]) {
+        continue;
+      }
+      for (int i = 0; i < dependencyGraph.successorCount(source); i++) {
+        int target = dependencyGraph.successor(source, i);
+        if (components[target] != component || !visited.add(pairKey(source, target, bindings))) {
+          // don't recheck endpoints we already know are part of a cycle
+          continue;
+        }
+        // There's a path from the target back to the source within the component.
+        int[] cycleNodes =
+            dependencyGraph.shortestPath(target, source, node -> components[node] == component);
+        for (int j = 0; j < cycleNodes.length; j++) {
+          // no need to check any edge in this cycle again
+          visited.add(pairKey(cycleNodes[j], cycleNodes[(j + 1) % cycleNodes.length], bindings));
+        }
+        ImmutableList.Builder<Node> cyclePath = ImmutableList.builder();
+        for (int cycleNode : cycleNodes) {
+          cyclePath.add(bindings.get(cycleNode));
+        }
+        reportCycle(Cycle.fromPath(cyclePath.build()), bindingGraph, diagnosticReporter);
+      }
     }
+  }
 
-    // If there's a path from the target back to the source, there's a cycle.
-    ImmutableList<Node> cycleNodes =
-        shortestPath(dependencyGraph, endpoints.target(), endpoints.source());
-    if (cycleNodes.isEmpty()) {
-      return Optional.empty();
+  private static boolean hasSelfLoop(IndexedGraph graph, int node) {
+    for (int i = 0; i < graph.successorCount(node); i++) {
+      if (graph.successor(node, i) == node) {
+        return true;
+      }
     }
+    return false;
+  }
 
-    Cycle<Node> cycle = Cycle.fromPath(cycleNodes);
-    visited.addAll(cycle.endpointPairs()); // no need to check any edge in this cycle again
-    return Optional.of(cycle);
+  private static long pairKey(int source, int target, ImmutableList<Binding> bindings) {
+    return (long) source * bindings.size() + target;
   }
 
   /**
@@ -237,7 +262,9 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
 
       case INSTANCE:
         if (MapType.isMap(requestedType)) {
-          return MapType.from(requestedType).valuesAreTypeOf(TypeNames.PROVIDER);
+          MapType mapType = MapType.from(requestedType);
+          return mapType.valuesAreTypeOf(TypeNames.PROVIDER)
+              || mapType.valuesAreTypeOf(TypeNames.LAZY);
         }
         // fall through
 
@@ -254,23 +281,30 @@ final class DependencyCycleValidator implements BindingGraphPlugin {
         .get();
   }
 
-  /** Returns the subgraph containing only {@link DependencyEdge}s that would not break a cycle. */
-  // TODO(dpb): Return a network containing only Binding nodes.
-  private ImmutableNetwork<Node, DependencyEdge> nonCycleBreakingDependencyGraph(
-      BindingGraph bindingGraph) {
-    MutableNetwork<Node, DependencyEdge> dependencyNetwork =
-        NetworkBuilder.from(bindingGraph.network())
-            .expectedNodeCount(bindingGraph.network().nodes().size())
-            .expectedEdgeCount(bindingGraph.dependencyEdges().size())
-            .build();
-    bindingGraph.dependencyEdges().stream()
-        .filter(edge -> !breaksCycle(edge, bindingGraph))
-        .forEach(
-            edge -> {
-              EndpointPair<Node> endpoints = bindingGraph.network().incidentNodes(edge);
-              dependencyNetwork.addEdge(endpoints.source(), endpoints.target(), edge);
-            });
-    return ImmutableNetwork.copyOf(dependencyNetwork);
+  /**
+   * Returns the graph of {@link DependencyEdge}s between {@code bindings} that would not break a
+   * cycle, whose nodes are the indexes of {@code bindings}. Missing bindings and component nodes
+   * can't be part of a cycle, so they are left out.
+   */
+  private IndexedGraph nonCycleBreakingDependencyGraph(
+      BindingGraph bindingGraph, ImmutableList<Binding> bindings) {
+    Map<Binding, Integer> bindingIndexes = newHashMapWithExpectedSize(bindings.size());
+    for (int i = 0; i < bindings.size(); i++) {
+      bindingIndexes.put(bindings.get(i), i);
+    }
+    IndexedGraph.Builder dependencyGraph = IndexedGraph.builder(bindings.size());
+    for (int source = 0; source < bindings.size(); source++) {
+      for (Edge edge : bindingGraph.network().outEdges(bindings.get(source))) {
+        if (!(edge instanceof DependencyEdge)) {
+          continue;
+        }
+        Integer target = bindingIndexes.get(bindingGraph.network().incidentNodes(edge).target());
+        if (target != null && !breaksCycle((DependencyEdge) edge, bindingGraph)) {
+          dependencyGraph.addEdge(source, target);
+        }
+      }
+    }
+    return dependencyGraph.build();
   }
 
   /**
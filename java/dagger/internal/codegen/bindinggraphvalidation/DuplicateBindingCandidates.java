@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.bindinggraphvalidation;
+
+import static dagger.spi.model.BindingKind.MEMBERS_INJECTION;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import dagger.spi.model.Binding;
+import dagger.spi.model.BindingGraph;
+import dagger.spi.model.ComponentPath;
+import dagger.spi.model.Key;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Finds the sets of bindings in a {@link BindingGraph} that may be duplicates of each other:
+ * bindings for the same key that are visible from the same component.
+ *
+ * <p>The bindings are grouped by key in one pass. Most keys have only one binding, or copies of
+ * the same binding in several components, so they are skipped before any component's visible
+ * bindings are computed.
+ */
+final class DuplicateBindingCandidates {
+  /**
+   * Returns the sets of bindings for the same key that are all visible from the same component and
+   * that have more than one distinct {@code identity}, each indexed by identity. A binding is
+   * visible from its component and all its descendants. Members injection bindings are ignored.
+   */
+  static <I> ImmutableSet<ImmutableSetMultimap<I, Binding>> find(
+      BindingGraph bindingGraph, Function<? super Binding, I> identity) {
+    Map<Key, BindingsForKey<I>> bindingsByKey = new LinkedHashMap<>();
+    for (Binding binding : bindingGraph.bindings()) {
+      if (!binding.kind().equals(MEMBERS_INJECTION)) {
+        bindingsByKey
+            .computeIfAbsent(binding.key(), key -> new BindingsForKey<>(identity))
+            .add(binding);
+      }
+    }
+
+    Map<ComponentPath, ImmutableList<ComponentPath>> ancestors = new HashMap<>();
+    ImmutableSet.Builder<ImmutableSetMultimap<I, Binding>> candidates = ImmutableSet.builder();
+    for (BindingsForKey<I> bindings : bindingsByKey.values()) {
+      if (bindings.hasDistinctIdentities) {
+        bindings.addMutuallyVisibleSubsets(candidates, ancestors);
+      }
+    }
+    return candidates.build();
+  }
+
+  /** The bindings for one key. */
+  private static final class BindingsForKey<I> {
+    private final Function<? super Binding, I> identityFunction;
+    private final List<Binding> bindings = new ArrayList<>(1);
+    /** The identities of {@link #bindings}, computed once there is more than one binding. */
+    private final List<I> identities = new ArrayList<>();
+    private boolean hasDistinctIdentities;
+
+    BindingsForKey(Function<? super Binding, I> identityFunction) {
+      this.identityFunction = identityFunction;
+    }
+
+    void add(Binding binding) {
+      bindings.add(binding);
+      if (bindings.size() == 1) {
+        return;
+      }
+      if (identities.isEmpty()) {
+        identities.add(identityFunction.apply(bindings.get(0)));
+      }
+      I identity = identityFunction.apply(binding);
+      identities.add(identity);
+      hasDistinctIdentities |= !identity.equals(identities.get(0));
+    }
+
+    /**
+     * Adds the bindings visible from each component that owns one of the bindings, if they have
+     * more than one identity.
+     */
+    void addMutuallyVisibleSubsets(
+        ImmutableSet.Builder<ImmutableSetMultimap<I, Binding>> candidates,
+        Map<ComponentPath, ImmutableList<ComponentPath>> ancestorsCache) {
+      Map<ComponentPath, List<Integer>> indicesByComponent = new LinkedHashMap<>();
+      for (int i = 0; i < bindings.size(); i++) {
+        indicesByComponent
+            .computeIfAbsent(bindings.get(i).componentPath(), path -> new ArrayList<>())
+            .add(i);
+      }
+      indicesByComponent.forEach(
+          (componentPath, indices) -> {
+            ImmutableSetMultimap.Builder<I, Binding> subset = ImmutableSetMultimap.builder();
+            putAll(subset, indices);
+            for (ComponentPath ancestor : ancestors(componentPath, ancestorsCache)) {
+              List<Integer> ancestorIndices = indicesByComponent.get(ancestor);
+              if (ancestorIndices != null) {
+                putAll(subset, ancestorIndices);
+              }
+            }
+            ImmutableSetMultimap<I, Binding> visibleBindings = subset.build();
+            if (visibleBindings.keySet().size() > 1) {
+              candidates.add(visibleBindings);
+            }
+          });
+    }
+
+    private void putAll(ImmutableSetMultimap.Builder<I, Binding> subset, List<Integer> indices) {
+      for (int index : indices) {
+        subset.put(identities.get(index), bindings.get(index));
+      }
+    }
+  }
+
+  /** Returns the ancestors of {@code componentPath}, starting with its parent. */
+  private static ImmutableList<ComponentPath> ancestors(
+      ComponentPath componentPath, Map<ComponentPath, ImmutableList<ComponentPath>> cache) {
+    ImmutableList<ComponentPath> ancestors = cache.get(componentPath);
+    if (ancestors == null) {
+      ancestors =
+          componentPath.atRoot()
+              ? ImmutableList.of()
+              : ImmutableList.<ComponentPath>builder()
+                  .add(componentPath.parent())
+                  .addAll(ancestors(componentPath.parent(), cache))
+                  .build();
+      cache.put(componentPath, ancestors);
+    }
+    return ancestors;
+  }
+
+  private DuplicateBindingCandidates() {}
+}
@@ -20,9 +20,7 @@ import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static dagger.internal.codegen.base.Formatter.INDENT;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
-import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSetMultimap;
 import static dagger.spi.model.BindingKind.INJECTION;
-import static dagger.spi.model.BindingKind.MEMBERS_INJECTION;
 import static java.util.Comparator.comparing;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
@@ -31,11 +29,9 @@ import androidx.room.compiler.processing.XTypeElement;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
 import dagger.internal.codegen.base.Formatter;
@@ -49,13 +45,14 @@ import dagger.spi.model.BindingGraph;
 import dagger.spi.model.BindingGraph.ComponentNode;
 import dagger.spi.model.BindingGraphPlugin;
 import dagger.spi.model.BindingKind;
-import dagger.spi.model.ComponentPath;
 import dagger.spi.model.DaggerElement;
 import dagger.spi.model.DaggerTypeElement;
 import dagger.spi.model.DiagnosticReporter;
 import dagger.spi.model.Key;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -90,12 +87,14 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
     // subcomponent to fix.
     // TODO(ronshapiro): Explore ways to address such underreporting without overreporting.
     Set<ImmutableSet<BindingElement>> reportedDuplicateBindingSets = new HashSet<>();
+    Map<Binding, ImmutableSet<BindingDeclaration>> declarationsCache = new HashMap<>();
     duplicateBindingSets(bindingGraph)
         .forEach(
             duplicateBindings -> {
               // Only report each set of duplicate bindings once, ignoring the installed component.
               if (reportedDuplicateBindingSets.add(duplicateBindings.keySet())) {
-                reportDuplicateBindings(duplicateBindings, bindingGraph, diagnosticReporter);
+                reportDuplicateBindings(
+                    duplicateBindings, bindingGraph, declarationsCache, diagnosticReporter);
               }
             });
   }
@@ -107,49 +106,15 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
    * descendant component because it depends on local multibindings or optional bindings. Hence each
    * "set" is represented as a multimap from binding element (ignoring component path) to binding.
    */
-  private ImmutableSet<ImmutableSetMultimap<BindingElement, Binding>> duplicateBindingSets(
+  private static ImmutableSet<ImmutableSetMultimap<BindingElement, Binding>> duplicateBindingSets(
       BindingGraph bindingGraph) {
-    return groupBindingsByKey(bindingGraph).stream()
-        .flatMap(bindings -> mutuallyVisibleSubsets(bindings).stream())
-        .map(BindingElement::index)
-        .filter(duplicates -> duplicates.keySet().size() > 1)
-        .collect(toImmutableSet());
-  }
-
-  private static ImmutableSet<ImmutableSet<Binding>> groupBindingsByKey(BindingGraph bindingGraph) {
-    return valueSetsForEachKey(
-        bindingGraph.bindings().stream()
-            .filter(binding -> !binding.kind().equals(MEMBERS_INJECTION))
-            .collect(toImmutableSetMultimap(Binding::key, binding -> binding)));
-  }
-
-  /**
-   * Returns the subsets of the input set that contain bindings that are all visible from the same
-   * component. A binding is visible from its component and all its descendants.
-   */
-  private static ImmutableSet<ImmutableSet<Binding>> mutuallyVisibleSubsets(
-      Set<Binding> duplicateBindings) {
-    ImmutableListMultimap<ComponentPath, Binding> bindingsByComponentPath =
-        Multimaps.index(duplicateBindings, Binding::componentPath);
-    ImmutableSetMultimap.Builder<ComponentPath, Binding> mutuallyVisibleBindings =
-        ImmutableSetMultimap.builder();
-    bindingsByComponentPath
-        .asMap()
-        .forEach(
-            (componentPath, bindings) -> {
-              mutuallyVisibleBindings.putAll(componentPath, bindings);
-              for (ComponentPath ancestor = componentPath; !ancestor.atRoot(); ) {
-                ancestor = ancestor.parent();
-                ImmutableList<Binding> bindingsInAncestor = bindingsByComponentPath.get(ancestor);
-                mutuallyVisibleBindings.putAll(componentPath, bindingsInAncestor);
-              }
-            });
-    return valueSetsForEachKey(mutuallyVisibleBindings.build());
+    return DuplicateBindingCandidates.find(bindingGraph, BindingElement::forBinding);
   }
 
   private void reportDuplicateBindings(
       ImmutableSetMultimap<BindingElement, Binding> duplicateBindings,
       BindingGraph bindingGraph,
+      Map<Binding, ImmutableSet<BindingDeclaration>> declarationsCache,
       DiagnosticReporter diagnosticReporter) {
     if (explicitBindingConfictsWithInject(duplicateBindings.keySet())) {
       compilerOptions
@@ -167,8 +132,8 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
     ImmutableSet<Binding> bindings = ImmutableSet.copyOf(duplicateBindings.values());
     Binding oneBinding = bindings.asList().get(0);
     String message = bindings.stream().anyMatch(binding -> binding.kind().isMultibinding())
-        ? incompatibleBindingsMessage(oneBinding, bindings, bindingGraph)
-        : duplicateBindingMessage(oneBinding, bindings, bindingGraph);
+        ? incompatibleBindingsMessage(oneBinding, bindings, bindingGraph, declarationsCache)
+        : duplicateBindingMessage(oneBinding, bindings, bindingGraph, declarationsCache);
     if (compilerOptions.experimentalDaggerErrorMessages()) {
       diagnosticReporter.reportComponent(
           ERROR,
@@ -227,10 +192,13 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
   }
 
   private String duplicateBindingMessage(
-      Binding oneBinding, ImmutableSet<Binding> duplicateBindings, BindingGraph graph) {
+      Binding oneBinding,
+      ImmutableSet<Binding> duplicateBindings,
+      BindingGraph graph,
+      Map<Binding, ImmutableSet<BindingDeclaration>> declarationsCache) {
     StringBuilder message =
         new StringBuilder().append(oneBinding.key()).append(" is bound multiple times:");
-    formatDeclarations(message, 1, declarations(graph, duplicateBindings));
+    formatDeclarations(message, 1, declarations(graph, duplicateBindings, declarationsCache));
     if (compilerOptions.experimentalDaggerErrorMessages()) {
       message.append(String.format("\n%sin component: [%s]", INDENT, oneBinding.componentPath()));
     }
@@ -238,7 +206,10 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
   }
 
   private String incompatibleBindingsMessage(
-      Binding oneBinding, ImmutableSet<Binding> duplicateBindings, BindingGraph graph) {
+      Binding oneBinding,
+      ImmutableSet<Binding> duplicateBindings,
+      BindingGraph graph,
+      Map<Binding, ImmutableSet<BindingDeclaration>> declarationsCache) {
     Key key = oneBinding.key();
     ImmutableSet<dagger.spi.model.Binding> multibindings =
         duplicateBindings.stream()
@@ -252,7 +223,7 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
     message.append(INDENT);
     dagger.spi.model.Binding multibinding = getOnlyElement(multibindings);
     messageFormatter.format("%s bindings and declarations:", multibindingTypeString(multibinding));
-    formatDeclarations(message, 2, declarations(graph, multibindings));
+    formatDeclarations(message, 2, declarations(graph, multibindings, declarationsCache));
 
     Set<dagger.spi.model.Binding> uniqueBindings =
         Sets.filter(duplicateBindings, binding -> !binding.equals(multibinding));
@@ -261,7 +232,7 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
         message,
         2,
         Sets.filter(
-            declarations(graph, uniqueBindings),
+            declarations(graph, uniqueBindings, declarationsCache),
             declaration -> !(declaration instanceof MultibindingDeclaration)));
     if (compilerOptions.experimentalDaggerErrorMessages()) {
       message.append(String.format("\n%sin component: [%s]", INDENT, oneBinding.componentPath()));
@@ -278,27 +249,42 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
   }
 
   private ImmutableSet<BindingDeclaration> declarations(
-      BindingGraph graph, Set<dagger.spi.model.Binding> bindings) {
+      BindingGraph graph,
+      Set<dagger.spi.model.Binding> bindings,
+      Map<Binding, ImmutableSet<BindingDeclaration>> declarationsCache) {
     return bindings.stream()
-        .flatMap(binding -> declarations(graph, binding).stream())
+        .flatMap(binding -> declarations(graph, binding, declarationsCache).stream())
         .distinct()
         .sorted(BindingDeclaration.COMPARATOR)
         .collect(toImmutableSet());
   }
 
+  /**
+   * Returns the declarations of {@code binding}, or of the bindings it requests if it has none that
+   * can be formatted. The results are cached for the graph, since many multibindings can request
+   * the same bindings.
+   */
   private ImmutableSet<BindingDeclaration> declarations(
-      BindingGraph graph, dagger.spi.model.Binding binding) {
+      BindingGraph graph,
+      dagger.spi.model.Binding binding,
+      Map<Binding, ImmutableSet<BindingDeclaration>> declarationsCache) {
+    ImmutableSet<BindingDeclaration> cachedDeclarations = declarationsCache.get(binding);
+    if (cachedDeclarations != null) {
+      return cachedDeclarations;
+    }
     ImmutableSet.Builder<BindingDeclaration> declarations = ImmutableSet.builder();
     BindingNode bindingNode = (BindingNode) binding;
     bindingNode.associatedDeclarations().forEach(declarations::add);
     if (bindingDeclarationFormatter.canFormat(bindingNode.delegate())) {
       declarations.add(bindingNode.delegate());
     } else {
-      graph.requestedBindings(binding).stream()
-          .flatMap(requestedBinding -> declarations(graph, requestedBinding).stream())
-          .forEach(declarations::add);
+      for (Binding requestedBinding : graph.requestedBindings(binding)) {
+        declarations.addAll(declarations(graph, requestedBinding, declarationsCache));
+      }
     }
-    return declarations.build();
+    ImmutableSet<BindingDeclaration> bindingDeclarations = declarations.build();
+    declarationsCache.put(binding, bindingDeclarations);
+    return bindingDeclarations;
   }
 
   private String multibindingTypeString(dagger.spi.model.Binding multibinding) {
@@ -312,10 +298,6 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
     }
   }
 
-  private static <E> ImmutableSet<ImmutableSet<E>> valueSetsForEachKey(Multimap<?, E> multimap) {
-    return multimap.asMap().values().stream().map(ImmutableSet::copyOf).collect(toImmutableSet());
-  }
-
   /** Returns the binding of the given kind that is closest to the root component. */
   private static Binding rootmostBindingWithKind(
       Predicate<BindingKind> bindingKindPredicate, ImmutableCollection<Binding> bindings) {
@@ -335,10 +317,6 @@ final class DuplicateBindingsValidator implements BindingGraphPlugin {
 
     abstract Optional<XTypeElement> contributingModule();
 
-    static ImmutableSetMultimap<BindingElement, Binding> index(Set<Binding> bindings) {
-      return bindings.stream().collect(toImmutableSetMultimap(BindingElement::forBinding, b -> b));
-    }
-
     private static BindingElement forBinding(Binding binding) {
       return new AutoValue_DuplicateBindingsValidator_BindingElement(
           binding.kind(),
@@ -87,6 +87,7 @@ final class MapMultibindingValidator implements BindingGraphPlugin {
    *   <li>{@code Map<K, V>}
    *   <li>{@code Map<K, Provider<V>>}
    *   <li>{@code Map<K, Producer<V>>}
+   *   <li>{@code Map<K, Lazy<V>>}
    * </ol>
    */
   private ImmutableSet<Binding> mapMultibindings(BindingGraph bindingGraph) {
@@ -120,10 +121,27 @@ final class MapMultibindingValidator implements BindingGraphPlugin {
                             .rewrapMapKey(key, TypeNames.PRODUCER, TypeNames.PROVIDER)
                             .get()));
 
+    // Multibindings for Map<K, Lazy<V>> where neither Map<K, V> nor Map<K, Provider<V>> is in the
+    // graph
+    SetMultimap<Key, Binding> lazyValueMapMultibindings =
+        filterKeys(
+            mapMultibindings,
+            key ->
+                MapType.from(key).valuesAreTypeOf(TypeNames.LAZY)
+                    && !keyFactory
+                        .rewrapMapKey(key, TypeNames.LAZY, TypeNames.PROVIDER)
+                        .filter(
+                            providerKey ->
+                                mapMultibindings.containsKey(providerKey)
+                                    || mapMultibindings.containsKey(
+                                        keyFactory.unwrapMapValueType(providerKey)))
+                        .isPresent());
+
     return new ImmutableSet.Builder<Binding>()
         .addAll(plainValueMapMultibindings.values())
         .addAll(providerValueMapMultibindings.values())
         .addAll(producerValueMapMultibindings.values())
+        .addAll(lazyValueMapMultibindings.values())
         .build();
   }
 
@@ -75,13 +75,20 @@ final class MissingBindingValidator implements BindingGraphPlugin {
     if (graph.isFullBindingGraph() || graph.rootComponentNode().isSubcomponent()) {
       return;
     }
+    // Share the generator so that its dependency paths are computed once for all missing bindings.
+    DiagnosticMessageGenerator generator = diagnosticMessageGeneratorFactory.create(graph);
     graph
         .missingBindings()
-        .forEach(missingBinding -> reportMissingBinding(missingBinding, graph, diagnosticReporter));
+        .forEach(
+            missingBinding ->
+                reportMissingBinding(missingBinding, graph, generator, diagnosticReporter));
   }
 
   private void reportMissingBinding(
-      MissingBinding missingBinding, BindingGraph graph, DiagnosticReporter diagnosticReporter) {
+      MissingBinding missingBinding,
+      BindingGraph graph,
+      DiagnosticMessageGenerator generator,
+      DiagnosticReporter diagnosticReporter) {
     List<ComponentPath> alternativeComponents =
         graph.bindings(missingBinding.key()).stream()
             .map(Binding::componentPath)
@@ -97,7 +104,8 @@ final class MissingBindingValidator implements BindingGraphPlugin {
           ERROR,
           graph.componentNode(missingBinding.componentPath()).get(),
           missingBindingErrorMessage(missingBinding, graph)
-              + wrongComponentErrorMessage(missingBinding, alternativeComponents, graph));
+              + wrongComponentErrorMessage(
+                  missingBinding, alternativeComponents, graph, generator));
     }
   }
 
@@ -126,10 +134,10 @@ final class MissingBindingValidator implements BindingGraphPlugin {
   private String wrongComponentErrorMessage(
       MissingBinding missingBinding,
       List<ComponentPath> alternativeComponentPath,
-      BindingGraph graph) {
+      BindingGraph graph,
+      DiagnosticMessageGenerator generator) {
     ImmutableSet<DependencyEdge> entryPoints =
         graph.entryPointEdgesDependingOnBinding(missingBinding);
-    DiagnosticMessageGenerator generator = diagnosticMessageGeneratorFactory.create(graph);
     ImmutableList<DependencyEdge> dependencyTrace =
         generator.dependencyTrace(missingBinding, entryPoints);
     StringBuilder message =
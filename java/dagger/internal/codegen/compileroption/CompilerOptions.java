@@ -17,6 +17,9 @@
 package dagger.internal.codegen.compileroption;
 
 import androidx.room.compiler.processing.XTypeElement;
+import com.google.common.collect.ImmutableSet;
+import java.nio.file.Path;
+import java.util.Optional;
 import javax.tools.Diagnostic;
 
 /** A collection of options that dictate how the compiler will run. */
@@ -139,11 +142,107 @@ public abstract class CompilerOptions {
    */
   public abstract boolean generatedClassExtendsComponent();
 
+  /**
+   * Returns {@code true} if scoped bindings should be memoized with a {@link
+   * java.util.concurrent.locks.ReentrantLock}-based provider rather than {@code DoubleCheck}.
+   *
+   * <p>{@code DoubleCheck} synchronizes on its monitor while the scoped instance is created, which
+   * pins a virtual thread to its carrier thread if the creation blocks.
+   */
+  public abstract boolean nonPinningScopedProviders();
+
+  /**
+   * Returns {@code true} if a component field that holds a {@code DelegateFactory} for a dependency
+   * cycle should be reassigned to the delegate once it is set.
+   *
+   * <p>Only calls through the field skip the extra {@code DelegateFactory#get()} hop, i.e. calls
+   * from entry points and from bindings created after the cycle. Bindings in the cycle are created
+   * before the delegate is set, so they keep calling through the {@code DelegateFactory}.
+   */
+  public abstract boolean collapseDelegateFactories();
+
+  /**
+   * Returns {@code true} if, in fast-init mode, the instances of scoped bindings should be stored
+   * in one {@code ScopedInstanceStore} array per {@code SwitchingProvider} class rather than each
+   * being memoized by its own {@code DoubleCheck}.
+   */
+  public abstract boolean compactScopedInstances();
+
+  /**
+   * Returns {@code true} if generated components should implement {@code WarmableComponent}, so
+   * that {@code dagger.ComponentWarmer} can create their scoped bindings ahead of time.
+   */
+  public abstract boolean warmUpScopedBindings();
+
+  /**
+   * Returns {@code true} if generated components should report the provisions of {@code @Inject}
+   * and {@code @Provides} bindings to the {@code ProvisionMonitor} bound in the component, if any.
+   */
+  public abstract boolean monitorProvisions();
+
+  /**
+   * Returns {@code true} if each component shard should be created the first time one of its fields
+   * is requested, rather than when the component is created.
+   *
+   * <p>Lazy shards never need the component's constructor parameters, since shards only read
+   * component requirements through the component's fields.
+   */
+  public abstract boolean lazyComponentShards();
+
+  /**
+   * Returns {@code true} if the scoped bindings of the given root component should be held in
+   * static holder classes rather than in fields of each component instance.
+   *
+   * <p>The holders belong to the component class, so every instance of the component shares the
+   * same scoped instances. Only root components without component requirements may opt in.
+   */
+  public boolean staticSingletonHolders(XTypeElement component) {
+    return false;
+  }
+
   /** Returns the number of bindings allowed per shard. */
   public int keysPerComponentShard(XTypeElement component) {
     return 3500;
   }
 
+  /**
+   * Returns the estimated size in bytes of generated code to aim for in each component shard, if
+   * shards should be sized by their generated code rather than by {@link #keysPerComponentShard}.
+   */
+  public Optional<Integer> targetShardByteSize() {
+    return Optional.empty();
+  }
+
+  /** Returns the number of cases in each switch statement of a generated switching provider. */
+  public int switchingProviderCasesPerSwitch() {
+    return 100;
+  }
+
+  /**
+   * Returns the keys, formatted as by {@code Key#toString()}, of the bindings that should each get
+   * a provider class of their own rather than a case in a switching provider.
+   */
+  public ImmutableSet<String> hotSwitchingProviderKeys() {
+    return ImmutableSet.of();
+  }
+
+  /**
+   * Returns the directory in which validation results for types from previous compilations are
+   * persisted, keyed by a hash of the types' contents, so that later compilations can skip
+   * validating them again.
+   */
+  public Optional<Path> validationCacheDirectory() {
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the file to which a report of the time, allocation and output sizes of each processing
+   * phase is written, if any.
+   */
+  public Optional<Path> profileReport() {
+    return Optional.empty();
+  }
+
   /**
    * This option enables a fix to an issue where Dagger previously would erroneously allow
    * multibinding contributions in a component to have dependencies on child components. This will
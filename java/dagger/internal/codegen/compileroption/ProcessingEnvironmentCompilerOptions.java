@@ -23,6 +23,8 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Sets.immutableEnumSet;
 import static dagger.internal.codegen.compileroption.FeatureStatus.DISABLED;
 import static dagger.internal.codegen.compileroption.FeatureStatus.ENABLED;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.COLLAPSE_DELEGATE_FACTORIES;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.COMPACT_SCOPED_INSTANCES;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.EXPERIMENTAL_AHEAD_OF_TIME_SUBCOMPONENTS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.EXPERIMENTAL_ANDROID_MODE;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.EXPERIMENTAL_DAGGER_ERROR_MESSAGES;
@@ -32,10 +34,14 @@ import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompil
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.GENERATED_CLASS_EXTENDS_COMPONENT;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.INCLUDE_STACKTRACE_WITH_DEFERRED_ERROR_MESSAGES;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.LAZY_COMPONENT_SHARDS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.MONITOR_PROVISIONS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.NON_PINNING_SCOPED_PROVIDERS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PLUGINS_VISIT_FULL_BINDING_GRAPHS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_MULTIBINDING_VALIDATION;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_SUPERFICIAL_VALIDATION;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.WARM_UP_SCOPED_BINDINGS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.WARN_IF_INJECTION_FACTORY_NOT_GENERATED_UPSTREAM;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.WRITE_PRODUCER_NAME_IN_TOKEN;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.KeyOnlyOption.HEADER_COMPILATION;
@@ -51,6 +57,7 @@ import static dagger.internal.codegen.compileroption.ValidationType.ERROR;
 import static dagger.internal.codegen.compileroption.ValidationType.NONE;
 import static dagger.internal.codegen.compileroption.ValidationType.WARNING;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Stream.concat;
 
@@ -58,10 +65,15 @@ import androidx.room.compiler.processing.XMessager;
 import androidx.room.compiler.processing.XProcessingEnv;
 import androidx.room.compiler.processing.XTypeElement;
 import com.google.common.base.Ascii;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import dagger.internal.codegen.javapoet.TypeNames;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -76,6 +88,16 @@ import javax.tools.Diagnostic;
 public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions {
   // EnumOption<T> doesn't support integer inputs so just doing this as a 1-off for now.
   private static final String KEYS_PER_COMPONENT_SHARD = "dagger.keysPerComponentShard";
+  private static final String TARGET_SHARD_BYTE_SIZE = "dagger.targetShardByteSize";
+  private static final String SWITCHING_PROVIDER_CASES_PER_SWITCH =
+      "dagger.switchingProviderCasesPerSwitch";
+  private static final String SWITCHING_PROVIDER_HOT_KEYS = "dagger.switchingProviderHotKeys";
+  private static final String SWITCHING_PROVIDER_HOT_KEYS_PROFILE =
+      "dagger.switchingProviderHotKeysProfile";
+  private static final String VALIDATION_CACHE_DIRECTORY = "dagger.validationCacheDirectory";
+  private static final String PROFILE_REPORT = "dagger.profileReport";
+  private static final String STATIC_SINGLETON_HOLDER_COMPONENTS =
+      "dagger.staticSingletonHolderComponents";
 
   private final XProcessingEnv processingEnv;
   private final XMessager messager;
@@ -83,6 +105,8 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
   private final Map<EnumOption<?>, Object> enumOptions = new HashMap<>();
   private final Map<EnumOption<?>, ImmutableMap<String, ? extends Enum<?>>> allCommandLineOptions =
       new HashMap<>();
+  private ImmutableSet<String> hotSwitchingProviderKeys;
+  private ImmutableSet<String> staticSingletonHolderComponents;
 
   @Inject
   ProcessingEnvironmentCompilerOptions(
@@ -227,6 +251,51 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return isEnabled(GENERATED_CLASS_EXTENDS_COMPONENT);
   }
 
+  @Override
+  public boolean nonPinningScopedProviders() {
+    return isEnabled(NON_PINNING_SCOPED_PROVIDERS);
+  }
+
+  @Override
+  public boolean collapseDelegateFactories() {
+    return isEnabled(COLLAPSE_DELEGATE_FACTORIES);
+  }
+
+  @Override
+  public boolean compactScopedInstances() {
+    return isEnabled(COMPACT_SCOPED_INSTANCES);
+  }
+
+  @Override
+  public boolean warmUpScopedBindings() {
+    return isEnabled(WARM_UP_SCOPED_BINDINGS);
+  }
+
+  @Override
+  public boolean monitorProvisions() {
+    return isEnabled(MONITOR_PROVISIONS);
+  }
+
+  @Override
+  public boolean lazyComponentShards() {
+    return isEnabled(LAZY_COMPONENT_SHARDS);
+  }
+
+  @Override
+  public boolean staticSingletonHolders(XTypeElement component) {
+    if (staticSingletonHolderComponents == null) {
+      staticSingletonHolderComponents =
+          options.containsKey(STATIC_SINGLETON_HOLDER_COMPONENTS)
+              ? ImmutableSet.copyOf(
+                  Splitter.on(',')
+                      .trimResults()
+                      .omitEmptyStrings()
+                      .split(options.get(STATIC_SINGLETON_HOLDER_COMPONENTS)))
+              : ImmutableSet.of();
+    }
+    return staticSingletonHolderComponents.contains(component.getQualifiedName());
+  }
+
   @Override
   public int keysPerComponentShard(XTypeElement component) {
     if (options.containsKey(KEYS_PER_COMPONENT_SHARD)) {
@@ -238,6 +307,112 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return super.keysPerComponentShard(component);
   }
 
+  @Override
+  public Optional<Integer> targetShardByteSize() {
+    return parsePositiveInteger(TARGET_SHARD_BYTE_SIZE);
+  }
+
+  @Override
+  public int switchingProviderCasesPerSwitch() {
+    return parsePositiveInteger(SWITCHING_PROVIDER_CASES_PER_SWITCH)
+        .orElseGet(super::switchingProviderCasesPerSwitch);
+  }
+
+  @Override
+  public ImmutableSet<String> hotSwitchingProviderKeys() {
+    if (hotSwitchingProviderKeys == null) {
+      hotSwitchingProviderKeys =
+          ImmutableSet.<String>builder()
+              .addAll(parseHotSwitchingProviderKeys())
+              .addAll(readHotSwitchingProviderKeys())
+              .build();
+    }
+    return hotSwitchingProviderKeys;
+  }
+
+  @Override
+  public Optional<Path> validationCacheDirectory() {
+    return Optional.ofNullable(options.get(VALIDATION_CACHE_DIRECTORY)).map(Paths::get);
+  }
+
+  @Override
+  public Optional<Path> profileReport() {
+    return Optional.ofNullable(options.get(PROFILE_REPORT)).map(Paths::get);
+  }
+
+  /**
+   * Parses the hot keys listed in the option itself, separated by commas. Commas within a key, such
+   * as between the type arguments of {@code Map<K, V>} or in a qualifier, don't separate keys.
+   */
+  private ImmutableSet<String> parseHotSwitchingProviderKeys() {
+    if (!options.containsKey(SWITCHING_PROVIDER_HOT_KEYS)) {
+      return ImmutableSet.of();
+    }
+    String value = options.get(SWITCHING_PROVIDER_HOT_KEYS);
+    ImmutableSet.Builder<String> keys = ImmutableSet.builder();
+    int depth = 0;
+    int start = 0;
+    for (int i = 0; i <= value.length(); i++) {
+      char c = i < value.length() ? value.charAt(i) : ',';
+      if (c == '<' || c == '(') {
+        depth++;
+      } else if (c == '>' || c == ')') {
+        depth--;
+      } else if (c == ',' && depth <= 0) {
+        String key = value.substring(start, i).trim();
+        if (!key.isEmpty()) {
+          keys.add(key);
+        }
+        start = i + 1;
+      }
+    }
+    return keys.build();
+  }
+
+  /**
+   * Reads the profile of hot keys, which lists one key per line. Blank lines and lines starting
+   * with {@code #} are ignored.
+   */
+  private ImmutableSet<String> readHotSwitchingProviderKeys() {
+    if (!options.containsKey(SWITCHING_PROVIDER_HOT_KEYS_PROFILE)) {
+      return super.hotSwitchingProviderKeys();
+    }
+    String path = options.get(SWITCHING_PROVIDER_HOT_KEYS_PROFILE);
+    try {
+      return Files.readAllLines(Paths.get(path), UTF_8).stream()
+          .map(String::trim)
+          .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+          .collect(toImmutableSet());
+    } catch (IOException | RuntimeException e) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          String.format(
+              "Processor option -A%s could not be read from %s: %s",
+              SWITCHING_PROVIDER_HOT_KEYS_PROFILE, path, e));
+      return super.hotSwitchingProviderKeys();
+    }
+  }
+
+  private Optional<Integer> parsePositiveInteger(String key) {
+    if (!options.containsKey(key)) {
+      return Optional.empty();
+    }
+    String stringValue = options.get(key);
+    try {
+      int value = Integer.parseInt(stringValue);
+      if (value > 0) {
+        return Optional.of(value);
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    messager.printMessage(
+        Diagnostic.Kind.ERROR,
+        String.format(
+            "Processor option -A%s must be a positive integer, found: %s", key, stringValue));
+    return Optional.empty();
+  }
+
   private boolean isEnabled(KeyOnlyOption keyOnlyOption) {
     return options.containsKey(keyOnlyOption.toString());
   }
@@ -262,6 +437,9 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     noLongerRecognized(FLOATING_BINDS_METHODS);
     noLongerRecognized(EXPERIMENTAL_AHEAD_OF_TIME_SUBCOMPONENTS);
     noLongerRecognized(USE_GRADLE_INCREMENTAL_PROCESSING);
+    targetShardByteSize();
+    switchingProviderCasesPerSwitch();
+    hotSwitchingProviderKeys();
     return this;
   }
 
@@ -353,7 +531,19 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
 
     GENERATED_CLASS_EXTENDS_COMPONENT,
 
-    VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES(ENABLED)
+    VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES(ENABLED),
+
+    NON_PINNING_SCOPED_PROVIDERS,
+
+    COLLAPSE_DELEGATE_FACTORIES,
+
+    COMPACT_SCOPED_INSTANCES,
+
+    WARM_UP_SCOPED_BINDINGS,
+
+    MONITOR_PROVISIONS,
+
+    LAZY_COMPONENT_SHARDS,
     ;
 
     final FeatureStatus defaultValue;
@@ -456,6 +646,13 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
             .flatMap(CommandLineOption::allNames)
             .collect(toImmutableSet()))
         .add(KEYS_PER_COMPONENT_SHARD)
+        .add(TARGET_SHARD_BYTE_SIZE)
+        .add(SWITCHING_PROVIDER_CASES_PER_SWITCH)
+        .add(SWITCHING_PROVIDER_HOT_KEYS)
+        .add(SWITCHING_PROVIDER_HOT_KEYS_PROFILE)
+        .add(VALIDATION_CACHE_DIRECTORY)
+        .add(PROFILE_REPORT)
+        .add(STATIC_SINGLETON_HOLDER_COMPONENTS)
         .build();
   }
 
@@ -22,6 +22,7 @@ import androidx.room.compiler.processing.XProcessingEnv;
 import com.google.common.collect.ImmutableList;
 import com.squareup.javapoet.TypeSpec;
 import dagger.Component;
+import dagger.internal.codegen.base.ProcessingProfiler;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.writing.ComponentImplementation;
@@ -36,8 +37,9 @@ final class ComponentGenerator extends SourceFileGenerator<BindingGraph> {
   ComponentGenerator(
       XFiler filer,
       XProcessingEnv processingEnv,
-      TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory) {
-    super(filer, processingEnv);
+      TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory,
+      ProcessingProfiler profiler) {
+    super(filer, processingEnv, profiler);
     this.topLevelImplementationComponentFactory = topLevelImplementationComponentFactory;
   }
 
@@ -140,4 +140,34 @@ final class JavacPluginCompilerOptions extends CompilerOptions {
   public boolean generatedClassExtendsComponent() {
     return false;
   }
+
+  @Override
+  public boolean nonPinningScopedProviders() {
+    return false;
+  }
+
+  @Override
+  public boolean collapseDelegateFactories() {
+    return false;
+  }
+
+  @Override
+  public boolean compactScopedInstances() {
+    return false;
+  }
+
+  @Override
+  public boolean warmUpScopedBindings() {
+    return false;
+  }
+
+  @Override
+  public boolean monitorProvisions() {
+    return false;
+  }
+
+  @Override
+  public boolean lazyComponentShards() {
+    return false;
+  }
 }
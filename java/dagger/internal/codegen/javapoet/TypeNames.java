@@ -63,18 +63,28 @@ public final class TypeNames {
   public static final ClassName INSTANCE_FACTORY =
       ClassName.get("dagger.internal", "InstanceFactory");
   public static final ClassName MAP_FACTORY = ClassName.get("dagger.internal", "MapFactory");
+  public static final ClassName MAP_LAZY_FACTORY =
+      ClassName.get("dagger.internal", "MapLazyFactory");
   public static final ClassName MAP_PROVIDER_FACTORY =
       ClassName.get("dagger.internal", "MapProviderFactory");
   public static final ClassName MEMBERS_INJECTOR = ClassName.get("dagger", "MembersInjector");
   public static final ClassName MEMBERS_INJECTORS =
       ClassName.get("dagger.internal", "MembersInjectors");
   public static final ClassName PROVIDER = ClassName.get("javax.inject", "Provider");
+  public static final ClassName PROVISION_MONITORS =
+      ClassName.get("dagger.internal", "ProvisionMonitors");
   public static final ClassName PROVIDER_OF_LAZY =
       ClassName.get("dagger.internal", "ProviderOfLazy");
+  public static final ClassName REENTRANT_LOCK_DOUBLE_CHECK =
+      ClassName.get("dagger.internal", "ReentrantLockDoubleCheck");
   public static final ClassName SCOPE_METADATA = ClassName.get("dagger.internal", "ScopeMetadata");
   public static final ClassName QUALIFIER_METADATA =
       ClassName.get("dagger.internal", "QualifierMetadata");
+  public static final ClassName SCOPED_INSTANCE_STORE =
+      ClassName.get("dagger.internal", "ScopedInstanceStore");
   public static final ClassName SET_FACTORY = ClassName.get("dagger.internal", "SetFactory");
+  public static final ClassName WARMABLE_COMPONENT =
+      ClassName.get("dagger.internal", "WarmableComponent");
   public static final ClassName SINGLE_CHECK = ClassName.get("dagger.internal", "SingleCheck");
   public static final ClassName LAZY = ClassName.get("dagger", "Lazy");
 
@@ -126,6 +136,8 @@ public final class TypeNames {
       ClassName.get("dagger.producers.monitoring", "ProductionComponentMonitor");
   public static final ClassName PRODUCTION_COMPONENT_MONITOR_FACTORY =
       ClassName.get("dagger.producers.monitoring", "ProductionComponentMonitor", "Factory");
+  public static final ClassName PROVISION_MONITOR =
+      ClassName.get("dagger.monitoring", "ProvisionMonitor");
   public static final ClassName SET_OF_PRODUCED_PRODUCER =
       ClassName.get("dagger.producers.internal", "SetOfProducedProducer");
   public static final ClassName SET_PRODUCER =
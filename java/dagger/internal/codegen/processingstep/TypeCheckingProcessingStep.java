@@ -16,6 +16,7 @@
 
 package dagger.internal.codegen.processingstep;
 
+import static androidx.room.compiler.processing.XElementKt.isTypeElement;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.getStackTraceAsString;
 import static com.google.common.collect.Sets.difference;
@@ -32,12 +33,17 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Maps;
 import com.squareup.javapoet.ClassName;
+import dagger.internal.codegen.base.DaggerSuperficialValidation;
 import dagger.internal.codegen.base.DaggerSuperficialValidation.ValidationException;
+import dagger.internal.codegen.base.ProcessingProfiler;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.xprocessing.XElements;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import javax.inject.Inject;
 
@@ -48,9 +54,12 @@ import javax.inject.Inject;
 abstract class TypeCheckingProcessingStep<E extends XElement> implements XProcessingStep {
 
   private final List<String> lastDeferredErrorMessages = new ArrayList<>();
+  // The elements deferred in the previous round, by deferral key.
+  private Map<String, Deferral> deferrals = new HashMap<>();
   @Inject XMessager messager;
   @Inject CompilerOptions compilerOptions;
   @Inject SuperficialValidator superficialValidator;
+  @Inject ProcessingProfiler profiler;
 
   @Override
   public final ImmutableSet<String> annotations() {
@@ -65,39 +74,80 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
     // Thus, we can clear the values stored from the previous processing round since that clearly
     // wasn't the final round, and we replace it with any deferred error messages from this round.
     lastDeferredErrorMessages.clear();
+    Map<String, Deferral> previousDeferrals = deferrals;
+    deferrals = new HashMap<>();
+    ImmutableMap<XElement, ImmutableSet<ClassName>> annotationsByElement =
+        inverse(elementsByAnnotation);
+    ImmutableMap<XElement, String> deferralKeys = deferralKeys(annotationsByElement.keySet());
     ImmutableSet.Builder<XElement> deferredElements = ImmutableSet.builder();
-    inverse(elementsByAnnotation)
-        .forEach(
-            (element, annotations) -> {
-              try {
-                // The XBasicAnnotationProcessor only validates the element itself. However, we
-                // validate the enclosing type here to keep the previous behavior of
-                // BasicAnnotationProcessor, since Dagger still relies on this behavior.
-                // TODO(b/201479062): It's inefficient to require validation of the entire enclosing
-                //  type, we should try to remove this and handle any additional validation into the
-                //  steps that need it.
-                if (requiresPreValidation()) {
-                  superficialValidator.throwIfNearestEnclosingTypeNotValid(element);
-                }
-                process((E) element, annotations);
-              } catch (TypeNotPresentException e) {
-                // TODO(bcorso): We should be able to remove this once we replace all calls to
-                // SuperficialValidation with DaggerSuperficialValidation.
-                deferredElements.add(element);
-                cacheErrorMessage(typeNotPresentErrorMessage(element, e), e);
-              } catch (ValidationException.UnexpectedException unexpectedException) {
-                // Rethrow since the exception was created from an unexpected throwable so
-                // deferring to another round is unlikely to help.
-                throw unexpectedException;
-              } catch (ValidationException.KnownErrorType e) {
-                deferredElements.add(element);
-                cacheErrorMessage(knownErrorTypeErrorMessage(element, e), e);
-              } catch (ValidationException.UnknownErrorType e) {
-                deferredElements.add(element);
-                cacheErrorMessage(unknownErrorTypeErrorMessage(element, e), e);
-              }
-            });
-    return deferredElements.build();
+    long stillBlocked = 0;
+    long revalidated = 0;
+    for (Map.Entry<XElement, ImmutableSet<ClassName>> entry : annotationsByElement.entrySet()) {
+      XElement element = entry.getKey();
+      Optional<String> deferralKey = Optional.ofNullable(deferralKeys.get(element));
+      Optional<Deferral> previousDeferral = deferralKey.map(previousDeferrals::get);
+      if (previousDeferral.isPresent()) {
+        // Validating the element again can't succeed until the type that blocked it last time can
+        // be resolved, so keep the element deferred with its previous error message until then.
+        if (previousDeferral.get().isStillBlocked(env)) {
+          deferredElements.add(element);
+          deferrals.put(deferralKey.get(), previousDeferral.get());
+          lastDeferredErrorMessages.add(previousDeferral.get().errorMessage);
+          stillBlocked++;
+          continue;
+        }
+        revalidated++;
+      }
+      try {
+        // The XBasicAnnotationProcessor only validates the element itself. However, we
+        // validate the enclosing type here to keep the previous behavior of
+        // BasicAnnotationProcessor, since Dagger still relies on this behavior.
+        // TODO(b/201479062): It's inefficient to require validation of the entire enclosing
+        //  type, we should try to remove this and handle any additional validation into the
+        //  steps that need it.
+        String subject = profiler.isEnabled() ? XElements.toStableString(element) : "";
+        if (requiresPreValidation()) {
+          try (ProcessingProfiler.Measurement measurement =
+              profiler.start("superficialValidation", subject)) {
+            superficialValidator.throwIfNearestEnclosingTypeNotValid(element);
+          }
+        }
+        try (ProcessingProfiler.Measurement measurement =
+            profiler.start(getClass().getSimpleName(), subject)) {
+          process((E) element, entry.getValue());
+        }
+      } catch (TypeNotPresentException e) {
+        // TODO(bcorso): We should be able to remove this once we replace all calls to
+        // SuperficialValidation with DaggerSuperficialValidation.
+        deferredElements.add(element);
+        defer(deferralKey, Optional.of(e.typeName()), typeNotPresentErrorMessage(element, e), e);
+      } catch (ValidationException.UnexpectedException unexpectedException) {
+        // Rethrow since the exception was created from an unexpected throwable so
+        // deferring to another round is unlikely to help.
+        throw unexpectedException;
+      } catch (ValidationException.KnownErrorType e) {
+        deferredElements.add(element);
+        defer(
+            deferralKey,
+            Optional.of(e.getErrorTypeName()),
+            knownErrorTypeErrorMessage(element, e),
+            e);
+      } catch (ValidationException.UnknownErrorType e) {
+        deferredElements.add(element);
+        defer(deferralKey, Optional.empty(), unknownErrorTypeErrorMessage(element, e), e);
+      }
+    }
+    ImmutableSet<XElement> deferred = deferredElements.build();
+    if (!deferred.isEmpty() || revalidated > 0) {
+      profiler.count(
+          "deferral",
+          getClass().getSimpleName(),
+          ImmutableMap.of(
+              "deferred", (long) deferred.size(),
+              "stillBlocked", stillBlocked,
+              "revalidated", revalidated));
+    }
+    return deferred;
   }
 
   /**
@@ -116,13 +166,55 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
     // call to process(). Instead, we just report the last deferred error messages, if any.
     lastDeferredErrorMessages.forEach(errorMessage -> messager.printMessage(ERROR, errorMessage));
     lastDeferredErrorMessages.clear();
+    deferrals.clear();
   }
 
-  private void cacheErrorMessage(String errorMessage, Exception exception) {
-    lastDeferredErrorMessages.add(
+  private void defer(
+      Optional<String> deferralKey,
+      Optional<String> blockingTypeName,
+      String errorMessage,
+      Exception exception) {
+    String cachedErrorMessage =
         compilerOptions.includeStacktraceWithDeferredErrorMessages()
             ? String.format("%s\n\n%s", errorMessage, getStackTraceAsString(exception))
-            : errorMessage);
+            : errorMessage;
+    lastDeferredErrorMessages.add(cachedErrorMessage);
+    deferralKey.ifPresent(
+        key -> deferrals.put(key, new Deferral(blockingTypeName, cachedErrorMessage)));
+  }
+
+  /**
+   * Returns the keys that identify the given elements across rounds, since elements themselves
+   * aren't stable across rounds. Elements whose key isn't unique in this round have no key, so
+   * they're always validated again.
+   */
+  private static ImmutableMap<XElement, String> deferralKeys(ImmutableSet<XElement> elements) {
+    Map<String, XElement> elementsByKey = new HashMap<>();
+    Set<String> ambiguousKeys = new HashSet<>();
+    for (XElement element : elements) {
+      String key = deferralKey(element);
+      if (elementsByKey.putIfAbsent(key, element) != null) {
+        ambiguousKeys.add(key);
+      }
+    }
+    ImmutableMap.Builder<XElement, String> deferralKeys = ImmutableMap.builder();
+    elementsByKey.forEach(
+        (key, element) -> {
+          if (!ambiguousKeys.contains(key)) {
+            deferralKeys.put(element, key);
+          }
+        });
+    return deferralKeys.build();
+  }
+
+  private static String deferralKey(XElement element) {
+    StringBuilder key = new StringBuilder(XElements.toStableString(element));
+    XElement enclosing = element;
+    while (!isTypeElement(enclosing) && enclosing.getEnclosingElement() != null) {
+      enclosing = enclosing.getEnclosingElement();
+      key.insert(0, '#').insert(0, XElements.toStableString(enclosing));
+    }
+    return XElements.getKindName(element) + " " + key;
   }
 
   private String typeNotPresentErrorMessage(XElement element, TypeNotPresentException exception) {
@@ -201,4 +293,21 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
 
   /** Returns the set of annotations processed by this processing step. */
   protected abstract Set<ClassName> annotationClassNames();
+
+  /** Why an element was deferred in the previous round. */
+  private static final class Deferral {
+    private final Optional<String> blockingTypeName;
+    private final String errorMessage;
+
+    Deferral(Optional<String> blockingTypeName, String errorMessage) {
+      this.blockingTypeName = blockingTypeName;
+      this.errorMessage = errorMessage;
+    }
+
+    /** Returns {@code true} if the element is known to still fail validation in this round. */
+    boolean isStillBlocked(XProcessingEnv env) {
+      return blockingTypeName.isPresent()
+          && DaggerSuperficialValidation.isKnownUnresolvable(env, blockingTypeName.get());
+    }
+  }
 }
@@ -153,9 +153,33 @@ public final class ComponentDescriptorValidator {
       validateComponentDependencyHierarchy(component);
       validateModules(component);
       validateCreators(component);
+      validateStaticSingletonHolders(component);
       component.childComponents().forEach(this::visitComponent);
     }
 
+    /**
+     * Validates that a component listed in {@code -Adagger.staticSingletonHolderComponents} can
+     * share its scoped instances between all of its instances.
+     */
+    private void validateStaticSingletonHolders(ComponentDescriptor component) {
+      if (!compilerOptions.staticSingletonHolders(component.typeElement())) {
+        return;
+      }
+      if (component.isSubcomponent()) {
+        reportComponentError(
+            component, "Only root components can hold their scoped bindings statically.");
+      } else if (!component.requirements().isEmpty()) {
+        reportComponentError(
+            component,
+            String.format(
+                "Components that hold their scoped bindings statically cannot have component "
+                    + "requirements, found: %s",
+                component.requirements().stream()
+                    .map(requirement -> requirement.typeElement().getQualifiedName())
+                    .collect(joining(", "))));
+      }
+    }
+
     /** Validates that component dependencies do not form a cycle. */
     private void validateComponentDependencyHierarchy(ComponentDescriptor component) {
       validateComponentDependencyHierarchy(component, component.typeElement(), new ArrayDeque<>());
@@ -44,11 +44,9 @@ import androidx.room.compiler.processing.XTypeElement;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Table;
 import dagger.internal.codegen.base.ElementFormatter;
 import dagger.internal.codegen.base.Formatter;
 import dagger.internal.codegen.binding.DependencyRequestFormatter;
@@ -60,8 +58,12 @@ import dagger.spi.model.BindingGraph.MaybeBinding;
 import dagger.spi.model.BindingGraph.Node;
 import dagger.spi.model.ComponentPath;
 import dagger.spi.model.DaggerElement;
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.function.Function;
 import javax.inject.Inject;
@@ -95,9 +97,11 @@ public final class DiagnosticMessageGenerator {
   /** A cached function from type to all of its supertypes in breadth-first order. */
   private final Function<XTypeElement, Iterable<XTypeElement>> supertypes;
 
-  /** The shortest path (value) from an entry point (column) to a binding (row). */
-  private final Table<MaybeBinding, DependencyEdge, ImmutableList<Node>> shortestPaths =
-      HashBasedTable.create();
+  /**
+   * The shortest paths from the entry points in the components at each depth (key) to the bindings
+   * they depend on, built when first needed and released with this generator.
+   */
+  private final Map<Integer, EntryPointPaths> entryPointPathsByDepth = new HashMap<>();
 
   private static <K, V> Function<K, V> memoize(Function<K, V> uncached) {
     // If Android Guava is on the processor path, then c.g.c.b.Function (which LoadingCache
@@ -271,22 +275,21 @@ public final class DiagnosticMessageGenerator {
     if (entryPoints.isEmpty()) {
       return ImmutableList.of();
     }
-    // Show the full dependency trace for one entry point.
+    // Show the full dependency trace for one entry point, preferring entry points in components
+    // closest to the root.
+    int depth = entryPoints.stream().mapToInt(this::componentDepth).min().getAsInt();
+    EntryPointPaths entryPointPaths =
+        entryPointPathsByDepth.computeIfAbsent(depth, EntryPointPaths::new);
+    ImmutableList<Node> shortestBindingPath = entryPointPaths.shortestPathTo(binding);
     DependencyEdge entryPointForTrace =
-        min(
-            entryPoints,
-            // prefer entry points in components closest to the root
-            rootComponentFirst()
-                // then prefer entry points with a short dependency path to the error
-                .thenComparing(shortestDependencyPathFirst(binding))
-                // then prefer entry points declared in the component to those declared in a
-                // supertype
-                .thenComparing(nearestComponentSupertypeFirst())
-                // finally prefer entry points declared first in their enclosing type
-                .thenComparing(requestElementDeclarationOrder()));
-
-    ImmutableList<Node> shortestBindingPath =
-        shortestPathFromEntryPoint(entryPointForTrace, binding);
+        shortestBindingPath.isEmpty()
+            ? null
+            : entryPointPaths.entryPointForTarget(shortestBindingPath.get(0));
+    if (!entryPoints.contains(entryPointForTrace)) {
+      // The caller chose the entry points, and they don't include the one the search found.
+      entryPointForTrace = entryPointForTrace(binding, entryPoints);
+      shortestBindingPath = shortestPathFromEntryPoint(entryPointForTrace, binding);
+    }
     verify(
         !shortestBindingPath.isEmpty(),
         "no dependency path from %s to %s in %s",
@@ -317,34 +320,110 @@ public final class DiagnosticMessageGenerator {
         .collect(toImmutableSet());
   }
 
+  /**
+   * Returns the entry point to show the dependency trace for, searching from each of the {@code
+   * entryPoints} separately.
+   */
+  private DependencyEdge entryPointForTrace(
+      MaybeBinding binding, ImmutableSet<DependencyEdge> entryPoints) {
+    Map<DependencyEdge, Integer> pathLengths = new HashMap<>();
+    return min(
+        entryPoints,
+        // prefer entry points in components closest to the root
+        rootComponentFirst()
+            // then prefer entry points with a short dependency path to the error
+            .thenComparing(
+                comparing(
+                    entryPoint ->
+                        pathLengths.computeIfAbsent(
+                            entryPoint,
+                            ep -> shortestPathFromEntryPoint(ep, binding).size())))
+            // then prefer entry points declared in the component to those declared in a supertype
+            .thenComparing(nearestComponentSupertypeFirst())
+            // finally prefer entry points declared first in their enclosing type
+            .thenComparing(requestElementDeclarationOrder()));
+  }
+
   /**
    * Returns a comparator that sorts entry points in components whose paths from the root are
    * shorter first.
    */
   private Comparator<DependencyEdge> rootComponentFirst() {
-    return comparingInt(entryPoint -> source(entryPoint).componentPath().components().size());
+    return comparingInt(this::componentDepth);
   }
 
-  /**
-   * Returns a comparator that puts entry points whose shortest dependency path to {@code binding}
-   * is shortest first.
-   */
-  private Comparator<DependencyEdge> shortestDependencyPathFirst(MaybeBinding binding) {
-    return comparing(entryPoint -> shortestPathFromEntryPoint(entryPoint, binding).size());
+  private int componentDepth(DependencyEdge entryPoint) {
+    return source(entryPoint).componentPath().components().size();
   }
 
   private ImmutableList<Node> shortestPathFromEntryPoint(
       DependencyEdge entryPoint, MaybeBinding binding) {
-    return shortestPaths
-        .row(binding)
-        .computeIfAbsent(
-            entryPoint,
-            ep ->
-                shortestPath(
-                    node ->
-                        filter(graph.network().successors(node), MaybeBinding.class::isInstance),
-                    graph.network().incidentNodes(ep).target(),
-                    binding));
+    return shortestPath(
+        node -> filter(graph.network().successors(node), MaybeBinding.class::isInstance),
+        graph.network().incidentNodes(entryPoint).target(),
+        binding);
+  }
+
+  /**
+   * A breadth-first search from all of the entry points in the components at one depth, which
+   * finds the entry point that {@link #dependencyTrace} shows for each binding they depend on, and
+   * the shortest path from it.
+   *
+   * <p>The entry points start the search in the order that {@link #dependencyTrace} prefers entry
+   * points whose paths have the same length. Each node is then first reached from the preferred
+   * entry point among the closest ones to it, along the same path that a search from only that
+   * entry point would find.
+   */
+  private final class EntryPointPaths {
+    /** The entry point whose target is each node that the search started from. */
+    private final Map<Node, DependencyEdge> entryPointsByTarget = new HashMap<>();
+    /** The previous node on the shortest path to each reached node that isn't a target. */
+    private final Map<Node, Node> predecessors = new HashMap<>();
+
+    EntryPointPaths(int depth) {
+      Queue<Node> queue = new ArrayDeque<>();
+      graph.entryPointEdges().stream()
+          .filter(entryPoint -> componentDepth(entryPoint) == depth)
+          .sorted(nearestComponentSupertypeFirst().thenComparing(requestElementDeclarationOrder()))
+          .forEachOrdered(
+              entryPoint -> {
+                Node target = graph.network().incidentNodes(entryPoint).target();
+                if (entryPointsByTarget.putIfAbsent(target, entryPoint) == null) {
+                  queue.add(target);
+                }
+              });
+      while (!queue.isEmpty()) {
+        Node node = queue.remove();
+        for (Node successor : graph.network().successors(node)) {
+          if (successor instanceof MaybeBinding
+              && !entryPointsByTarget.containsKey(successor)
+              && !predecessors.containsKey(successor)) {
+            predecessors.put(successor, node);
+            queue.add(successor);
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the shortest path from the target of an entry point to {@code binding}, or an empty
+     * list if none of the entry points depend on it.
+     */
+    ImmutableList<Node> shortestPathTo(MaybeBinding binding) {
+      if (!entryPointsByTarget.containsKey(binding) && !predecessors.containsKey(binding)) {
+        return ImmutableList.of();
+      }
+      ImmutableList.Builder<Node> path = ImmutableList.builder();
+      for (Node node = binding; node != null; node = predecessors.get(node)) {
+        path.add(node);
+      }
+      return path.build().reverse();
+    }
+
+    /** Returns the entry point whose target is {@code target}. */
+    DependencyEdge entryPointForTarget(Node target) {
+      return entryPointsByTarget.get(target);
+    }
   }
 
   /**
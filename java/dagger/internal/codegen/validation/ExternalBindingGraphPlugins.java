@@ -25,6 +25,7 @@ import androidx.room.compiler.processing.XProcessingEnv;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import dagger.internal.codegen.base.ProcessingProfiler;
 import dagger.internal.codegen.compileroption.ProcessingOptions;
 import dagger.internal.codegen.validation.DiagnosticReporterFactory.DiagnosticReporterImpl;
 import dagger.spi.DiagnosticReporter;
@@ -44,6 +45,7 @@ public final class ExternalBindingGraphPlugins {
   private final XFiler filer;
   private final XProcessingEnv processingEnv;
   private final Map<String, String> processingOptions;
+  private final ProcessingProfiler profiler;
 
   @Inject
   ExternalBindingGraphPlugins(
@@ -52,13 +54,15 @@ public final class ExternalBindingGraphPlugins {
       DiagnosticReporterFactory diagnosticReporterFactory,
       XFiler filer,
       XProcessingEnv processingEnv,
-      @ProcessingOptions Map<String, String> processingOptions) {
+      @ProcessingOptions Map<String, String> processingOptions,
+      ProcessingProfiler profiler) {
     this.legacyPlugins = legacyPlugins;
     this.plugins = plugins;
     this.diagnosticReporterFactory = diagnosticReporterFactory;
     this.filer = filer;
     this.processingEnv = processingEnv;
     this.processingOptions = processingOptions;
+    this.profiler = profiler;
   }
 
   /** Returns {@link BindingGraphPlugin#supportedOptions()} from all the plugins. */
@@ -112,7 +116,10 @@ public final class ExternalBindingGraphPlugins {
       DiagnosticReporterImpl reporter =
           diagnosticReporterFactory.reporter(graph, legacyPlugin.pluginName());
       DiagnosticReporter legacyReporter = ExternalBindingGraphConverter.fromSpiModel(reporter);
-      legacyPlugin.visitGraph(legacyGraph, legacyReporter);
+      try (ProcessingProfiler.Measurement measurement =
+          profiler.startPlugin(legacyPlugin.pluginName(), graph)) {
+        legacyPlugin.visitGraph(legacyGraph, legacyReporter);
+      }
       if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
         isClean = false;
       }
@@ -125,7 +132,10 @@ public final class ExternalBindingGraphPlugins {
     for (BindingGraphPlugin plugin : plugins) {
       DiagnosticReporterImpl reporter =
           diagnosticReporterFactory.reporter(graph, plugin.pluginName());
-      plugin.visitGraph(graph, reporter);
+      try (ProcessingProfiler.Measurement measurement =
+          profiler.startPlugin(plugin.pluginName(), graph)) {
+        plugin.visitGraph(graph, reporter);
+      }
       if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
         isClean = false;
       }
@@ -17,20 +17,27 @@
 package dagger.internal.codegen.validation;
 
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static dagger.internal.codegen.base.RequestKinds.extractKeyType;
 import static dagger.internal.codegen.base.Util.reentrantComputeIfAbsent;
 import static dagger.internal.codegen.binding.AssistedInjectionAnnotations.assistedInjectedConstructors;
+import static dagger.internal.codegen.binding.AssistedInjectionAnnotations.isAssistedFactoryType;
+import static dagger.internal.codegen.binding.AssistedInjectionAnnotations.isAssistedInjectionType;
 import static dagger.internal.codegen.binding.InjectionAnnotations.injectedConstructors;
 import static dagger.internal.codegen.binding.SourceFiles.factoryNameForElement;
 import static dagger.internal.codegen.binding.SourceFiles.membersInjectorNameForType;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 import static dagger.internal.codegen.xprocessing.XElements.closestEnclosingTypeElement;
 import static dagger.internal.codegen.xprocessing.XElements.getAnyAnnotation;
+import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
 import static dagger.internal.codegen.xprocessing.XMethodElements.hasTypeParameters;
+import static dagger.internal.codegen.xprocessing.XTypes.isDeclared;
 import static dagger.internal.codegen.xprocessing.XTypes.isSubtype;
+import static dagger.internal.codegen.xprocessing.XTypes.isTypeOf;
 
 import androidx.room.compiler.processing.XAnnotation;
 import androidx.room.compiler.processing.XConstructorElement;
 import androidx.room.compiler.processing.XElement;
+import androidx.room.compiler.processing.XExecutableElement;
 import androidx.room.compiler.processing.XExecutableParameterElement;
 import androidx.room.compiler.processing.XFieldElement;
 import androidx.room.compiler.processing.XMethodElement;
@@ -49,6 +56,7 @@ import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.langmodel.Accessibility;
 import dagger.internal.codegen.xprocessing.XAnnotations;
+import dagger.internal.codegen.xprocessing.XTypes;
 import dagger.spi.model.Scope;
 import java.util.HashMap;
 import java.util.Map;
@@ -73,6 +81,7 @@ public final class InjectValidator implements ClearableCache {
   private final Map<XTypeElement, ValidationReport> provisionReports = new HashMap<>();
   private final Map<XTypeElement, ValidationReport> membersInjectionReports = new HashMap<>();
   private final MethodSignatureFormatter methodSignatureFormatter;
+  private final PersistentValidationCache persistentValidationCache;
 
   @Inject
   InjectValidator(
@@ -81,7 +90,8 @@ public final class InjectValidator implements ClearableCache {
       CompilerOptions compilerOptions,
       InjectionAnnotations injectionAnnotations,
       DaggerSuperficialValidation superficialValidation,
-      MethodSignatureFormatter methodSignatureFormatter) {
+      MethodSignatureFormatter methodSignatureFormatter,
+      PersistentValidationCache persistentValidationCache) {
     this(
         processingEnv,
         compilerOptions,
@@ -89,7 +99,8 @@ public final class InjectValidator implements ClearableCache {
         Optional.empty(),
         injectionAnnotations,
         superficialValidation,
-        methodSignatureFormatter);
+        methodSignatureFormatter,
+        persistentValidationCache);
   }
 
   private InjectValidator(
@@ -99,7 +110,8 @@ public final class InjectValidator implements ClearableCache {
       Optional<Kind> privateAndStaticInjectionDiagnosticKind,
       InjectionAnnotations injectionAnnotations,
       DaggerSuperficialValidation superficialValidation,
-      MethodSignatureFormatter methodSignatureFormatter) {
+      MethodSignatureFormatter methodSignatureFormatter,
+      PersistentValidationCache persistentValidationCache) {
     this.processingEnv = processingEnv;
     this.compilerOptions = compilerOptions;
     this.dependencyRequestValidator = dependencyRequestValidator;
@@ -107,6 +119,7 @@ public final class InjectValidator implements ClearableCache {
     this.injectionAnnotations = injectionAnnotations;
     this.superficialValidation = superficialValidation;
     this.methodSignatureFormatter = methodSignatureFormatter;
+    this.persistentValidationCache = persistentValidationCache;
   }
 
   @Override
@@ -130,11 +143,151 @@ public final class InjectValidator implements ClearableCache {
             Optional.of(Diagnostic.Kind.ERROR),
             injectionAnnotations,
             superficialValidation,
-            methodSignatureFormatter);
+            methodSignatureFormatter,
+            persistentValidationCache);
   }
 
   public ValidationReport validate(XTypeElement typeElement) {
-    return reentrantComputeIfAbsent(provisionReports, typeElement, this::validateUncached);
+    return reentrantComputeIfAbsent(
+        provisionReports,
+        typeElement,
+        type ->
+            persistentValidationCache.validate(
+                "inject", type, persistentCacheContents(type), this::validateUncached));
+  }
+
+  /**
+   * Returns a description of everything {@link #validateUncached} checks for a type that was
+   * processed by a previous compilation, or empty if the type's report shouldn't be persisted.
+   *
+   * <p>Types processed by this compilation, and types that request a {@code MembersInjector} whose
+   * validation depends on the injected type's members, are always validated.
+   */
+  private Optional<String> persistentCacheContents(XTypeElement typeElement) {
+    if (!compilerOptions.validationCacheDirectory().isPresent()) {
+      return Optional.empty();
+    }
+    ImmutableSet<XConstructorElement> injectConstructors =
+        ImmutableSet.<XConstructorElement>builder()
+            .addAll(injectedConstructors(typeElement))
+            .addAll(assistedInjectedConstructors(typeElement))
+            .build();
+    boolean processedInPreviousCompilation =
+        injectConstructors.isEmpty()
+            ? processedInPreviousRoundOrCompilationUnit(typeElement)
+            : injectConstructors.stream().allMatch(this::processedInPreviousRoundOrCompilationUnit);
+    if (!processedInPreviousCompilation) {
+      return Optional.empty();
+    }
+
+    StringBuilder contents =
+        new StringBuilder()
+            .append(privateMemberDiagnosticKind())
+            .append(' ')
+            .append(staticMemberDiagnosticKind());
+    for (XConstructorElement constructor : injectConstructors) {
+      if (!describeExecutable(constructor, contents)) {
+        return Optional.empty();
+      }
+    }
+    XTypeElement type = typeElement;
+    while (true) {
+      contents
+          .append('\n')
+          .append(type.getQualifiedName())
+          .append(type.isAbstract() ? " abstract" : "")
+          .append(type.isNested() && !type.isStatic() ? " inner" : "")
+          .append(type.isKotlinObject() || type.isCompanionObject() ? " object" : "")
+          .append(Accessibility.isElementAccessibleFromOwnPackage(type) ? "" : " private")
+          .append(" scopes=")
+          .append(injectionAnnotations.getScopes(type).size());
+      for (XFieldElement field : type.getDeclaredFields()) {
+        if (InjectionAnnotations.hasInjectAnnotation(field)) {
+          contents.append('\n');
+          describeModifiers(field.isFinal(), field.isPrivate(), field.isStatic(), contents);
+          contents.append(getSimpleName(field));
+          if (!describeDependencyRequest(field, field.getType(), contents)) {
+            return Optional.empty();
+          }
+        }
+      }
+      for (XMethodElement method : type.getDeclaredMethods()) {
+        if (InjectionAnnotations.hasInjectAnnotation(method)
+            && !describeExecutable(method, contents)) {
+          return Optional.empty();
+        }
+      }
+      XType supertype = type.getSuperType();
+      if (supertype == null || supertype.getTypeName().equals(TypeName.OBJECT)) {
+        return Optional.of(contents.toString());
+      }
+      describeType(supertype, contents);
+      type = supertype.getTypeElement();
+    }
+  }
+
+  private boolean describeExecutable(XExecutableElement executable, StringBuilder contents) {
+    contents.append('\n');
+    for (XAnnotation annotation : executable.getAllAnnotations()) {
+      contents.append('@').append(XAnnotations.getClassName(annotation)).append(' ');
+    }
+    describeModifiers(
+        executable.isAbstract(), executable.isPrivate(), executable.isStatic(), contents);
+    contents
+        .append(getSimpleName(executable))
+        .append('<')
+        .append(executable.getTypeParameters().size())
+        .append(">(");
+    for (XExecutableParameterElement parameter : executable.getParameters()) {
+      if (!describeDependencyRequest(parameter, parameter.getType(), contents)) {
+        return false;
+      }
+    }
+    contents.append(") throws");
+    executable.getThrownTypes().forEach(thrownType -> describeType(thrownType, contents));
+    return true;
+  }
+
+  private static void describeModifiers(
+      boolean finalOrAbstract, boolean isPrivate, boolean isStatic, StringBuilder contents) {
+    contents
+        .append(finalOrAbstract ? "final/abstract " : "")
+        .append(isPrivate ? "private " : "")
+        .append(isStatic ? "static " : "");
+  }
+
+  /**
+   * Describes what {@link DependencyRequestValidator} checks for a request, or returns {@code
+   * false} if the request's validation depends on more than its declaration.
+   */
+  private boolean describeDependencyRequest(
+      XElement requestElement, XType requestType, StringBuilder contents) {
+    contents.append(' ');
+    describeType(requestType, contents);
+    if (requestElement.hasAnnotation(TypeNames.ASSISTED)) {
+      contents.append(" assisted");
+      return true;
+    }
+    contents
+        .append(" qualifiers=")
+        .append(injectionAnnotations.getQualifiers(requestElement).size());
+    XType keyType = extractKeyType(requestType);
+    if (isTypeOf(keyType, TypeNames.MEMBERS_INJECTOR)) {
+      return false;
+    }
+    if (isDeclared(keyType)) {
+      XTypeElement keyTypeElement = keyType.getTypeElement();
+      contents
+          .append(isAssistedInjectionType(keyTypeElement) ? " assistedInjection" : "")
+          .append(isAssistedFactoryType(keyTypeElement) ? " assistedFactory" : "");
+    }
+    return true;
+  }
+
+  /** Describes a type, marking any of its parts that are unresolved. */
+  private static void describeType(XType type, StringBuilder contents) {
+    contents.append(' ').append(XTypes.toStableString(type)).append(type.isError() ? "!" : "");
+    type.getTypeArguments().forEach(typeArgument -> describeType(typeArgument, contents));
   }
 
   private ValidationReport validateUncached(XTypeElement typeElement) {
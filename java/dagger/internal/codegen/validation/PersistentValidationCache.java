@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.validation;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.XTypeElement;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.BaseEncoding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A cache of clean validation results that persists across compilations, enabled by {@code
+ * -Adagger.validationCacheDirectory=<path>}.
+ *
+ * <p>Entries are keyed by a hash of a description of the validated type's contents, supplied by the
+ * validator, so an entry is found again only while everything the validation depends on is
+ * unchanged. The key also includes a hash of the processor's jar, so entries stored by another
+ * build of Dagger, whose validators may check more, are never found. If the processor isn't loaded
+ * from a jar, the cache is disabled.
+ *
+ * <p>Only results without any diagnostics are stored, since a cached result can't report them
+ * again; types with errors or warnings are always validated. Unlike the round caches, this cache
+ * stores no elements, so it is never cleared.
+ */
+@Singleton
+public final class PersistentValidationCache {
+  private final Optional<Path> directory;
+  private final String processorFingerprint;
+
+  @Inject
+  PersistentValidationCache(CompilerOptions compilerOptions) {
+    this(
+        compilerOptions.validationCacheDirectory(),
+        compilerOptions.validationCacheDirectory().isPresent()
+            ? ProcessorJar.FINGERPRINT
+            : Optional.empty());
+  }
+
+  /**
+   * Creates a cache in {@code directory}, or a disabled cache if either {@code directory} or {@code
+   * processorFingerprint}, which identifies the build of the processor, is empty.
+   */
+  @VisibleForTesting
+  PersistentValidationCache(Optional<Path> directory, Optional<String> processorFingerprint) {
+    this.directory = processorFingerprint.isPresent() ? directory : Optional.empty();
+    this.processorFingerprint = processorFingerprint.orElse("");
+  }
+
+  /**
+   * Returns the report from {@code validator} for {@code type}, or a clean report without running
+   * the validator if a clean result for the same {@code contents} was stored by a previous
+   * validation.
+   *
+   * @param validatorName distinguishes the validators that share the cache
+   * @param contents describes everything the result of {@code validator} depends on, or is empty
+   *     if the result can't be cached
+   */
+  ValidationReport validate(
+      String validatorName,
+      XTypeElement type,
+      Optional<String> contents,
+      Function<XTypeElement, ValidationReport> validator) {
+    if (!directory.isPresent() || !contents.isPresent()) {
+      return validator.apply(type);
+    }
+    Path entry = entryPath(validatorName, contents.get());
+    if (Files.exists(entry)) {
+      return ValidationReport.about(type).build();
+    }
+    ValidationReport report = validator.apply(type);
+    if (report.isClean() && report.allItems().isEmpty()) {
+      store(entry);
+    }
+    return report;
+  }
+
+  private Path entryPath(String validatorName, String contents) {
+    String hash;
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(processorFingerprint.getBytes(UTF_8));
+      digest.update(contents.getBytes(UTF_8));
+      hash = BaseEncoding.base16().lowerCase().encode(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new AssertionError(e);
+    }
+    // Spread the entries over subdirectories to keep each directory small.
+    return directory.get().resolve(validatorName).resolve(hash.substring(0, 2)).resolve(hash);
+  }
+
+  private static void store(Path entry) {
+    try {
+      Files.createDirectories(entry.getParent());
+      Files.createFile(entry);
+    } catch (FileAlreadyExistsException e) {
+      // Another compilation stored the same result concurrently.
+    } catch (IOException e) {
+      // The cache is only an optimization, so a read-only or full directory just disables it.
+    }
+  }
+
+  /** The fingerprint of the processor's jar, computed once per class loader. */
+  private static final class ProcessorJar {
+    static final Optional<String> FINGERPRINT = fingerprint();
+
+    /** Returns a hash of the jar this class was loaded from, or empty if it can't be read. */
+    private static Optional<String> fingerprint() {
+      try {
+        CodeSource codeSource = ProcessorJar.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null) {
+          return Optional.empty();
+        }
+        Path jar = Paths.get(codeSource.getLocation().toURI());
+        if (!Files.isRegularFile(jar)) {
+          return Optional.empty();
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = Files.newInputStream(jar)) {
+          byte[] buffer = new byte[1 << 16];
+          for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            digest.update(buffer, 0, read);
+          }
+        }
+        return Optional.of(BaseEncoding.base16().lowerCase().encode(digest.digest()));
+      } catch (IOException
+          | NoSuchAlgorithmException
+          | URISyntaxException
+          | RuntimeException e) {
+        // Without a fingerprint, entries from other builds could hide diagnostics.
+        return Optional.empty();
+      }
+    }
+  }
+}
@@ -23,6 +23,7 @@ import androidx.room.compiler.processing.XProcessingEnv;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import dagger.internal.codegen.base.ProcessingProfiler;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.compileroption.ProcessingOptions;
 import dagger.internal.codegen.compileroption.ValidationType;
@@ -41,6 +42,7 @@ public final class ValidationBindingGraphPlugins {
   private final XProcessingEnv processingEnv;
   private final CompilerOptions compilerOptions;
   private final Map<String, String> processingOptions;
+  private final ProcessingProfiler profiler;
 
   @Inject
   ValidationBindingGraphPlugins(
@@ -48,12 +50,14 @@ public final class ValidationBindingGraphPlugins {
       DiagnosticReporterFactory diagnosticReporterFactory,
       XProcessingEnv processingEnv,
       CompilerOptions compilerOptions,
-      @ProcessingOptions Map<String, String> processingOptions) {
+      @ProcessingOptions Map<String, String> processingOptions,
+      ProcessingProfiler profiler) {
     this.plugins = plugins;
     this.diagnosticReporterFactory = diagnosticReporterFactory;
     this.processingEnv = processingEnv;
     this.compilerOptions = compilerOptions;
     this.processingOptions = processingOptions;
+    this.profiler = profiler;
   }
 
   /** Returns {@link BindingGraphPlugin#supportedOptions()} from all the plugins. */
@@ -90,7 +94,10 @@ public final class ValidationBindingGraphPlugins {
           errorsAsWarnings
               ? diagnosticReporterFactory.reporterWithErrorAsWarnings(graph, plugin.pluginName())
               : diagnosticReporterFactory.reporter(graph, plugin.pluginName());
-      plugin.visitGraph(graph, reporter);
+      try (ProcessingProfiler.Measurement measurement =
+          profiler.startPlugin(plugin.pluginName(), graph)) {
+        plugin.visitGraph(graph, reporter);
+      }
       if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
         isClean = false;
       }
@@ -17,17 +17,24 @@
 package dagger.internal.codegen.writing;
 
 import static dagger.internal.codegen.javapoet.TypeNames.DOUBLE_CHECK;
+import static dagger.internal.codegen.javapoet.TypeNames.REENTRANT_LOCK_DOUBLE_CHECK;
 import static dagger.internal.codegen.javapoet.TypeNames.SINGLE_CHECK;
 
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import dagger.internal.codegen.binding.Binding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 import javax.inject.Inject;
 
 /** Holds common methods for BindingRepresentations. */
 final class BindingRepresentations {
+  private final CompilerOptions compilerOptions;
 
-  @Inject BindingRepresentations() {}
+  @Inject
+  BindingRepresentations(CompilerOptions compilerOptions) {
+    this.compilerOptions = compilerOptions;
+  }
 
   FrameworkInstanceCreationExpression scope(
       Binding binding, FrameworkInstanceCreationExpression unscoped) {
@@ -36,7 +43,14 @@ final class BindingRepresentations {
             "$T.provider($L)",
             binding.scope().get().isReusable()
                 ? SINGLE_CHECK
-                : DOUBLE_CHECK,
+                : scopedProviderClass(compilerOptions),
             unscoped.creationExpression());
   }
+
+  /** Returns the class used to memoize the provider of a non-{@code @Reusable} scoped binding. */
+  static ClassName scopedProviderClass(CompilerOptions compilerOptions) {
+    return compilerOptions.nonPinningScopedProviders()
+        ? REENTRANT_LOCK_DOUBLE_CHECK
+        : DOUBLE_CHECK;
+  }
 }
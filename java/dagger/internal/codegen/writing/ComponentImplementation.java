@@ -40,6 +40,7 @@ import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.VOLATILE;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
 import androidx.room.compiler.processing.XMessager;
@@ -58,6 +59,8 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Sets;
+import com.google.common.graph.ImmutableNetwork;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -85,7 +88,9 @@ import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.javapoet.TypeSpecs;
 import dagger.internal.codegen.langmodel.Accessibility;
 import dagger.internal.codegen.xprocessing.XTypeElements;
+import dagger.spi.model.BindingGraph.Edge;
 import dagger.spi.model.BindingGraph.Node;
+import dagger.spi.model.BindingType;
 import dagger.spi.model.Key;
 import dagger.spi.model.RequestKind;
 import java.util.ArrayList;
@@ -135,7 +140,10 @@ public final class ComponentImplementation {
     FRAMEWORK_FIELD,
 
     /** A static field that always returns an absent {@code Optional} value for the binding. */
-    ABSENT_OPTIONAL_FIELD
+    ABSENT_OPTIONAL_FIELD,
+
+    /** A static field for the only instance of a component that uses static singleton holders. */
+    STATIC_COMPONENT_INSTANCE_FIELD
   }
 
   /** A type of method that this component can contain. */
@@ -167,7 +175,10 @@ public final class ComponentImplementation {
      * The {@link dagger.producers.internal.CancellationListener#onProducerFutureCancelled(boolean)}
      * method for a production component.
      */
-    CANCELLATION_LISTENER_METHOD
+    CANCELLATION_LISTENER_METHOD,
+
+    /** A method of {@link dagger.internal.WarmableComponent} or one of its partitions. */
+    WARM_UP_METHOD
   }
 
   /** A type of nested class that this component can contain. */
@@ -185,7 +196,10 @@ public final class ComponentImplementation {
     COMPONENT_IMPL,
 
     /** A class for a component shard. */
-    COMPONENT_SHARD_TYPE
+    COMPONENT_SHARD_TYPE,
+
+    /** A holder class for the static instance of a scoped binding. */
+    STATIC_SINGLETON_HOLDER
   }
 
   /**
@@ -211,6 +225,9 @@ public final class ComponentImplementation {
 
   private static ImmutableList<ImmutableList<Binding>> bindingPartitions(
       BindingGraph graph, CompilerOptions compilerOptions) {
+    if (compilerOptions.targetShardByteSize().isPresent()) {
+      return ShardPartitioner.partition(graph, compilerOptions.targetShardByteSize().get());
+    }
     int bindingsPerShard = compilerOptions.keysPerComponentShard(graph.componentTypeElement());
     int maxPartitions = (graph.localBindingNodes().size() / bindingsPerShard) + 1;
     if (maxPartitions <= 1) {
@@ -239,6 +256,64 @@ public final class ComponentImplementation {
     return partitions.build();
   }
 
+  /**
+   * Returns the scoped bindings owned by this component, grouped into the levels in which {@link
+   * dagger.ComponentWarmer} creates them.
+   *
+   * <p>As for sharding, the strongly connected nodes are iterated in reverse topological order. A
+   * binding is put in the level after the last level of any scoped binding it (transitively)
+   * depends on, so bindings in a level can be created concurrently once the previous levels are
+   * done. Scoped bindings that belong to the same cycle are put in consecutive levels.
+   */
+  private static ImmutableList<ImmutableList<Binding>> warmUpLevels(BindingGraph graph) {
+    ImmutableNetwork<Node, Edge> network = graph.topLevelBindingGraph().network();
+    ImmutableList<ImmutableSet<Node>> stronglyConnectedNodes =
+        graph.topLevelBindingGraph().stronglyConnectedNodes().asList();
+    Map<Node, Integer> sccIndices = new HashMap<>();
+    for (int i = 0; i < stronglyConnectedNodes.size(); i++) {
+      for (Node node : stronglyConnectedNodes.get(i)) {
+        sccIndices.put(node, i);
+      }
+    }
+
+    // The number of levels needed before everything reachable from the i-th SCC has been created.
+    int[] levelsNeeded = new int[stronglyConnectedNodes.size()];
+    List<List<Binding>> levels = new ArrayList<>();
+    for (int i = 0; i < stronglyConnectedNodes.size(); i++) {
+      int level = 0;
+      for (Node node : stronglyConnectedNodes.get(i)) {
+        for (Node successor : network.successors(node)) {
+          int successorIndex = sccIndices.get(successor);
+          if (successorIndex != i) {
+            level = Math.max(level, levelsNeeded[successorIndex]);
+          }
+        }
+      }
+      for (Node node : stronglyConnectedNodes.get(i)) {
+        if (isWarmedUp(node, graph)) {
+          while (levels.size() <= level) {
+            levels.add(new ArrayList<>());
+          }
+          levels.get(level).add(((BindingNode) node).delegate());
+          level++;
+        }
+      }
+      levelsNeeded[i] = level;
+    }
+    return levels.stream().map(ImmutableList::copyOf).collect(toImmutableList());
+  }
+
+  private static boolean isWarmedUp(Node node, BindingGraph graph) {
+    if (!(node instanceof BindingNode)
+        || !((BindingNode) node).componentPath().equals(graph.componentPath())) {
+      return false;
+    }
+    Binding binding = ((BindingNode) node).delegate();
+    return binding.bindingType().equals(BindingType.PROVISION)
+        && binding.scope().isPresent()
+        && !binding.scope().get().isReusable();
+  }
+
   /** The boolean parameter of the onProducerFutureCancelled method. */
   public static final ParameterSpec MAY_INTERRUPT_IF_RUNNING_PARAM =
       ParameterSpec.builder(boolean.class, "mayInterruptIfRunning").build();
@@ -254,8 +329,11 @@ public final class ComponentImplementation {
   private final ShardImplementation componentShard;
   private final Supplier<ImmutableMap<Binding, ShardImplementation>> shardsByBinding;
   private final Map<ShardImplementation, FieldSpec> shardFieldsByImplementation = new HashMap<>();
+  private final Map<ShardImplementation, String> shardAccessorNamesByImplementation =
+      new HashMap<>();
   private final List<CodeBlock> shardInitializations = new ArrayList<>();
   private final List<CodeBlock> shardCancellations = new ArrayList<>();
+  private Optional<FieldSpec> staticInstanceField = Optional.empty();
   private final Optional<ComponentImplementation> parent;
   private final ChildComponentImplementationFactory childComponentImplementationFactory;
   private final Provider<GeneratedImplementation> topLevelImplementationProvider;
@@ -339,6 +417,42 @@ public final class ComponentImplementation {
     return parent.map(ComponentImplementation::rootComponentImplementation).orElse(this);
   }
 
+  /**
+   * Returns {@code true} if the scoped bindings of this component may be held in static singleton
+   * holder classes.
+   *
+   * <p>This is only possible for a root component without component requirements that is listed in
+   * {@code -Adagger.staticSingletonHolderComponents}. The holders belong to the component class, so
+   * all instances of the component share their scoped instances.
+   */
+  boolean usesStaticSingletonHolders() {
+    return !parent.isPresent()
+        && compilerOptions.staticSingletonHolders(graph.componentTypeElement())
+        && graph.componentRequirements().isEmpty()
+        && !compilerMode.isExperimentalMergedMode();
+  }
+
+  /**
+   * Returns a reference to the first instance of this component, which static singleton holder
+   * classes create their instances from.
+   */
+  CodeBlock staticInstanceReference() {
+    checkState(usesStaticSingletonHolders(), "%s doesn't use static singleton holders", name());
+    if (!staticInstanceField.isPresent()) {
+      FieldSpec field =
+          FieldSpec.builder(
+                  componentShard.name(),
+                  componentShard.getUniqueFieldName("staticInstance"),
+                  PRIVATE,
+                  STATIC,
+                  VOLATILE)
+              .build();
+      componentShard.addField(FieldSpecKind.STATIC_COMPONENT_INSTANCE_FIELD, field);
+      staticInstanceField = Optional.of(field);
+    }
+    return CodeBlock.of("$T.$N", componentShard.name(), staticInstanceField.get());
+  }
+
   /** Returns a reference to this implementation when called from a different class. */
   public CodeBlock componentFieldReference() {
     // TODO(bcorso): This currently relies on all requesting classes having a reference to the
@@ -424,6 +538,11 @@ public final class ComponentImplementation {
     return compilerMode;
   }
 
+  /** Returns the compiler options this component is generated with. */
+  CompilerOptions compilerOptions() {
+    return compilerOptions;
+  }
+
   /** Returns whether or not the implementation is nested within another class. */
   private boolean isNested() {
     return name().enclosingClassName() != null;
@@ -480,9 +599,10 @@ public final class ComponentImplementation {
 
     private ShardImplementation(ClassName name) {
       this.name = name;
-      this.switchingProviders = new SwitchingProviders(this);
+      this.switchingProviders = new SwitchingProviders(this, compilerOptions);
       this.experimentalSwitchingProviders =
-          new ExperimentalSwitchingProviders(this, componentRequestRepresentationsProvider);
+          new ExperimentalSwitchingProviders(
+              this, componentRequestRepresentationsProvider, compilerOptions);
 
       if (graph.componentDescriptor().isProduction()) {
         claimMethodName(CANCELLATION_LISTENER_METHOD_NAME);
@@ -546,18 +666,46 @@ public final class ComponentImplementation {
         // Add the shard if this is the first time it's requested by something.
         String shardFieldName =
             componentShard.getUniqueFieldName(UPPER_CAMEL.to(LOWER_CAMEL, name.simpleName()));
-        FieldSpec shardField = FieldSpec.builder(name, shardFieldName, PRIVATE).build();
+        FieldSpec.Builder shardField = FieldSpec.builder(name, shardFieldName, PRIVATE);
+        if (isLazyShard()) {
+          shardField.addModifiers(VOLATILE);
+          shardAccessorNamesByImplementation.put(
+              this, componentShard.getUniqueMethodName(shardFieldName));
+        }
 
-        shardFieldsByImplementation.put(this, shardField);
+        shardFieldsByImplementation.put(this, shardField.build());
       }
       // TODO(bcorso): This currently relies on all requesting classes having a reference to the
       // component with the same name, which is kind of sketchy. Try to think of a better way that
       // can accomodate the component missing in some classes if it's not used.
-      return isComponentShard()
-          ? componentFieldReference()
+      if (isComponentShard()) {
+        return componentFieldReference();
+      }
+      return isLazyShard()
+          ? CodeBlock.of(
+              "$L.$N()", componentFieldReference(), shardAccessorNamesByImplementation.get(this))
           : CodeBlock.of("$L.$N", componentFieldReference(), shardFieldsByImplementation.get(this));
     }
 
+    /**
+     * Returns {@code true} if this shard is created the first time it's referenced rather than when
+     * the component is created.
+     *
+     * <p>This relies on shards being partitioned from the strongly connected components in reverse
+     * topological order: creating a shard can only create the shards before it, never itself.
+     * Production components always create their shards eagerly, since their cancellation listener
+     * calls into each shard.
+     *
+     * <p>A lazy shard never takes constructor parameters other than the component fields: it's
+     * created after the component's constructor has returned, and shards only read component
+     * requirements through the component's fields, never through the constructor parameters.
+     */
+    private boolean isLazyShard() {
+      return !isComponentShard()
+          && compilerOptions.lazyComponentShards()
+          && !graph.componentDescriptor().isProduction();
+    }
+
     // TODO(ronshapiro): see if we can remove this method and instead inject it in the objects that
     // need it.
     /** Returns the binding graph for the component being generated. */
@@ -722,6 +870,12 @@ public final class ComponentImplementation {
         addCreator();
         addFactoryMethods();
         addInterfaceMethods();
+        if (compilerOptions.warmUpScopedBindings()) {
+          // This must happen before the shards and initializations are generated, since the
+          // warm-up requests may add fields to them.
+          builder.addSuperinterface(TypeNames.WARMABLE_COMPONENT);
+          addWarmUpImplementation();
+        }
         addChildComponents();
         addShards();
       }
@@ -893,6 +1047,85 @@ public final class ComponentImplementation {
       }
     }
 
+    private void addWarmUpImplementation() {
+      ImmutableList<ImmutableList<Binding>> levels = warmUpLevels(graph);
+      List<Integer> levelStarts = new ArrayList<>();
+      List<CodeBlock> switchCases = new ArrayList<>();
+      for (ImmutableList<Binding> level : levels) {
+        levelStarts.add(switchCases.size());
+        for (Binding binding : level) {
+          switchCases.add(
+              CodeBlock.builder()
+                  .add("case $L: // $L\n", switchCases.size(), binding.key())
+                  .addStatement(
+                      "return $L",
+                      componentRequestRepresentationsProvider
+                          .get()
+                          .getDependencyExpression(
+                              BindingRequest.bindingRequest(binding.key(), RequestKind.INSTANCE),
+                              name)
+                          .box()
+                          .codeBlock())
+                  .build());
+        }
+      }
+      levelStarts.add(switchCases.size());
+
+      addMethod(
+          MethodSpecKind.WARM_UP_METHOD,
+          methodBuilder("warmUpLevels")
+              .addModifiers(PUBLIC)
+              .addAnnotation(Override.class)
+              .returns(ArrayTypeName.of(TypeName.INT))
+              .addStatement(
+                  "return new int[] {$L}",
+                  levelStarts.stream()
+                      .map(start -> CodeBlock.of("$L", start))
+                      .collect(CodeBlocks.toParametersCodeBlock()))
+              .build());
+
+      ParameterSpec id = ParameterSpec.builder(TypeName.INT, "id").build();
+      MethodSpec.Builder warmUpBinding =
+          methodBuilder("warmUpBinding")
+              .addModifiers(PUBLIC)
+              .addAnnotation(Override.class)
+              .returns(TypeName.OBJECT)
+              .addParameter(id);
+      // Like SwitchingProviders, limit each switch to STATEMENTS_PER_METHOD cases.
+      List<List<CodeBlock>> partitions = Lists.partition(switchCases, STATEMENTS_PER_METHOD);
+      if (partitions.size() <= 1) {
+        addMethod(
+            MethodSpecKind.WARM_UP_METHOD,
+            warmUpBinding.addCode(warmUpSwitch(switchCases, id)).build());
+        return;
+      }
+      warmUpBinding.beginControlFlow("switch ($N / $L)", id, STATEMENTS_PER_METHOD);
+      for (int i = 0; i < partitions.size(); i++) {
+        MethodSpec partition =
+            methodBuilder(getUniqueMethodName("warmUpBinding" + i))
+                .addModifiers(PRIVATE)
+                .returns(TypeName.OBJECT)
+                .addParameter(id)
+                .addCode(warmUpSwitch(partitions.get(i), id))
+                .build();
+        addMethod(MethodSpecKind.WARM_UP_METHOD, partition);
+        warmUpBinding.addStatement("case $L: return $N($N)", i, partition, id);
+      }
+      warmUpBinding
+          .addStatement("default: throw new $T($N)", AssertionError.class, id)
+          .endControlFlow();
+      addMethod(MethodSpecKind.WARM_UP_METHOD, warmUpBinding.build());
+    }
+
+    private CodeBlock warmUpSwitch(List<CodeBlock> switchCases, ParameterSpec id) {
+      return CodeBlock.builder()
+          .beginControlFlow("switch ($N)", id)
+          .add(CodeBlocks.concat(switchCases))
+          .addStatement("default: throw new $T($N)", AssertionError.class, id)
+          .endControlFlow()
+          .build();
+    }
+
     private void addChildComponents() {
       for (BindingGraph subgraph : graph.subgraphs()) {
         topLevelImplementation()
@@ -916,7 +1149,11 @@ public final class ComponentImplementation {
     /** Creates and adds the constructor and methods needed for initializing the component. */
     private void addConstructorAndInitializationMethods() {
       MethodSpec.Builder constructor = constructorBuilder().addModifiers(PRIVATE);
-      ImmutableList<ParameterSpec> parameters = constructorParameters.values().asList();
+      // A lazy shard is created after the component's constructor has returned, so it can't take
+      // the constructor's parameters. It doesn't need them either: shards only access component
+      // requirements through the component's fields.
+      ImmutableList<ParameterSpec> parameters =
+          isLazyShard() ? ImmutableList.of() : constructorParameters.values().asList();
 
       // Add a constructor parameter and initialization for each component field. We initialize
       // these fields immediately so that we don't need to be pass them to each initialize method
@@ -969,6 +1206,8 @@ public final class ComponentImplementation {
                        * when we no longer separate fields and initialization as we do now. */
                       .addAnnotation(suppressWarnings(UNCHECKED)));
 
+      // The scoped instance stores are referenced by the framework fields, so create them first.
+      constructor.addCode(switchingProviders.scopedInstanceStoreInitializations());
       for (MethodSpec initializationMethod : initializationMethods) {
         constructor.addStatement("$N($L)", initializationMethod, args);
         addMethod(MethodSpecKind.INITIALIZE_METHOD, initializationMethod);
@@ -976,6 +1215,11 @@ public final class ComponentImplementation {
 
       if (isComponentShard()) {
         constructor.addCode(CodeBlocks.concat(shardInitializations));
+        // Registered last so that the holders only ever see a fully initialized component.
+        staticInstanceField.ifPresent(
+            field -> constructor.addCode(staticInstanceRegistration(field)));
+      } else if (isLazyShard()) {
+        addLazyShardAccessor();
       } else {
         // This initialization is called from the componentShard, so we need to use those args.
         CodeBlock componentArgs =
@@ -998,6 +1242,48 @@ public final class ComponentImplementation {
       addMethod(MethodSpecKind.CONSTRUCTOR, constructor.build());
     }
 
+    /**
+     * Returns the statements that register this instance as the one the static singleton holders
+     * create their instances from, unless another instance was registered first.
+     */
+    private CodeBlock staticInstanceRegistration(FieldSpec staticInstanceField) {
+      return CodeBlock.builder()
+          .beginControlFlow("synchronized ($T.class)", name)
+          .beginControlFlow("if ($N == null)", staticInstanceField)
+          .addStatement("$N = this", staticInstanceField)
+          .endControlFlow()
+          .endControlFlow()
+          .build();
+    }
+
+    /** Adds the method to the component that creates this shard on first use. */
+    private void addLazyShardAccessor() {
+      FieldSpec shardField = shardFieldsByImplementation.get(this);
+      CodeBlock componentFields =
+          componentFieldsByImplementation().values().stream()
+              .map(field -> CodeBlock.of("$N", field))
+              .collect(CodeBlocks.toParametersCodeBlock());
+      // Double-checked locking on the component: every lazy shard of a component uses the same
+      // lock, so a shard that creates the shards it depends on can't deadlock with another thread.
+      componentShard.addMethod(
+          MethodSpecKind.PRIVATE_METHOD,
+          methodBuilder(shardAccessorNamesByImplementation.get(this))
+              .addModifiers(PRIVATE)
+              .returns(name)
+              .addStatement("$T local = $N", name, shardField)
+              .beginControlFlow("if (local == null)")
+              .beginControlFlow("synchronized (this)")
+              .addStatement("local = $N", shardField)
+              .beginControlFlow("if (local == null)")
+              .addStatement("local = new $T($L)", name, componentFields)
+              .addStatement("$N = local", shardField)
+              .endControlFlow()
+              .endControlFlow()
+              .endControlFlow()
+              .addStatement("return local")
+              .build());
+    }
+
     private void addCancellationListenerImplementation() {
       MethodSpec.Builder methodBuilder =
           methodBuilder(CANCELLATION_LISTENER_METHOD_NAME)
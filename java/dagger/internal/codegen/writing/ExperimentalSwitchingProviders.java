@@ -39,6 +39,7 @@ import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import dagger.internal.codegen.binding.ProvisionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.CodeBlocks;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
@@ -56,22 +57,11 @@ import javax.inject.Provider;
  * that can provide instances for all types by switching on an id.
  */
 final class ExperimentalSwitchingProviders {
-  /**
-   * Each switch size is fixed at 100 cases each and put in its own method. This is to limit the
-   * size of the methods so that we don't reach the "huge" method size limit for Android that will
-   * prevent it from being AOT compiled in some versions of Android (b/77652521). This generally
-   * starts to happen around 1500 cases, but we are choosing 100 to be safe.
-   */
-  // TODO(bcorso): Include a proguard_spec in the Dagger library to prevent inlining these methods?
-  // TODO(ronshapiro): Consider making this configurable via a flag.
-  private static final int MAX_CASES_PER_SWITCH = 100;
-
-  private static final long MAX_CASES_PER_CLASS = MAX_CASES_PER_SWITCH * MAX_CASES_PER_SWITCH;
   private static final TypeVariableName T = TypeVariableName.get("T");
 
   /**
    * Maps a {@link Key} to an instance of a {@link SwitchingProviderBuilder}. Each group of {@code
-   * MAX_CASES_PER_CLASS} keys will share the same instance.
+   * maxCasesPerClass} keys will share the same instance.
    */
   private final Map<Key, SwitchingProviderBuilder> switchingProviderBuilders =
       new LinkedHashMap<>();
@@ -79,12 +69,20 @@ final class ExperimentalSwitchingProviders {
   private final ShardImplementation shardImplementation;
   private final Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider;
 
+  /** See {@link SwitchingProviders}. */
+  private final int maxCasesPerSwitch;
+
+  private final long maxCasesPerClass;
+
   ExperimentalSwitchingProviders(
       ShardImplementation shardImplementation,
-      Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider) {
+      Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider,
+      CompilerOptions compilerOptions) {
     this.shardImplementation = checkNotNull(shardImplementation);
     this.componentRequestRepresentationsProvider =
         checkNotNull(componentRequestRepresentationsProvider);
+    this.maxCasesPerSwitch = compilerOptions.switchingProviderCasesPerSwitch();
+    this.maxCasesPerClass = (long) maxCasesPerSwitch * maxCasesPerSwitch;
   }
 
   /** Returns the framework instance creation expression for an inner switching provider class. */
@@ -101,7 +99,7 @@ final class ExperimentalSwitchingProviders {
   }
 
   private SwitchingProviderBuilder getSwitchingProviderBuilder() {
-    if (switchingProviderBuilders.size() % MAX_CASES_PER_CLASS == 0) {
+    if (switchingProviderBuilders.size() % maxCasesPerClass == 0) {
       String name = shardImplementation.getUniqueClassName("SwitchingProvider");
       // TODO(wanyingd): move Switching Providers and injection methods to Shard classes to avoid
       // exceeding component class constant pool limit.
@@ -221,7 +219,7 @@ final class ExperimentalSwitchingProviders {
     private ImmutableList<MethodSpec> getMethods() {
       ImmutableList<CodeBlock> switchCodeBlockPartitions = switchCodeBlockPartitions();
       if (switchCodeBlockPartitions.size() == 1) {
-        // There are less than MAX_CASES_PER_SWITCH cases, so no need for extra get methods.
+        // There are less than maxCasesPerSwitch cases, so no need for extra get methods.
         return ImmutableList.of(
             methodBuilder("get")
                 .addModifiers(PUBLIC)
@@ -238,7 +236,7 @@ final class ExperimentalSwitchingProviders {
               .addModifiers(PUBLIC)
               .addAnnotation(Override.class)
               .returns(T)
-              .beginControlFlow("switch (id / $L)", MAX_CASES_PER_SWITCH);
+              .beginControlFlow("switch (id / $L)", maxCasesPerSwitch);
 
       ImmutableList.Builder<MethodSpec> getMethods = ImmutableList.builder();
       for (int i = 0; i < switchCodeBlockPartitions.size(); i++) {
@@ -259,7 +257,7 @@ final class ExperimentalSwitchingProviders {
     }
 
     private ImmutableList<CodeBlock> switchCodeBlockPartitions() {
-      return Lists.partition(ImmutableList.copyOf(switchCases.values()), MAX_CASES_PER_SWITCH)
+      return Lists.partition(ImmutableList.copyOf(switchCases.values()), maxCasesPerSwitch)
           .stream()
           .map(
               partitionCases ->
@@ -66,6 +66,7 @@ class FrameworkFieldInitializer implements FrameworkInstanceSupplier {
   private final ContributionBinding binding;
   private final FrameworkInstanceCreationExpression frameworkInstanceCreationExpression;
   private final CompilerMode compilerMode;
+  private final boolean collapseDelegateFactories;
   private FieldSpec fieldSpec;
   private InitializationState fieldInitializationState = InitializationState.UNINITIALIZED;
 
@@ -76,6 +77,8 @@ class FrameworkFieldInitializer implements FrameworkInstanceSupplier {
     this.binding = checkNotNull(binding);
     this.shardImplementation = checkNotNull(componentImplementation).shardImplementation(binding);
     this.compilerMode = componentImplementation.compilerMode();
+    this.collapseDelegateFactories =
+        componentImplementation.compilerOptions().collapseDelegateFactories();
     this.frameworkInstanceCreationExpression = checkNotNull(frameworkInstanceCreationExpression);
   }
 
@@ -99,7 +102,18 @@ class FrameworkFieldInitializer implements FrameworkInstanceSupplier {
         CodeBlock fieldInitialization = frameworkInstanceCreationExpression.creationExpression();
         CodeBlock initCode = CodeBlock.of("this.$N = $L;", getOrCreateField(), fieldInitialization);
 
-        if (fieldInitializationState == InitializationState.DELEGATED) {
+        if (fieldInitializationState == InitializationState.DELEGATED
+            && collapseDelegateFactories
+            && isProvider()) {
+          // Bindings created while the cycle was incomplete keep the DelegateFactory, but later
+          // reads of the field get the delegate itself.
+          codeBuilder.add(
+              "this.$N = $T.setDelegateAndUnwrap($N, $L);",
+              fieldSpec,
+              delegateType(),
+              fieldSpec,
+              fieldInitialization);
+        } else if (fieldInitializationState == InitializationState.DELEGATED) {
           codeBuilder.add(
               "$T.setDelegate($N, $L);", delegateType(), fieldSpec, fieldInitialization);
         } else {
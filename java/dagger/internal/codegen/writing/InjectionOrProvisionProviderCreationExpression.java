@@ -42,25 +42,31 @@ final class InjectionOrProvisionProviderCreationExpression
   private final ContributionBinding binding;
   private final ShardImplementation shardImplementation;
   private final ComponentRequestRepresentations componentRequestRepresentations;
+  private final ProvisionMonitoring provisionMonitoring;
 
   @AssistedInject
   InjectionOrProvisionProviderCreationExpression(
       @Assisted ContributionBinding binding,
       ComponentImplementation componentImplementation,
-      ComponentRequestRepresentations componentRequestRepresentations) {
+      ComponentRequestRepresentations componentRequestRepresentations,
+      ProvisionMonitoring provisionMonitoring) {
     this.binding = checkNotNull(binding);
     this.shardImplementation = componentImplementation.shardImplementation(binding);
     this.componentRequestRepresentations = componentRequestRepresentations;
+    this.provisionMonitoring = provisionMonitoring;
   }
 
   @Override
   public CodeBlock creationExpression() {
     CodeBlock createFactory =
-        CodeBlock.of(
-            "$T.create($L)",
-            generatedClassNameForBinding(binding),
-            componentRequestRepresentations.getCreateMethodArgumentsCodeBlock(
-                binding, shardImplementation.name()));
+        provisionMonitoring.monitorProvider(
+            binding,
+            CodeBlock.of(
+                "$T.create($L)",
+                generatedClassNameForBinding(binding),
+                componentRequestRepresentations.getCreateMethodArgumentsCodeBlock(
+                    binding, shardImplementation.name())),
+            shardImplementation.name());
 
     // When scoping a parameterized factory for an @Inject class, Java 7 cannot always infer the
     // type properly, so cast to a raw framework type before scoping.
@@ -64,7 +64,7 @@ final class MapFactoryCreationExpression extends MultibindingFactoryCreationExpr
       // TODO(ronshapiro): either inline this into mapFactoryClassName, or add a
       // mapType.unwrappedValueType() method that doesn't require a framework type
       XType valueType =
-          Stream.of(TypeNames.PROVIDER, TypeNames.PRODUCER, TypeNames.PRODUCED)
+          Stream.of(TypeNames.PROVIDER, TypeNames.LAZY, TypeNames.PRODUCER, TypeNames.PRODUCED)
               .filter(mapType::valuesAreTypeOf)
               .map(mapType::unwrappedValueType)
               .collect(toOptional())
@@ -28,6 +28,7 @@ import dagger.internal.codegen.binding.ProvisionBinding;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.writing.ComponentImplementation.CompilerMode;
 import dagger.spi.model.RequestKind;
+import java.util.Optional;
 
 /**
  * A binding representation that wraps code generation methods that satisfy all kinds of request for
@@ -39,6 +40,7 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
   private final ProvisionBinding binding;
   private final DirectInstanceBindingRepresentation directInstanceBindingRepresentation;
   private final FrameworkInstanceBindingRepresentation frameworkInstanceBindingRepresentation;
+  private final Optional<RequestRepresentation> staticSingletonHolderRepresentation;
 
   @AssistedInject
   ProvisionBindingRepresentation(
@@ -50,31 +52,65 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
       SwitchingProviderInstanceSupplier.Factory switchingProviderInstanceSupplierFactory,
       ProviderInstanceSupplier.Factory providerInstanceSupplierFactory,
       StaticFactoryInstanceSupplier.Factory staticFactoryInstanceSupplierFactory,
+      ProvisionMonitoring provisionMonitoring,
+      StaticSingletonHolders staticSingletonHolders,
+      UnscopedDirectInstanceRequestRepresentationFactory
+          unscopedDirectInstanceRequestRepresentationFactory,
+      AnonymousProviderCreationExpression.Factory anonymousProviderCreationExpressionFactory,
       CompilerOptions compilerOptions) {
     this.binding = binding;
     this.graph = graph;
     this.compilerMode = componentImplementation.compilerMode();
     this.directInstanceBindingRepresentation =
         directInstanceBindingRepresentationFactory.create(binding);
+    this.staticSingletonHolderRepresentation =
+        staticSingletonHolders.isHeldStatically(binding)
+            ? Optional.of(
+                staticSingletonHolders.instanceRequestRepresentation(
+                    binding, unscopedDirectInstanceRequestRepresentationFactory.create(binding)))
+            : Optional.empty();
     FrameworkInstanceSupplier frameworkInstanceSupplier = null;
-    switch (FrameworkInstanceKind.from(binding, compilerMode)) {
+    switch (frameworkInstanceKind(binding, compilerMode)) {
       case SWITCHING_PROVIDER:
       case EXPERIMENTAL_SWITCHING_PROVIDER:
         frameworkInstanceSupplier = switchingProviderInstanceSupplierFactory.create(binding);
         break;
       case STATIC_FACTORY:
-        frameworkInstanceSupplier = staticFactoryInstanceSupplierFactory.create(binding);
+        // The static factory instance is shared by all components, so it can't report to this
+        // component's monitor.
+        frameworkInstanceSupplier =
+            provisionMonitoring.isMonitored(binding)
+                ? providerInstanceSupplierFactory.create(binding)
+                : staticFactoryInstanceSupplierFactory.create(binding);
         break;
       case PROVIDER_FIELD:
-        frameworkInstanceSupplier = providerInstanceSupplierFactory.create(binding);
+        frameworkInstanceSupplier =
+            staticSingletonHolderRepresentation.isPresent()
+                // The provider just reads the holder, which already caches the instance.
+                ? new FrameworkFieldInitializer(
+                    componentImplementation,
+                    binding,
+                    anonymousProviderCreationExpressionFactory.create(binding))
+                : providerInstanceSupplierFactory.create(binding);
         break;
     }
     this.frameworkInstanceBindingRepresentation =
         frameworkInstanceBindingRepresentationFactory.create(binding, frameworkInstanceSupplier);
   }
 
+  private FrameworkInstanceKind frameworkInstanceKind(
+      ProvisionBinding binding, CompilerMode compilerMode) {
+    return staticSingletonHolderRepresentation.isPresent()
+        ? FrameworkInstanceKind.PROVIDER_FIELD
+        : FrameworkInstanceKind.from(binding, compilerMode);
+  }
+
   @Override
   public RequestRepresentation getRequestRepresentation(BindingRequest request) {
+    if (staticSingletonHolderRepresentation.isPresent()
+        && request.requestKind() == RequestKind.INSTANCE) {
+      return staticSingletonHolderRepresentation.get();
+    }
     return usesDirectInstanceExpression(request.requestKind())
         ? directInstanceBindingRepresentation.getRequestRepresentation(request)
         : frameworkInstanceBindingRepresentation.getRequestRepresentation(request);
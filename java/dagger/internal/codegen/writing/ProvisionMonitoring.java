@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.base.CaseFormat.LOWER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.squareup.javapoet.MethodSpec.methodBuilder;
+import static dagger.internal.codegen.binding.BindingRequest.bindingRequest;
+import static dagger.internal.codegen.javapoet.TypeNames.PROVISION_MONITOR;
+import static dagger.internal.codegen.javapoet.TypeNames.PROVISION_MONITORS;
+import static dagger.internal.codegen.writing.ComponentImplementation.MethodSpecKind.PRIVATE_METHOD;
+import static javax.lang.model.element.Modifier.PRIVATE;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import dagger.internal.codegen.binding.Binding;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingNode;
+import dagger.internal.codegen.binding.ContributionBinding;
+import dagger.internal.codegen.binding.KeyFactory;
+import dagger.internal.codegen.binding.KeyVariableNamer;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.javapoet.Expression;
+import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
+import dagger.spi.model.DependencyRequest;
+import dagger.spi.model.Key;
+import dagger.spi.model.RequestKind;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+import javax.inject.Inject;
+
+/**
+ * Wraps the provisions of a component so that they are reported to the component's {@code
+ * ProvisionMonitor}, when {@code -Adagger.monitorProvisions} is enabled and one is bound.
+ */
+@PerComponentImplementation
+final class ProvisionMonitoring {
+  private final BindingGraph graph;
+  private final ComponentImplementation componentImplementation;
+  private final ComponentRequestRepresentations componentRequestRepresentations;
+  private final Optional<Key> provisionMonitorKey;
+  private final Supplier<ImmutableSet<Key>> unmonitoredKeys;
+  private final Map<ContributionBinding, Expression> monitoredInstanceMethods = new HashMap<>();
+  private final Map<ShardImplementation, LocalNames> localNames = new HashMap<>();
+
+  @Inject
+  ProvisionMonitoring(
+      BindingGraph graph,
+      ComponentImplementation componentImplementation,
+      ComponentRequestRepresentations componentRequestRepresentations,
+      KeyFactory keyFactory,
+      CompilerOptions compilerOptions) {
+    this.graph = graph;
+    this.componentImplementation = componentImplementation;
+    this.componentRequestRepresentations = componentRequestRepresentations;
+    this.provisionMonitorKey =
+        compilerOptions.monitorProvisions()
+                && !componentImplementation.compilerMode().isExperimentalMergedMode()
+            ? Optional.of(keyFactory.forProvisionMonitor())
+                .filter(key -> contributionBindings().containsKey(key))
+            : Optional.empty();
+    this.unmonitoredKeys = Suppliers.memoize(this::unmonitoredKeys);
+  }
+
+  /** Returns {@code true} if provisions of {@code binding} are reported to the monitor. */
+  boolean isMonitored(ContributionBinding binding) {
+    if (!provisionMonitorKey.isPresent()) {
+      return false;
+    }
+    switch (binding.kind()) {
+      case INJECTION:
+      case PROVISION:
+        return !unmonitoredKeys.get().contains(binding.key());
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns an expression that reports a provision of {@code binding} to the monitor. It calls a
+   * method that evaluates the expression that {@code instance} returns for a requesting class, and
+   * reports whether it returned or threw.
+   */
+  Expression monitorInstance(
+      ContributionBinding binding,
+      Function<ClassName, Expression> instance,
+      ClassName requestingClass) {
+    if (!isMonitored(binding)) {
+      return instance.apply(requestingClass);
+    }
+    ShardImplementation shard = componentImplementation.shardImplementation(binding);
+    Expression method = monitoredInstanceMethods.get(binding);
+    if (method == null) {
+      method = createMonitoredInstanceMethod(binding, shard, instance.apply(shard.name()));
+      monitoredInstanceMethods.put(binding, method);
+    }
+    return requestingClass.equals(shard.name())
+        ? method
+        : Expression.create(
+            method.type(), CodeBlock.of("$L.$L", shard.shardFieldReference(), method.codeBlock()));
+  }
+
+  private Expression createMonitoredInstanceMethod(
+      ContributionBinding binding, ShardImplementation shard, Expression instance) {
+    String methodName =
+        shard.getUniqueMethodName(
+            "monitored" + LOWER_CAMEL.to(UPPER_CAMEL, KeyVariableNamer.name(binding.key())));
+    // The locals are named like fields, so that they can't hide a field that the instance or
+    // monitor expressions read.
+    LocalNames locals =
+        localNames.computeIfAbsent(
+            shard,
+            unused ->
+                new LocalNames(
+                    shard.getUniqueFieldName("provisionMonitor"),
+                    shard.getUniqueFieldName("provisionedInstance")));
+    String token = bindingToken(binding);
+    shard.addMethod(
+        PRIVATE_METHOD,
+        methodBuilder(methodName)
+            .addModifiers(PRIVATE)
+            .returns(instance.type().getTypeName())
+            .addStatement(
+                "$T $N = $L",
+                PROVISION_MONITOR,
+                locals.monitor,
+                monitorExpression(RequestKind.INSTANCE, shard.name()))
+            .addStatement("$N.provisionStarted($S)", locals.monitor, token)
+            .addStatement("$T $N", instance.type().getTypeName(), locals.instance)
+            .beginControlFlow("try")
+            .addStatement("$N = $L", locals.instance, instance.codeBlock())
+            .nextControlFlow("catch ($T | $T e)", RuntimeException.class, Error.class)
+            .addStatement("$N.provisionFailed($S, e)", locals.monitor, token)
+            .addStatement("throw e")
+            .endControlFlow()
+            .addStatement("$N.provisionFinished($S, $N)", locals.monitor, token, locals.instance)
+            .addStatement("return $N", locals.instance)
+            .build());
+    return Expression.create(instance.type(), CodeBlock.of("$N()", methodName));
+  }
+
+  /**
+   * Returns a provider creation expression that reports each provision of the provider created by
+   * {@code providerCreation} to the monitor.
+   */
+  CodeBlock monitorProvider(
+      ContributionBinding binding, CodeBlock providerCreation, ClassName requestingClass) {
+    if (!isMonitored(binding)) {
+      return providerCreation;
+    }
+    return CodeBlock.of(
+        "$T.monitored($L, $L, $S)",
+        PROVISION_MONITORS,
+        providerCreation,
+        monitorExpression(RequestKind.PROVIDER, requestingClass),
+        bindingToken(binding));
+  }
+
+  private CodeBlock monitorExpression(RequestKind requestKind, ClassName requestingClass) {
+    return componentRequestRepresentations
+        .getDependencyExpression(
+            bindingRequest(provisionMonitorKey.get(), requestKind), requestingClass)
+        .codeBlock();
+  }
+
+  private static String bindingToken(Binding binding) {
+    return binding.key().toString();
+  }
+
+  /**
+   * Returns the keys of the monitor and of everything it depends on. Monitoring those would make
+   * the monitor's own creation expression refer to itself.
+   */
+  private ImmutableSet<Key> unmonitoredKeys() {
+    Map<Key, Binding> contributionBindings = contributionBindings();
+    Set<Key> visited = new HashSet<>();
+    Queue<Key> queue = new ArrayDeque<>();
+    queue.add(provisionMonitorKey.get());
+    while (!queue.isEmpty()) {
+      Key key = queue.remove();
+      if (visited.add(key) && contributionBindings.containsKey(key)) {
+        for (DependencyRequest dependency : contributionBindings.get(key).dependencies()) {
+          queue.add(dependency.key());
+        }
+      }
+    }
+    return ImmutableSet.copyOf(visited);
+  }
+
+  private Map<Key, Binding> contributionBindings() {
+    Map<Key, Binding> contributionBindings = new HashMap<>();
+    for (BindingNode bindingNode : graph.bindingNodes()) {
+      if (bindingNode.delegate() instanceof ContributionBinding) {
+        contributionBindings.putIfAbsent(bindingNode.key(), bindingNode.delegate());
+      }
+    }
+    return contributionBindings;
+  }
+
+  /** The names of the locals in a shard's monitored instance methods. */
+  private static final class LocalNames {
+    final String monitor;
+    final String instance;
+
+    LocalNames(String monitor, String instance) {
+      this.monitor = monitor;
+      this.instance = instance;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static dagger.internal.codegen.extension.DaggerStreams.instancesOf;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import dagger.internal.codegen.binding.Binding;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingNode;
+import dagger.spi.model.BindingGraph.Node;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partitions the bindings of a component into shards by the estimated size of their generated code.
+ *
+ * <p>Like partitioning by key count, each shard is a run of consecutive strongly connected
+ * components in reverse topological order, so a shard only depends on the shards before it and a
+ * cycle is never split across shards. Within those constraints, the shard boundaries are chosen to
+ * minimize the estimated total size of the generated code, which is the size of the shards
+ * themselves plus the cost of every field access from one shard into another.
+ */
+final class ShardPartitioner {
+  // The sizes below are rough estimates of the bytecode generated for each construct. They only
+  // need to be accurate relative to each other.
+
+  /** The estimated size of a binding's field, its initialization and its accessors. */
+  private static final int BINDING_BYTES = 48;
+
+  /** The estimated size of passing one dependency to a binding. */
+  private static final int DEPENDENCY_BYTES = 8;
+
+  /** The estimated extra size of reading a field through the component and another shard. */
+  private static final int CROSS_SHARD_REFERENCE_BYTES = 8;
+
+  /** The estimated size of a shard's class, its field in the component and its constructor. */
+  private static final int SHARD_BYTES = 512;
+
+  /**
+   * Returns the bindings local to the given component, partitioned into shards of about {@code
+   * targetShardBytes} each. The first partition is the component shard.
+   *
+   * <p>A partition only exceeds the target when a single strongly connected component does.
+   */
+  static ImmutableList<ImmutableList<Binding>> partition(
+      BindingGraph graph, int targetShardBytes) {
+    List<ImmutableList<Binding>> units = new ArrayList<>();
+    Map<BindingNode, Integer> unitIndices = new HashMap<>();
+    for (ImmutableSet<Node> nodes : graph.topLevelBindingGraph().stronglyConnectedNodes()) {
+      ImmutableList<BindingNode> bindingNodes =
+          nodes.stream()
+              .flatMap(instancesOf(BindingNode.class))
+              .filter(bindingNode -> bindingNode.componentPath().equals(graph.componentPath()))
+              .collect(toImmutableList());
+      if (!bindingNodes.isEmpty()) {
+        bindingNodes.forEach(bindingNode -> unitIndices.put(bindingNode, units.size()));
+        units.add(bindingNodes.stream().map(BindingNode::delegate).collect(toImmutableList()));
+      }
+    }
+
+    int[] unitBytes = new int[units.size()];
+    List<List<Integer>> dependencies = new ArrayList<>(units.size());
+    for (int i = 0; i < units.size(); i++) {
+      dependencies.add(new ArrayList<>());
+    }
+    unitIndices.forEach(
+        (node, index) -> {
+          unitBytes[index] +=
+              BINDING_BYTES + DEPENDENCY_BYTES * node.delegate().dependencies().size();
+          for (Node successor : graph.topLevelBindingGraph().network().successors(node)) {
+            Integer successorIndex = unitIndices.get(successor);
+            // Dependencies within the same strongly connected component never cross shards.
+            if (successorIndex != null && successorIndex < index) {
+              dependencies.get(index).add(successorIndex);
+            }
+          }
+        });
+
+    ImmutableList.Builder<ImmutableList<Binding>> partitions = ImmutableList.builder();
+    int start = 0;
+    for (int end : partitionEnds(unitBytes, dependencies, targetShardBytes)) {
+      partitions.add(
+          units.subList(start, end).stream()
+              .flatMap(ImmutableList::stream)
+              .collect(toImmutableList()));
+      start = end;
+    }
+    return partitions.build();
+  }
+
+  /**
+   * Returns the exclusive end index of each partition of the units, where each unit has the given
+   * size and depends on the given earlier units.
+   *
+   * <p>This is a dynamic program over the partition ends: the cost of partitioning the first
+   * {@code end} units is the cheapest cost of partitioning the first {@code start} units plus the
+   * cost of a shard of the units {@code [start, end)}. Since a shard must fit within the target,
+   * only the starts within a window of the target's size are considered for each end, so the
+   * program is quadratic in the number of units that fit in the target.
+   */
+  @VisibleForTesting
+  static ImmutableList<Integer> partitionEnds(
+      int[] unitBytes, List<List<Integer>> dependencies, int targetShardBytes) {
+    int size = unitBytes.length;
+    // A single shard has the least overhead and no cross-shard references, so when all of the units
+    // fit in one, it's the cheapest partition. This skips the program when the window would cover
+    // every unit.
+    if (size > 0 && Arrays.stream(unitBytes).asLongStream().sum() <= targetShardBytes) {
+      return ImmutableList.of(size);
+    }
+    // For each unit, the sorted indices of the later units that depend on it.
+    int[][] dependents = dependents(dependencies);
+    long[] costs = new long[size + 1];
+    int[] starts = new int[size + 1];
+    for (int end = 1; end <= size; end++) {
+      costs[end] = Long.MAX_VALUE;
+      long shardBytes = 0;
+      // The number of dependencies from the units in [start, end) on units before start.
+      long crossShardReferences = 0;
+      for (int start = end - 1; start >= 0; start--) {
+        shardBytes += unitBytes[start];
+        if (shardBytes > targetShardBytes && start < end - 1) {
+          break;
+        }
+        crossShardReferences +=
+            dependencies.get(start).size() - countLessThan(dependents[start], end);
+        long cost =
+            costs[start]
+                + SHARD_BYTES
+                + shardBytes
+                + crossShardReferences * CROSS_SHARD_REFERENCE_BYTES;
+        // Prefer fewer, larger shards when the costs are equal.
+        if (cost <= costs[end]) {
+          costs[end] = cost;
+          starts[end] = start;
+        }
+      }
+    }
+
+    List<Integer> ends = new ArrayList<>();
+    for (int end = size; end > 0; end = starts[end]) {
+      ends.add(0, end);
+    }
+    return ImmutableList.copyOf(ends);
+  }
+
+  private static int[][] dependents(List<List<Integer>> dependencies) {
+    int[] counts = new int[dependencies.size()];
+    dependencies.forEach(unitDependencies -> unitDependencies.forEach(index -> counts[index]++));
+    int[][] dependents = new int[dependencies.size()][];
+    for (int i = 0; i < dependents.length; i++) {
+      dependents[i] = new int[counts[i]];
+      counts[i] = 0;
+    }
+    // Units are visited in increasing order, so each array of dependents is already sorted.
+    for (int i = 0; i < dependencies.size(); i++) {
+      for (int index : dependencies.get(i)) {
+        dependents[index][counts[index]++] = i;
+      }
+    }
+    return dependents;
+  }
+
+  /** Returns the number of elements in the sorted array that are less than the given value. */
+  private static int countLessThan(int[] sorted, int value) {
+    int index = Arrays.binarySearch(sorted, value);
+    if (index < 0) {
+      return -index - 1;
+    }
+    // Find the first occurrence of the value, since a unit may depend on another more than once.
+    while (index > 0 && sorted[index - 1] == value) {
+      index--;
+    }
+    return index;
+  }
+
+  private ShardPartitioner() {}
+}
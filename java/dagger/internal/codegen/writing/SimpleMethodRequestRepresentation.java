@@ -58,6 +58,7 @@ final class SimpleMethodRequestRepresentation extends RequestRepresentation {
   private final MembersInjectionMethods membersInjectionMethods;
   private final ComponentRequirementExpressions componentRequirementExpressions;
   private final ShardImplementation shardImplementation;
+  private final ProvisionMonitoring provisionMonitoring;
   private final boolean isExperimentalMergedMode;
 
   @AssistedInject
@@ -68,7 +69,8 @@ final class SimpleMethodRequestRepresentation extends RequestRepresentation {
       XProcessingEnv processingEnv,
       ComponentRequestRepresentations componentRequestRepresentations,
       ComponentRequirementExpressions componentRequirementExpressions,
-      ComponentImplementation componentImplementation) {
+      ComponentImplementation componentImplementation,
+      ProvisionMonitoring provisionMonitoring) {
     this.compilerOptions = compilerOptions;
     this.processingEnv = processingEnv;
     this.provisionBinding = binding;
@@ -80,12 +82,18 @@ final class SimpleMethodRequestRepresentation extends RequestRepresentation {
     this.membersInjectionMethods = membersInjectionMethods;
     this.componentRequirementExpressions = componentRequirementExpressions;
     this.shardImplementation = componentImplementation.shardImplementation(binding);
+    this.provisionMonitoring = provisionMonitoring;
     this.isExperimentalMergedMode =
         componentImplementation.compilerMode().isExperimentalMergedMode();
   }
 
   @Override
   Expression getDependencyExpression(ClassName requestingClass) {
+    return provisionMonitoring.monitorInstance(
+        provisionBinding, this::invokeInjectionOrMethod, requestingClass);
+  }
+
+  private Expression invokeInjectionOrMethod(ClassName requestingClass) {
     return requiresInjectionMethod(provisionBinding, compilerOptions, requestingClass)
         ? invokeInjectionMethod(requestingClass)
         : invokeMethod(requestingClass);
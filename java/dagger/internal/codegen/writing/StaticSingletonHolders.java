@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.base.CaseFormat.LOWER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.squareup.javapoet.MethodSpec.methodBuilder;
+import static com.squareup.javapoet.TypeSpec.classBuilder;
+import static dagger.internal.codegen.extension.DaggerStreams.instancesOf;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static dagger.internal.codegen.langmodel.Accessibility.isRawTypeAccessible;
+import static dagger.internal.codegen.langmodel.Accessibility.isTypeAccessibleFrom;
+import static dagger.internal.codegen.xprocessing.XTypes.isDeclared;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.SYNCHRONIZED;
+
+import androidx.room.compiler.processing.XProcessingEnv;
+import androidx.room.compiler.processing.XType;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.TypeName;
+import dagger.internal.codegen.binding.Binding;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingNode;
+import dagger.internal.codegen.binding.KeyVariableNamer;
+import dagger.internal.codegen.binding.ProvisionBinding;
+import dagger.internal.codegen.javapoet.Expression;
+import dagger.internal.codegen.javapoet.ExpressionType;
+import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
+import dagger.internal.codegen.writing.ComponentImplementation.TypeSpecKind;
+import dagger.spi.model.BindingGraph.Node;
+import javax.inject.Inject;
+
+/**
+ * Holds the scoped bindings of a component in static final fields of holder classes, when the
+ * component is listed in {@code -Adagger.staticSingletonHolderComponents}.
+ *
+ * <p>Each holder class is initialized the first time its instance is requested, and the JVM makes
+ * sure that happens once ("initialization-on-demand holder" idiom). After that, the instance is a
+ * constant that the JIT can fold into the code that reads it, rather than a {@code DoubleCheck} to
+ * call.
+ *
+ * <p>The holders belong to the component class rather than to an instance of it, so all instances
+ * of the component share the same scoped instances. The holders create them from the first
+ * instance of the component, through its static instance field.
+ *
+ * <p>Like a {@code DoubleCheck}, a holder retries a provision that fails the next time the binding
+ * is requested. The holder catches the {@link RuntimeException} rather than letting it fail the
+ * class initialization, which would turn it into an {@link ExceptionInInitializerError} and every
+ * later request into a {@link NoClassDefFoundError}. An {@link Error} still fails the class
+ * initialization.
+ */
+@PerComponentImplementation
+final class StaticSingletonHolders {
+  private final BindingGraph graph;
+  private final ComponentImplementation componentImplementation;
+  private final XProcessingEnv processingEnv;
+  private final Supplier<ImmutableSet<Binding>> cyclicBindings;
+
+  @Inject
+  StaticSingletonHolders(
+      BindingGraph graph,
+      ComponentImplementation componentImplementation,
+      XProcessingEnv processingEnv) {
+    this.graph = graph;
+    this.componentImplementation = componentImplementation;
+    this.processingEnv = processingEnv;
+    this.cyclicBindings = Suppliers.memoize(this::cyclicBindings);
+  }
+
+  /** Returns {@code true} if the instance of {@code binding} is held in a static holder class. */
+  boolean isHeldStatically(ProvisionBinding binding) {
+    if (!componentImplementation.usesStaticSingletonHolders()
+        || !ProvisionBindingRepresentation.needsCaching(binding, graph)
+        // A null instance is how the holder tells that the provision failed.
+        || binding.isNullable()) {
+      return false;
+    }
+    switch (binding.kind()) {
+      case INJECTION:
+      case PROVISION:
+        // A holder class that is read while it's being initialized, as a binding in a cycle would
+        // be, reads null rather than failing like a reentrant DoubleCheck does.
+        return !cyclicBindings.get().contains(binding);
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns a request representation that reads the instance of {@code binding} from its holder
+   * class, which creates it with {@code unscopedInstanceRequestRepresentation}.
+   */
+  RequestRepresentation instanceRequestRepresentation(
+      ProvisionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    return new HolderRequestRepresentation(binding, unscopedInstanceRequestRepresentation);
+  }
+
+  private ImmutableSet<Binding> cyclicBindings() {
+    ImmutableSet.Builder<Binding> cyclicBindings = ImmutableSet.builder();
+    for (ImmutableSet<Node> nodes : graph.topLevelBindingGraph().stronglyConnectedNodes()) {
+      ImmutableSet<BindingNode> bindingNodes =
+          nodes.stream()
+              .flatMap(instancesOf(BindingNode.class))
+              .filter(bindingNode -> bindingNode.componentPath().equals(graph.componentPath()))
+              .collect(toImmutableSet());
+      for (BindingNode bindingNode : bindingNodes) {
+        if (nodes.size() > 1 || isSelfDependent(bindingNode)) {
+          cyclicBindings.add(bindingNode.delegate());
+        }
+      }
+    }
+    return cyclicBindings.build();
+  }
+
+  private boolean isSelfDependent(BindingNode bindingNode) {
+    return graph.topLevelBindingGraph().network().successors(bindingNode).contains(bindingNode);
+  }
+
+  private final class HolderRequestRepresentation extends RequestRepresentation {
+    private final ProvisionBinding binding;
+    private final RequestRepresentation unscopedInstanceRequestRepresentation;
+    private final ShardImplementation shardImplementation;
+    private ClassName holderName;
+    private ExpressionType instanceType;
+
+    HolderRequestRepresentation(
+        ProvisionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+      this.binding = binding;
+      this.unscopedInstanceRequestRepresentation = unscopedInstanceRequestRepresentation;
+      this.shardImplementation = componentImplementation.shardImplementation(binding);
+    }
+
+    @Override
+    Expression getDependencyExpression(ClassName requestingClass) {
+      if (holderName == null) {
+        addHolder();
+      }
+      return Expression.create(instanceType, CodeBlock.of("$T.instance()", holderName));
+    }
+
+    /**
+     * Adds the holder class, which looks like:
+     *
+     * <pre><code>
+     *   private static final class FooHolder {
+     *     private static final DaggerMyComponent myComponent = DaggerMyComponent.staticInstance;
+     *     private static final Foo INSTANCE;
+     *     private static RuntimeException failure;
+     *     private static Foo retriedInstance;
+     *
+     *     static {
+     *       Foo instance = null;
+     *       try {
+     *         instance = create();
+     *       } catch (RuntimeException e) {
+     *         failure = e;
+     *       }
+     *       INSTANCE = instance;
+     *     }
+     *
+     *     static Foo instance() {
+     *       return INSTANCE != null ? INSTANCE : retry();
+     *     }
+     *
+     *     private static synchronized Foo retry() {
+     *       if (failure != null) {
+     *         RuntimeException e = failure;
+     *         failure = null;
+     *         throw e;
+     *       }
+     *       if (retriedInstance == null) {
+     *         retriedInstance = create();
+     *       }
+     *       return retriedInstance;
+     *     }
+     *
+     *     private static Foo create() {
+     *       return new Foo(myComponent.barProvider);
+     *     }
+     *   }
+     * </code></pre>
+     *
+     * <p>The request that initializes the holder gets the exception of a failed provision, and the
+     * requests after it retry the provision until one succeeds.
+     *
+     * <p>The holder has a field with the same name as the component field of the other nested
+     * classes, so that the expressions for the binding's dependencies can refer to it.
+     */
+    private void addHolder() {
+      holderName =
+          shardImplementation
+              .name()
+              .nestedClass(
+                  shardImplementation.getUniqueClassName(
+                      LOWER_CAMEL.to(UPPER_CAMEL, KeyVariableNamer.name(binding.key()))
+                          + "Holder"));
+      instanceType = instanceType();
+      FieldSpec componentField =
+          shardImplementation.componentFieldsByImplementation().get(componentImplementation);
+      Expression instance =
+          unscopedInstanceRequestRepresentation.getDependencyExpression(holderName).box();
+      TypeName instanceTypeName = instanceType.getTypeName();
+      shardImplementation.addType(
+          TypeSpecKind.STATIC_SINGLETON_HOLDER,
+          classBuilder(holderName)
+              .addModifiers(PRIVATE, STATIC, FINAL)
+              .addField(
+                  FieldSpec.builder(
+                          componentField.type, componentField.name, PRIVATE, STATIC, FINAL)
+                      .initializer(componentImplementation.staticInstanceReference())
+                      .build())
+              .addField(instanceTypeName, "INSTANCE", PRIVATE, STATIC, FINAL)
+              .addField(RuntimeException.class, "failure", PRIVATE, STATIC)
+              .addField(instanceTypeName, "retriedInstance", PRIVATE, STATIC)
+              .addStaticBlock(
+                  CodeBlock.builder()
+                      .addStatement("$T instance = null", instanceTypeName)
+                      .beginControlFlow("try")
+                      .addStatement("instance = create()")
+                      .nextControlFlow("catch ($T e)", RuntimeException.class)
+                      .addStatement("failure = e")
+                      .endControlFlow()
+                      .addStatement("INSTANCE = instance")
+                      .build())
+              .addMethod(
+                  methodBuilder("instance")
+                      .addModifiers(STATIC)
+                      .returns(instanceTypeName)
+                      .addStatement("return INSTANCE != null ? INSTANCE : retry()")
+                      .build())
+              .addMethod(
+                  methodBuilder("retry")
+                      .addModifiers(PRIVATE, STATIC, SYNCHRONIZED)
+                      .returns(instanceTypeName)
+                      .beginControlFlow("if (failure != null)")
+                      .addStatement("$T e = failure", RuntimeException.class)
+                      .addStatement("failure = null")
+                      .addStatement("throw e")
+                      .endControlFlow()
+                      .beginControlFlow("if (retriedInstance == null)")
+                      .addStatement("retriedInstance = create()")
+                      .endControlFlow()
+                      .addStatement("return retriedInstance")
+                      .build())
+              .addMethod(
+                  methodBuilder("create")
+                      .addModifiers(PRIVATE, STATIC)
+                      .returns(instanceTypeName)
+                      .addStatement(
+                          "return $L",
+                          instance.type().getTypeName().equals(instanceTypeName)
+                              ? instance.codeBlock()
+                              : CodeBlock.of("($T) $L", instanceTypeName, instance.codeBlock()))
+                      .build())
+              .build());
+    }
+
+    /** Returns the type of the holder's field, which must be accessible from the component. */
+    private ExpressionType instanceType() {
+      XType type = binding.contributedType();
+      String requestingPackage = shardImplementation.name().packageName();
+      if (isTypeAccessibleFrom(type, requestingPackage)) {
+        return ExpressionType.create(type);
+      } else if (isDeclared(type) && isRawTypeAccessible(type, requestingPackage)) {
+        return ExpressionType.createRawType(type);
+      } else {
+        return ExpressionType.create(processingEnv.requireType(TypeName.OBJECT));
+      }
+    }
+  }
+}
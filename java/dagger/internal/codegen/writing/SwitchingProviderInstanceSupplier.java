@@ -16,8 +16,8 @@
 
 package dagger.internal.codegen.writing;
 
-import static dagger.internal.codegen.javapoet.TypeNames.DOUBLE_CHECK;
 import static dagger.internal.codegen.javapoet.TypeNames.SINGLE_CHECK;
+import static dagger.internal.codegen.writing.BindingRepresentations.scopedProviderClass;
 
 import com.squareup.javapoet.CodeBlock;
 import dagger.assisted.Assisted;
@@ -26,6 +26,7 @@ import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.binding.Binding;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.ProvisionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 import dagger.spi.model.BindingKind;
@@ -36,6 +37,7 @@ import dagger.spi.model.BindingKind;
  */
 final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSupplier {
   private final FrameworkInstanceSupplier frameworkInstanceSupplier;
+  private final CompilerOptions compilerOptions;
 
   @AssistedInject
   SwitchingProviderInstanceSupplier(
@@ -43,18 +45,33 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
       BindingGraph graph,
       ComponentImplementation componentImplementation,
       UnscopedDirectInstanceRequestRepresentationFactory
-          unscopedDirectInstanceRequestRepresentationFactory) {
+          unscopedDirectInstanceRequestRepresentationFactory,
+      CompilerOptions compilerOptions) {
+    this.compilerOptions = compilerOptions;
     ShardImplementation shardImplementation = componentImplementation.shardImplementation(binding);
-    FrameworkInstanceCreationExpression frameworkInstanceCreationExpression =
-        componentImplementation.compilerMode().isExperimentalMergedMode()
-            ? shardImplementation.getExperimentalSwitchingProviders()
-                .newFrameworkInstanceCreationExpression(
-                    binding, unscopedDirectInstanceRequestRepresentationFactory.create(binding))
-            : shardImplementation.getSwitchingProviders().newFrameworkInstanceCreationExpression(
-                binding, unscopedDirectInstanceRequestRepresentationFactory.create(binding));
+    FrameworkInstanceCreationExpression frameworkInstanceCreationExpression;
+    if (usesScopedInstanceStore(binding, componentImplementation, compilerOptions)) {
+      // The instance is memoized by the store, so it doesn't need a scoped provider.
+      frameworkInstanceCreationExpression =
+          shardImplementation.getSwitchingProviders().newScopedInstanceCreationExpression(
+              binding, unscopedDirectInstanceRequestRepresentationFactory.create(binding));
+    } else {
+      frameworkInstanceCreationExpression =
+          scope(
+              binding,
+              componentImplementation.compilerMode().isExperimentalMergedMode()
+                  ? shardImplementation.getExperimentalSwitchingProviders()
+                      .newFrameworkInstanceCreationExpression(
+                          binding,
+                          unscopedDirectInstanceRequestRepresentationFactory.create(binding))
+                  : shardImplementation.getSwitchingProviders()
+                      .newFrameworkInstanceCreationExpression(
+                          binding,
+                          unscopedDirectInstanceRequestRepresentationFactory.create(binding)));
+    }
     this.frameworkInstanceSupplier =
         new FrameworkFieldInitializer(
-            componentImplementation, binding, scope(binding, frameworkInstanceCreationExpression));
+            componentImplementation, binding, frameworkInstanceCreationExpression);
   }
 
   @Override
@@ -62,6 +79,20 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
     return frameworkInstanceSupplier.memberSelect();
   }
 
+  /**
+   * Returns {@code true} if the binding's instance is memoized in the {@code ScopedInstanceStore}
+   * of its switching provider class rather than wrapped in a scoped provider of its own.
+   */
+  private static boolean usesScopedInstanceStore(
+      Binding binding,
+      ComponentImplementation componentImplementation,
+      CompilerOptions compilerOptions) {
+    return compilerOptions.compactScopedInstances()
+        && !componentImplementation.compilerMode().isExperimentalMergedMode()
+        && binding.scope().isPresent()
+        && !binding.scope().get().isReusable();
+  }
+
   private FrameworkInstanceCreationExpression scope(
       Binding binding, FrameworkInstanceCreationExpression unscoped) {
     // Caching assisted factory provider, so that there won't be new factory created for each
@@ -75,7 +106,7 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
             binding.scope().isPresent()
                 ? (binding.scope().get().isReusable()
                     ? SINGLE_CHECK
-                    : DOUBLE_CHECK)
+                    : scopedProviderClass(compilerOptions))
                 : SINGLE_CHECK,
             unscoped.creationExpression());
   }
@@ -16,6 +16,8 @@
 
 package dagger.internal.codegen.writing;
 
+import static com.google.common.base.CaseFormat.LOWER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.getLast;
 import static com.google.common.collect.Iterables.getOnlyElement;
@@ -24,6 +26,7 @@ import static com.squareup.javapoet.TypeSpec.classBuilder;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.suppressWarnings;
+import static dagger.internal.codegen.javapoet.TypeNames.SCOPED_INSTANCE_STORE;
 import static dagger.internal.codegen.javapoet.TypeNames.providerOf;
 import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
@@ -31,15 +34,20 @@ import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import dagger.internal.codegen.binding.ContributionBinding;
+import dagger.internal.codegen.binding.KeyVariableNamer;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.CodeBlocks;
+import dagger.internal.codegen.writing.ComponentImplementation.FieldSpecKind;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 import dagger.spi.model.BindingKind;
@@ -47,6 +55,7 @@ import dagger.spi.model.Key;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
 
 /**
@@ -56,30 +65,44 @@ import java.util.TreeMap;
  * that can provide instances for all types by switching on an id.
  */
 final class SwitchingProviders {
-  /**
-   * Each switch size is fixed at 100 cases each and put in its own method. This is to limit the
-   * size of the methods so that we don't reach the "huge" method size limit for Android that will
-   * prevent it from being AOT compiled in some versions of Android (b/77652521). This generally
-   * starts to happen around 1500 cases, but we are choosing 100 to be safe.
-   */
-  // TODO(bcorso): Include a proguard_spec in the Dagger library to prevent inlining these methods?
-  // TODO(ronshapiro): Consider making this configurable via a flag.
-  private static final int MAX_CASES_PER_SWITCH = 100;
-
-  private static final long MAX_CASES_PER_CLASS = MAX_CASES_PER_SWITCH * MAX_CASES_PER_SWITCH;
   private static final TypeVariableName T = TypeVariableName.get("T");
 
   /**
    * Maps a {@link Key} to an instance of a {@link SwitchingProviderBuilder}. Each group of {@code
-   * MAX_CASES_PER_CLASS} keys will share the same instance.
+   * maxCasesPerClass} keys will share the same instance.
    */
   private final Map<Key, SwitchingProviderBuilder> switchingProviderBuilders =
       new LinkedHashMap<>();
 
   private final ShardImplementation shardImplementation;
 
-  SwitchingProviders(ShardImplementation shardImplementation) {
+  /**
+   * Each switch is limited to {@link CompilerOptions#switchingProviderCasesPerSwitch} cases (100 by
+   * default) and put in its own method. This is to limit the size of the methods so that we don't
+   * reach the "huge" method size limit for Android that will prevent it from being AOT compiled in
+   * some versions of Android (b/77652521). This generally starts to happen around 1500 cases, but
+   * 100 is chosen to be safe. On the server JVM, a larger switch trades a level of dispatch for
+   * methods that are closer to the JIT's own huge method limit.
+   */
+  // TODO(bcorso): Include a proguard_spec in the Dagger library to prevent inlining these methods?
+  private final int maxCasesPerSwitch;
+
+  private final long maxCasesPerClass;
+
+  /**
+   * The keys of the bindings that get a provider class of their own, so that calling {@code get()}
+   * on their providers doesn't go through a switch. See {@link
+   * CompilerOptions#hotSwitchingProviderKeys}.
+   */
+  private final ImmutableSet<String> hotKeys;
+
+  private final Map<Key, ClassName> hotProviderTypes = new HashMap<>();
+
+  SwitchingProviders(ShardImplementation shardImplementation, CompilerOptions compilerOptions) {
     this.shardImplementation = checkNotNull(shardImplementation);
+    this.maxCasesPerSwitch = compilerOptions.switchingProviderCasesPerSwitch();
+    this.maxCasesPerClass = (long) maxCasesPerSwitch * maxCasesPerSwitch;
+    this.hotKeys = compilerOptions.hotSwitchingProviderKeys();
   }
 
   /** Returns the framework instance creation expression for an inner switching provider class. */
@@ -88,6 +111,9 @@ final class SwitchingProviders {
     return new FrameworkInstanceCreationExpression() {
       @Override
       public CodeBlock creationExpression() {
+        if (hotKeys.contains(binding.key().toString())) {
+          return getHotProviderCodeBlock(binding, unscopedInstanceRequestRepresentation);
+        }
         return switchingProviderBuilders
             .computeIfAbsent(binding.key(), key -> getSwitchingProviderBuilder())
             .getNewInstanceCodeBlock(binding, unscopedInstanceRequestRepresentation);
@@ -95,8 +121,99 @@ final class SwitchingProviders {
     };
   }
 
+  /**
+   * Returns the framework instance creation expression for a scoped binding whose instance is
+   * memoized in the {@code ScopedInstanceStore} of its switching provider class, rather than in a
+   * {@code DoubleCheck} of its own.
+   */
+  FrameworkInstanceCreationExpression newScopedInstanceCreationExpression(
+      ContributionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    return new FrameworkInstanceCreationExpression() {
+      @Override
+      public CodeBlock creationExpression() {
+        return switchingProviderBuilders
+            .computeIfAbsent(binding.key(), key -> getSwitchingProviderBuilder())
+            .getScopedInstanceProviderCodeBlock(binding, unscopedInstanceRequestRepresentation);
+      }
+    };
+  }
+
+  /**
+   * Returns the statements that create the {@code ScopedInstanceStore} of each switching provider
+   * class that has one. These must run before any framework field of the shard is initialized.
+   */
+  CodeBlock scopedInstanceStoreInitializations() {
+    return CodeBlocks.concat(
+        ImmutableSet.copyOf(switchingProviderBuilders.values()).stream()
+            .map(SwitchingProviderBuilder::scopedInstanceStoreInitialization)
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(toImmutableList()));
+  }
+
+  /**
+   * Returns a new instance of the provider class of the given hot binding, which is just like a
+   * switching provider class with a single case and no switch.
+   */
+  private CodeBlock getHotProviderCodeBlock(
+      ContributionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+    ClassName hotProviderType = hotProviderTypes.get(binding.key());
+    if (hotProviderType == null) {
+      hotProviderType =
+          shardImplementation
+              .name()
+              .nestedClass(
+                  shardImplementation.getUniqueClassName(
+                      LOWER_CAMEL.to(UPPER_CAMEL, KeyVariableNamer.name(binding.key()))
+                          + "Provider"));
+      hotProviderTypes.put(binding.key(), hotProviderType);
+      // TODO(bcorso): Try to delay calling getDependencyExpression() until we are writing out the
+      // provider class, as is done for the switch cases.
+      CodeBlock instanceCodeBlock =
+          unscopedInstanceRequestRepresentation
+              .getDependencyExpression(hotProviderType)
+              .box()
+              .codeBlock();
+      TypeSpec.Builder hotProvider =
+          classBuilder(hotProviderType)
+              .addModifiers(PRIVATE, FINAL, STATIC)
+              .addTypeVariable(T)
+              .addSuperinterface(providerOf(T))
+              .addMethod(
+                  methodBuilder("get")
+                      .addModifiers(PUBLIC)
+                      .addAnnotation(suppressWarnings(UNCHECKED))
+                      .addAnnotation(Override.class)
+                      .returns(T)
+                      .addStatement("return ($T) $L", T, instanceCodeBlock)
+                      .build());
+      MethodSpec.Builder constructor = MethodSpec.constructorBuilder();
+      shardImplementation
+          .componentFieldsByImplementation()
+          .values()
+          .forEach(
+              field -> {
+                hotProvider.addField(field);
+                constructor.addParameter(field.type, field.name);
+                constructor.addStatement("this.$1N = $1N", field);
+              });
+      TypeSpec hotProviderSpec = hotProvider.addMethod(constructor.build()).build();
+      shardImplementation.addTypeSupplier(() -> hotProviderSpec);
+    }
+    return CodeBlock.of(
+        "new $T<$L>($L)",
+        hotProviderType,
+        // See getNewInstanceCodeBlock() for when the type parameter is needed.
+        (binding.scope().isPresent() || binding.kind().equals(BindingKind.ASSISTED_FACTORY))
+            ? CodeBlock.of("$T", shardImplementation.accessibleTypeName(binding.contributedType()))
+            : "",
+        shardImplementation.componentFieldsByImplementation().values().stream()
+            .map(field -> CodeBlock.of("$N", field))
+            .collect(CodeBlocks.toParametersCodeBlock()));
+  }
+
   private SwitchingProviderBuilder getSwitchingProviderBuilder() {
-    if (switchingProviderBuilders.size() % MAX_CASES_PER_CLASS == 0) {
+    if (switchingProviderBuilders.size() % maxCasesPerClass == 0) {
       String name = shardImplementation.getUniqueClassName("SwitchingProvider");
       SwitchingProviderBuilder switchingProviderBuilder =
           new SwitchingProviderBuilder(shardImplementation.name().nestedClass(name));
@@ -113,6 +230,7 @@ final class SwitchingProviders {
     private final Map<Integer, CodeBlock> switchCases = new TreeMap<>();
     private final Map<Key, Integer> switchIds = new HashMap<>();
     private final ClassName switchingProviderType;
+    private Optional<FieldSpec> scopedInstanceStoreField = Optional.empty();
 
     SwitchingProviderBuilder(ClassName switchingProviderType) {
       this.switchingProviderType = checkNotNull(switchingProviderType);
@@ -120,13 +238,7 @@ final class SwitchingProviders {
 
     private CodeBlock getNewInstanceCodeBlock(
         ContributionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
-      Key key = binding.key();
-      if (!switchIds.containsKey(key)) {
-        int switchId = switchIds.size();
-        switchIds.put(key, switchId);
-        switchCases.put(
-            switchId, createSwitchCaseCodeBlock(key, unscopedInstanceRequestRepresentation));
-      }
+      int switchId = getSwitchId(binding.key(), unscopedInstanceRequestRepresentation);
       return CodeBlock.of(
           "new $T<$L>($L, $L)",
           switchingProviderType,
@@ -140,7 +252,79 @@ final class SwitchingProviders {
           shardImplementation.componentFieldsByImplementation().values().stream()
               .map(field -> CodeBlock.of("$N", field))
               .collect(CodeBlocks.toParametersCodeBlock()),
-          switchIds.get(key));
+          switchId);
+    }
+
+    private CodeBlock getScopedInstanceProviderCodeBlock(
+        ContributionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+      int switchId = getSwitchId(binding.key(), unscopedInstanceRequestRepresentation);
+      if (!scopedInstanceStoreField.isPresent()) {
+        FieldSpec field =
+            FieldSpec.builder(
+                    SCOPED_INSTANCE_STORE,
+                    shardImplementation.getUniqueFieldName(
+                        "scopedInstances" + switchingProviderType.simpleName()),
+                    PRIVATE,
+                    FINAL)
+                .build();
+        shardImplementation.addField(FieldSpecKind.FRAMEWORK_FIELD, field);
+        scopedInstanceStoreField = Optional.of(field);
+      }
+      // The store is indexed by switch id, so the instance is created by the switch case below.
+      return CodeBlock.of(
+          "$N.<$T>provider($L)",
+          scopedInstanceStoreField.get(),
+          shardImplementation.accessibleTypeName(binding.contributedType()),
+          switchId);
+    }
+
+    private int getSwitchId(Key key, RequestRepresentation unscopedInstanceRequestRepresentation) {
+      if (!switchIds.containsKey(key)) {
+        int switchId = switchIds.size();
+        switchIds.put(key, switchId);
+        switchCases.put(
+            switchId, createSwitchCaseCodeBlock(key, unscopedInstanceRequestRepresentation));
+      }
+      return switchIds.get(key);
+    }
+
+    private Optional<CodeBlock> scopedInstanceStoreInitialization() {
+      if (!scopedInstanceStoreField.isPresent()) {
+        return Optional.empty();
+      }
+      // The store has a slot for every switch id, including those of unscoped bindings, so that
+      // ids don't need to be remapped; an unused slot costs one reference.
+      ImmutableList<CodeBlock> switchingProviderArguments =
+          ImmutableList.<CodeBlock>builder()
+              .addAll(
+                  shardImplementation.componentFieldsByImplementation().values().stream()
+                      .map(field -> CodeBlock.of("$N", field))
+                      .collect(toImmutableList()))
+              .add(CodeBlock.of("id"))
+              .build();
+      TypeSpec factory =
+          TypeSpec.anonymousClassBuilder("")
+              .addSuperinterface(SCOPED_INSTANCE_STORE.nestedClass("Factory"))
+              .addMethod(
+                  methodBuilder("create")
+                      .addAnnotation(Override.class)
+                      .addModifiers(PUBLIC)
+                      .returns(TypeName.OBJECT)
+                      .addParameter(TypeName.INT, "id")
+                      .addStatement(
+                          "return new $T<$T>($L).get()",
+                          switchingProviderType,
+                          TypeName.OBJECT,
+                          CodeBlocks.makeParametersCodeBlock(switchingProviderArguments))
+                      .build())
+              .build();
+      return Optional.of(
+          CodeBlock.of(
+              "this.$N = new $T($L, $L);\n",
+              scopedInstanceStoreField.get(),
+              SCOPED_INSTANCE_STORE,
+              switchIds.size(),
+              factory));
     }
 
     private CodeBlock createSwitchCaseCodeBlock(
@@ -189,7 +373,7 @@ final class SwitchingProviders {
     private ImmutableList<MethodSpec> getMethods() {
       ImmutableList<CodeBlock> switchCodeBlockPartitions = switchCodeBlockPartitions();
       if (switchCodeBlockPartitions.size() == 1) {
-        // There are less than MAX_CASES_PER_SWITCH cases, so no need for extra get methods.
+        // There are less than maxCasesPerSwitch cases, so no need for extra get methods.
         return ImmutableList.of(
             methodBuilder("get")
                 .addModifiers(PUBLIC)
@@ -206,7 +390,7 @@ final class SwitchingProviders {
               .addModifiers(PUBLIC)
               .addAnnotation(Override.class)
               .returns(T)
-              .beginControlFlow("switch (id / $L)", MAX_CASES_PER_SWITCH);
+              .beginControlFlow("switch (id / $L)", maxCasesPerSwitch);
 
       ImmutableList.Builder<MethodSpec> getMethods = ImmutableList.builder();
       for (int i = 0; i < switchCodeBlockPartitions.size(); i++) {
@@ -227,7 +411,7 @@ final class SwitchingProviders {
     }
 
     private ImmutableList<CodeBlock> switchCodeBlockPartitions() {
-      return Lists.partition(ImmutableList.copyOf(switchCases.values()), MAX_CASES_PER_SWITCH)
+      return Lists.partition(ImmutableList.copyOf(switchCases.values()), maxCasesPerSwitch)
           .stream()
           .map(
               partitionCases ->
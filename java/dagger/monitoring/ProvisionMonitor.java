@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.monitoring;
+
+/**
+ * A hook for monitoring the provisions of a component, analogous to {@code
+ * dagger.producers.monitoring.ProducerMonitor} for producers.
+ *
+ * <p>To install a {@code ProvisionMonitor}, compile the component with {@code
+ * -Adagger.monitorProvisions=enabled} and bind {@code ProvisionMonitor} in it, e.g. with a
+ * {@link dagger.BindsInstance @BindsInstance} parameter or a scoped
+ * {@link dagger.Provides @Provides} method. The component then reports the creation of each
+ * instance of an {@link javax.inject.Inject @Inject} or {@link dagger.Provides @Provides} binding
+ * to the monitor.
+ *
+ * <p>Bindings that the monitor itself depends on are not monitored. When the option is disabled or
+ * no {@code ProvisionMonitor} is bound, the generated code does not change.
+ *
+ * <p>The monitor is requested once per provision, so it should be bound as an instance or in a
+ * scope.
+ *
+ * <p>The binding token passed to each method identifies the binding being provisioned. It is a
+ * compile-time constant string, so the same instance is passed for every provision of a binding and
+ * it can be compared by identity.
+ *
+ * <p>Each call to {@link #provisionStarted} is followed by a call to either {@link
+ * #provisionFinished} or, if the provision threw, {@link #provisionFailed} for the same binding,
+ * so provisions started and finished on a thread are properly nested. If any of these methods
+ * throw, the exception propagates to the caller of the provision.
+ */
+public abstract class ProvisionMonitor {
+  /** Called when a provision for the given binding is about to start. */
+  public void provisionStarted(String bindingToken) {}
+
+  /** Called when a provision for the given binding has returned {@code instance}. */
+  public void provisionFinished(String bindingToken, Object instance) {}
+
+  /** Called when a provision for the given binding has thrown {@code t}. */
+  public void provisionFailed(String bindingToken, Throwable t) {}
+}
@@ -16,14 +16,14 @@
 
 package dagger.spi.model;
 
-import static com.google.common.collect.Sets.intersection;
-import static com.google.common.graph.Graphs.inducedSubgraph;
 import static com.google.common.graph.Graphs.reachableNodes;
 import static com.google.common.graph.Graphs.transpose;
 import static dagger.internal.codegen.extension.DaggerStreams.instancesOf;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableMap;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSetMultimap;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.graph.EndpointPair;
@@ -33,6 +33,7 @@ import com.google.common.graph.Network;
 import com.google.common.graph.NetworkBuilder;
 import dagger.Module;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -136,9 +137,7 @@ public abstract class BindingGraph {
 
   /** Returns the bindings for a key. */
   public ImmutableSet<Binding> bindings(Key key) {
-    return nodes(Binding.class).stream()
-        .filter(binding -> binding.key().equals(key))
-        .collect(toImmutableSet());
+    return bindingsByKey().get(key);
   }
 
   /** Returns the nodes that represent missing bindings. */
@@ -153,9 +152,7 @@ public abstract class BindingGraph {
 
   /** Returns the component node for a component. */
   public Optional<ComponentNode> componentNode(ComponentPath component) {
-    return componentNodes().stream()
-        .filter(node -> node.componentPath().equals(component))
-        .findFirst();
+    return Optional.ofNullable(componentNodesByPath().get(component));
   }
 
   /** Returns the component nodes for a component. */
@@ -193,9 +190,7 @@ public abstract class BindingGraph {
 
   /** Returns the dependency edges for a dependency request. */
   public ImmutableSet<DependencyEdge> dependencyEdges(DependencyRequest dependencyRequest) {
-    return dependencyEdgeStream()
-        .filter(edge -> edge.dependencyRequest().equals(dependencyRequest))
-        .collect(toImmutableSet());
+    return dependencyEdgesByRequest().get(dependencyRequest);
   }
 
   /**
@@ -232,10 +227,14 @@ public abstract class BindingGraph {
   public ImmutableSet<DependencyEdge> entryPointEdgesDependingOnBinding(
       MaybeBinding binding) {
     ImmutableNetwork<Node, DependencyEdge> dependencyGraph = dependencyGraph();
-    Network<Node, DependencyEdge> subgraphDependingOnBinding =
-        inducedSubgraph(
-            dependencyGraph, reachableNodes(transpose(dependencyGraph).asGraph(), binding));
-    return intersection(entryPointEdges(), subgraphDependingOnBinding.edges()).immutableCopy();
+    // An entry point depends on the binding iff its target does. Filtering the entry points keeps
+    // their order without building the subgraph that depends on the binding.
+    Set<Node> nodesDependingOnBinding =
+        reachableNodes(transpose(dependencyGraph).asGraph(), binding);
+    return entryPointEdges().stream()
+        .filter(
+            edge -> nodesDependingOnBinding.contains(dependencyGraph.incidentNodes(edge).target()))
+        .collect(toImmutableSet());
   }
 
   /** Returns the bindings that directly request a given binding as a dependency. */
@@ -269,21 +268,23 @@ public abstract class BindingGraph {
         .collect(toImmutableSet());
   }
 
-  /** Returns a subnetwork that contains all nodes but only {@link DependencyEdge}s. */
-  // TODO(dpb): Make public. Cache.
-  private ImmutableNetwork<Node, DependencyEdge> dependencyGraph() {
+  /**
+   * Returns a subnetwork that contains all nodes but only {@link DependencyEdge}s. Immutable
+   * implementations should memoize this.
+   */
+  // TODO(dpb): Make public.
+  protected ImmutableNetwork<Node, DependencyEdge> dependencyGraph() {
+    ImmutableSet<DependencyEdge> dependencyEdges = dependencyEdges();
     MutableNetwork<Node, DependencyEdge> dependencyGraph =
         NetworkBuilder.from(network())
             .expectedNodeCount(network().nodes().size())
-            .expectedEdgeCount((int) dependencyEdgeStream().count())
+            .expectedEdgeCount(dependencyEdges.size())
             .build();
     network().nodes().forEach(dependencyGraph::addNode); // include disconnected nodes
-    dependencyEdgeStream()
-        .forEach(
-            edge -> {
-              EndpointPair<Node> endpoints = network().incidentNodes(edge);
-              dependencyGraph.addEdge(endpoints.source(), endpoints.target(), edge);
-            });
+    for (DependencyEdge edge : dependencyEdges) {
+      EndpointPair<Node> endpoints = network().incidentNodes(edge);
+      dependencyGraph.addEdge(endpoints.source(), endpoints.target(), edge);
+    }
     return ImmutableNetwork.copyOf(dependencyGraph);
   }
 
@@ -304,6 +305,32 @@ public abstract class BindingGraph {
                 node -> node));
   }
 
+  /**
+   * Returns an index of the {@linkplain #bindings() bindings} by key. Immutable implementations
+   * should memoize this.
+   */
+  protected ImmutableSetMultimap<Key, Binding> bindingsByKey() {
+    return bindings().stream().collect(toImmutableSetMultimap(Binding::key, binding -> binding));
+  }
+
+  /**
+   * Returns an index of the {@linkplain #componentNodes() component nodes} by component path.
+   * Immutable implementations should memoize this.
+   */
+  protected ImmutableMap<ComponentPath, ComponentNode> componentNodesByPath() {
+    return componentNodes().stream()
+        .collect(toImmutableMap(ComponentNode::componentPath, node -> node));
+  }
+
+  /**
+   * Returns an index of the {@linkplain #dependencyEdges() dependency edges} by dependency
+   * request. Immutable implementations should memoize this.
+   */
+  protected ImmutableSetMultimap<DependencyRequest, DependencyEdge> dependencyEdgesByRequest() {
+    return dependencyEdges().stream()
+        .collect(toImmutableSetMultimap(DependencyEdge::dependencyRequest, edge -> edge));
+  }
+
   private Stream<DependencyEdge> dependencyEdgeStream() {
     return network().edges().stream().flatMap(instancesOf(DependencyEdge.class));
   }
@@ -74,9 +74,8 @@ public abstract class Key {
     return toBuilder().multibindingContributionIdentifier(Optional.empty()).build();
   }
 
-  // The main hashCode/equality bottleneck is in MoreTypes.equivalence(). It's possible that we can
-  // avoid this by tuning that method. Perhaps we can also avoid the issue entirely by interning all
-  // Keys
+  // The main hashCode/equality bottleneck is in MoreTypes.equivalence(). Within the processor,
+  // KeyFactory interns keys so that equal keys are usually the same instance.
   @Memoized
   @Override
   public abstract int hashCode();
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import dagger.BindsInstance;
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.monitoring.ProvisionMonitor;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ProvisionMonitor}. */
+@RunWith(JUnit4.class)
+public final class ProvisionMonitorTest {
+  static final class Leaf {
+    @Inject
+    Leaf() {}
+  }
+
+  @Singleton
+  static final class ScopedRoot {
+    @Inject
+    ScopedRoot(Leaf leaf, String string) {}
+  }
+
+  static final class Failing {
+    @Inject
+    Failing(Leaf leaf) {
+      throw new IllegalStateException("failed");
+    }
+  }
+
+  @Module
+  static final class StringModule {
+    @Provides
+    static String string() {
+      return "string";
+    }
+  }
+
+  @Singleton
+  @Component(modules = StringModule.class)
+  interface TestComponent {
+    ScopedRoot scopedRoot();
+
+    Provider<Leaf> leafProvider();
+
+    Failing failing();
+
+    Provider<Failing> failingProvider();
+
+    @Component.Factory
+    interface Factory {
+      TestComponent create(@BindsInstance ProvisionMonitor monitor);
+    }
+  }
+
+  @Component
+  interface UnmonitoredComponent {
+    Leaf leaf();
+  }
+
+  private static final class RecordingMonitor extends ProvisionMonitor {
+    final List<String> events = new ArrayList<>();
+
+    @Override
+    public void provisionStarted(String bindingToken) {
+      events.add("started " + bindingToken);
+    }
+
+    @Override
+    public void provisionFinished(String bindingToken, Object instance) {
+      events.add("finished " + bindingToken);
+    }
+
+    @Override
+    public void provisionFailed(String bindingToken, Throwable t) {
+      events.add("failed " + bindingToken + ": " + t.getMessage());
+    }
+  }
+
+  private static final String LEAF = Leaf.class.getCanonicalName();
+  private static final String SCOPED_ROOT = ScopedRoot.class.getCanonicalName();
+  private static final String STRING = String.class.getCanonicalName();
+  private static final String FAILING = Failing.class.getCanonicalName();
+
+  @Test
+  public void provisionsAreReported() {
+    RecordingMonitor monitor = new RecordingMonitor();
+    TestComponent component = DaggerProvisionMonitorTest_TestComponent.factory().create(monitor);
+
+    component.scopedRoot();
+    assertThat(monitor.events)
+        .containsExactly(
+            "started " + SCOPED_ROOT,
+            "started " + LEAF,
+            "finished " + LEAF,
+            "started " + STRING,
+            "finished " + STRING,
+            "finished " + SCOPED_ROOT)
+        .inOrder();
+
+    // Scoped bindings are only provisioned once.
+    monitor.events.clear();
+    component.scopedRoot();
+    assertThat(monitor.events).isEmpty();
+
+    component.leafProvider().get();
+    assertThat(monitor.events).containsExactly("started " + LEAF, "finished " + LEAF).inOrder();
+  }
+
+  @Test
+  public void failedProvisionsAreReported() {
+    RecordingMonitor monitor = new RecordingMonitor();
+    TestComponent component = DaggerProvisionMonitorTest_TestComponent.factory().create(monitor);
+
+    assertThrows(IllegalStateException.class, component::failing);
+    assertThat(monitor.events)
+        .containsExactly(
+            "started " + FAILING,
+            "started " + LEAF,
+            "finished " + LEAF,
+            "failed " + FAILING + ": failed")
+        .inOrder();
+
+    monitor.events.clear();
+    Provider<Failing> failingProvider = component.failingProvider();
+    assertThrows(IllegalStateException.class, failingProvider::get);
+    assertThat(monitor.events)
+        .containsExactly(
+            "started " + FAILING,
+            "started " + LEAF,
+            "finished " + LEAF,
+            "failed " + FAILING + ": failed")
+        .inOrder();
+  }
+
+  @Test
+  public void noMonitorBound() {
+    assertThat(DaggerProvisionMonitorTest_UnmonitoredComponent.create().leaf()).isNotNull();
+  }
+}
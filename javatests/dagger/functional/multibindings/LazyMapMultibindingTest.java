@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.multibindings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import dagger.Binds;
+import dagger.Component;
+import dagger.Lazy;
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.IntoMap;
+import dagger.multibindings.StringKey;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for requests of {@code Map<K, Lazy<V>>} multibindings. */
+@RunWith(JUnit4.class)
+public final class LazyMapMultibindingTest {
+  private static int oneCount;
+  private static int twoCount;
+
+  @Module
+  interface TestModule {
+    @Provides
+    @IntoMap
+    @StringKey("one")
+    static Object one() {
+      oneCount++;
+      return "one" + oneCount;
+    }
+
+    @Provides
+    @IntoMap
+    @StringKey("two")
+    static Object two() {
+      twoCount++;
+      return "two" + twoCount;
+    }
+
+    @Binds
+    @IntoMap
+    @StringKey("three")
+    Object three(Three three);
+  }
+
+  @Singleton
+  static final class Three {
+    @Inject
+    Three() {}
+  }
+
+  static final class UsesLazyMap {
+    final Map<String, Lazy<Object>> map;
+
+    @Inject
+    UsesLazyMap(Map<String, Lazy<Object>> map) {
+      this.map = map;
+    }
+  }
+
+  @Singleton
+  @Component(modules = TestModule.class)
+  interface TestComponent {
+    Map<String, Lazy<Object>> lazyMap();
+
+    Provider<Map<String, Lazy<Object>>> lazyMapProvider();
+
+    Map<String, Provider<Object>> providerMap();
+
+    UsesLazyMap usesLazyMap();
+  }
+
+  private TestComponent component;
+
+  @Before
+  public void setUp() {
+    oneCount = 0;
+    twoCount = 0;
+    component = DaggerLazyMapMultibindingTest_TestComponent.create();
+  }
+
+  @Test
+  public void requestingMapDoesNotCreateValues() {
+    Map<String, Lazy<Object>> map = component.lazyMap();
+    assertThat(map.keySet()).containsExactly("one", "two", "three").inOrder();
+    assertThat(oneCount).isEqualTo(0);
+    assertThat(twoCount).isEqualTo(0);
+  }
+
+  @Test
+  public void valuesAreMemoizedPerMap() {
+    Map<String, Lazy<Object>> map = component.lazyMap();
+    assertThat(map.get("one").get()).isEqualTo("one1");
+    assertThat(map.get("one").get()).isEqualTo("one1");
+    assertThat(oneCount).isEqualTo(1);
+    assertThat(twoCount).isEqualTo(0);
+
+    assertThat(component.lazyMap().get("one").get()).isEqualTo("one2");
+  }
+
+  @Test
+  public void provider() {
+    Provider<Map<String, Lazy<Object>>> provider = component.lazyMapProvider();
+    assertThat(provider.get().get("two").get()).isEqualTo("two1");
+    assertThat(provider.get().get("two").get()).isEqualTo("two2");
+    assertThat(oneCount).isEqualTo(0);
+  }
+
+  @Test
+  public void scopedValues() {
+    assertThat(component.lazyMap().get("three").get())
+        .isSameInstanceAs(component.providerMap().get("three").get());
+  }
+
+  @Test
+  public void injected() {
+    Map<String, Lazy<Object>> map = component.usesLazyMap().map;
+    assertThat(map).hasSize(3);
+    assertThat(map.get("two").get()).isEqualTo("two1");
+    assertThat(oneCount).isEqualTo(0);
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.staticsingletons;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import dagger.Component;
+import dagger.Lazy;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for components listed in {@code -Adagger.staticSingletonHolderComponents}. */
+@RunWith(JUnit4.class)
+public final class StaticSingletonHoldersTest {
+  @Singleton
+  static final class Scoped {
+    @Inject
+    Scoped() {}
+  }
+
+  @Singleton
+  static final class ScopedWithDependency {
+    final Scoped scoped;
+    final Provider<Unscoped> unscopedProvider;
+
+    @Inject
+    ScopedWithDependency(Scoped scoped, Provider<Unscoped> unscopedProvider) {
+      this.scoped = scoped;
+      this.unscopedProvider = unscopedProvider;
+    }
+  }
+
+  static final class Unscoped {
+    final Scoped scoped;
+
+    @Inject
+    Unscoped(Scoped scoped) {
+      this.scoped = scoped;
+    }
+  }
+
+  @Singleton
+  @Component
+  interface SingletonComponent {
+    Scoped scoped();
+
+    Provider<Scoped> scopedProvider();
+
+    Lazy<Scoped> scopedLazy();
+
+    ScopedWithDependency scopedWithDependency();
+
+    Unscoped unscoped();
+  }
+
+  @Singleton
+  @Component
+  interface UnlistedComponent {
+    Scoped scoped();
+  }
+
+  @Singleton
+  static final class FailingScoped {
+    static final RuntimeException FAILURE = new UnsupportedOperationException("provision failed");
+    static int attempts;
+
+    @Inject
+    FailingScoped() {
+      if (attempts++ == 0) {
+        throw FAILURE;
+      }
+    }
+  }
+
+  @Singleton
+  @Component
+  interface FailingComponent {
+    FailingScoped failingScoped();
+  }
+
+  @Test
+  public void scopedBindings_areStaticSingletons() {
+    SingletonComponent component =
+        DaggerStaticSingletonHoldersTest_SingletonComponent.create();
+
+    Scoped scoped = component.scoped();
+    assertThat(component.scopedProvider().get()).isSameInstanceAs(scoped);
+    assertThat(component.scopedLazy().get()).isSameInstanceAs(scoped);
+    assertThat(component.scopedWithDependency().scoped).isSameInstanceAs(scoped);
+    assertThat(component.scopedWithDependency())
+        .isSameInstanceAs(component.scopedWithDependency());
+    assertThat(component.scopedWithDependency().unscopedProvider.get().scoped)
+        .isSameInstanceAs(scoped);
+    assertThat(component.unscoped()).isNotSameInstanceAs(component.unscoped());
+  }
+
+  @Test
+  public void scopedBindings_areSharedByAllInstances() {
+    SingletonComponent component1 =
+        DaggerStaticSingletonHoldersTest_SingletonComponent.create();
+    SingletonComponent component2 =
+        DaggerStaticSingletonHoldersTest_SingletonComponent.create();
+
+    assertThat(component2.scoped()).isSameInstanceAs(component1.scoped());
+    assertThat(component2.scopedWithDependency())
+        .isSameInstanceAs(component1.scopedWithDependency());
+  }
+
+  @Test
+  public void failingProvision_isRetried() {
+    FailingComponent component = DaggerStaticSingletonHoldersTest_FailingComponent.create();
+
+    try {
+      component.failingScoped();
+      fail();
+    } catch (UnsupportedOperationException expected) {
+      assertThat(expected).isSameInstanceAs(FailingScoped.FAILURE);
+    }
+    FailingScoped failingScoped = component.failingScoped();
+    assertThat(component.failingScoped()).isSameInstanceAs(failingScoped);
+    assertThat(FailingScoped.attempts).isEqualTo(2);
+  }
+
+  @Test
+  public void unlistedComponent_isUnaffected() {
+    UnlistedComponent component1 = DaggerStaticSingletonHoldersTest_UnlistedComponent.create();
+    UnlistedComponent component2 = DaggerStaticSingletonHoldersTest_UnlistedComponent.create();
+
+    assertThat(component1.scoped()).isSameInstanceAs(component1.scoped());
+    assertThat(component1.scoped()).isNotSameInstanceAs(component2.scoped());
+  }
+}
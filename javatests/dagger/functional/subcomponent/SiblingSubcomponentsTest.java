@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.subcomponent;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+
+import dagger.BindsOptionalOf;
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import dagger.multibindings.IntoSet;
+import java.util.Optional;
+import java.util.Set;
+import javax.inject.Inject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests that sibling subcomponents which inherit the same bindings from their parent each see
+ * their own local contributions, whatever order they are resolved in.
+ */
+@RunWith(JUnit4.class)
+public final class SiblingSubcomponentsTest {
+  static final class UsesContributions {
+    final Set<String> strings;
+    final Optional<Integer> number;
+
+    @Inject
+    UsesContributions(Set<String> strings, Optional<Integer> number) {
+      this.strings = strings;
+      this.number = number;
+    }
+  }
+
+  static final class UsesContributionsIndirectly {
+    final UsesContributions usesContributions;
+
+    @Inject
+    UsesContributionsIndirectly(UsesContributions usesContributions) {
+      this.usesContributions = usesContributions;
+    }
+  }
+
+  @Module
+  abstract static class ParentModule {
+    @Provides
+    @IntoSet
+    static String parentString() {
+      return "parent";
+    }
+
+    @BindsOptionalOf
+    abstract Integer optionalNumber();
+  }
+
+  @Module
+  static final class ContributingChildModule {
+    @Provides
+    @IntoSet
+    static String childString() {
+      return "child";
+    }
+  }
+
+  @Module
+  static final class NumberChildModule {
+    @Provides
+    static Integer number() {
+      return 42;
+    }
+  }
+
+  interface Child {
+    UsesContributionsIndirectly usesContributionsIndirectly();
+  }
+
+  @Subcomponent
+  interface FirstPlainChild extends Child {}
+
+  @Subcomponent(modules = ContributingChildModule.class)
+  interface ContributingChild extends Child {}
+
+  @Subcomponent
+  interface SecondPlainChild extends Child {}
+
+  @Subcomponent(modules = NumberChildModule.class)
+  interface NumberChild extends Child {}
+
+  @Subcomponent
+  interface ThirdPlainChild extends Child {}
+
+  @Component(modules = ParentModule.class)
+  interface ParentComponent {
+    UsesContributionsIndirectly usesContributionsIndirectly();
+
+    FirstPlainChild firstPlainChild();
+
+    ContributingChild contributingChild();
+
+    SecondPlainChild secondPlainChild();
+
+    NumberChild numberChild();
+
+    ThirdPlainChild thirdPlainChild();
+  }
+
+  private final ParentComponent parent = DaggerSiblingSubcomponentsTest_ParentComponent.create();
+
+  @Test
+  public void parent() {
+    assertContributions(parent.usesContributionsIndirectly(), "parent");
+  }
+
+  @Test
+  public void childrenWithoutLocalBindings_inheritParentBindings() {
+    assertContributions(parent.firstPlainChild().usesContributionsIndirectly(), "parent");
+    assertContributions(parent.secondPlainChild().usesContributionsIndirectly(), "parent");
+    assertContributions(parent.thirdPlainChild().usesContributionsIndirectly(), "parent");
+  }
+
+  @Test
+  public void childWithMultibindingContribution_seesLocalContribution() {
+    assertContributions(
+        parent.contributingChild().usesContributionsIndirectly(), "parent", "child");
+  }
+
+  @Test
+  public void childWithOptionalBinding_seesLocalBinding() {
+    UsesContributions usesContributions =
+        parent.numberChild().usesContributionsIndirectly().usesContributions;
+    assertThat(usesContributions.strings).containsExactly("parent");
+    assertThat(usesContributions.number).hasValue(42);
+  }
+
+  private static void assertContributions(
+      UsesContributionsIndirectly usesContributionsIndirectly, String... strings) {
+    UsesContributions usesContributions = usesContributionsIndirectly.usesContributions;
+    assertThat(usesContributions.strings).containsExactlyElementsIn(strings);
+    assertThat(usesContributions.number).isEmpty();
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.warmup;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import dagger.Component;
+import dagger.ComponentWarmer;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Scope;
+import javax.inject.Singleton;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ComponentWarmer}. */
+@RunWith(JUnit4.class)
+public final class ComponentWarmerTest {
+  /** The classes of the scoped bindings in the order in which they were created. */
+  private static final List<Class<?>> created = new CopyOnWriteArrayList<>();
+
+  @Scope
+  @interface ChildScope {}
+
+  @Singleton
+  static final class Leaf {
+    @Inject
+    Leaf() {
+      created.add(Leaf.class);
+    }
+  }
+
+  @Singleton
+  static final class OtherLeaf {
+    @Inject
+    OtherLeaf() {
+      created.add(OtherLeaf.class);
+    }
+  }
+
+  static final class Unscoped {
+    @Inject
+    Unscoped(Leaf leaf) {}
+  }
+
+  @Singleton
+  static final class Root {
+    @Inject
+    Root(Unscoped unscoped, OtherLeaf otherLeaf) {
+      created.add(Root.class);
+    }
+  }
+
+  @Singleton
+  static final class CycleA {
+    @Inject
+    CycleA(Provider<CycleB> cycleB) {
+      created.add(CycleA.class);
+    }
+  }
+
+  @Singleton
+  static final class CycleB {
+    @Inject
+    CycleB(CycleA cycleA) {
+      created.add(CycleB.class);
+    }
+  }
+
+  @ChildScope
+  static final class ChildScoped {
+    @Inject
+    ChildScoped(Root root) {
+      created.add(ChildScoped.class);
+    }
+  }
+
+  @Module
+  static final class FailingModule {
+    @Provides
+    @Singleton
+    static CharSequence failing() {
+      throw new IllegalStateException("expected");
+    }
+  }
+
+  @Singleton
+  @Component
+  interface TestComponent {
+    Root root();
+
+    CycleB cycleB();
+
+    Leaf leaf();
+
+    Child child();
+  }
+
+  @ChildScope
+  @Subcomponent
+  interface Child {
+    ChildScoped childScoped();
+  }
+
+  @Singleton
+  @Component(modules = FailingModule.class)
+  interface FailingComponent {
+    CharSequence failing();
+  }
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    created.clear();
+  }
+
+  @Test
+  public void warmUp_createsScopedBindingsInDependencyOrder() throws Exception {
+    TestComponent component = DaggerComponentWarmerTest_TestComponent.create();
+    ComponentWarmer.warmUp(component, executor).get(10, TimeUnit.SECONDS);
+
+    assertThat(created)
+        .containsExactly(Leaf.class, OtherLeaf.class, Root.class, CycleA.class, CycleB.class);
+    assertThat(created.indexOf(Root.class)).isGreaterThan(created.indexOf(Leaf.class));
+    assertThat(created.indexOf(Root.class)).isGreaterThan(created.indexOf(OtherLeaf.class));
+    assertThat(created.indexOf(CycleB.class)).isGreaterThan(created.indexOf(CycleA.class));
+
+    // The warmed-up instances are the ones the component returns.
+    assertThat(component.root()).isSameInstanceAs(component.root());
+    assertThat(created).hasSize(5);
+  }
+
+  @Test
+  public void warmUp_subcomponent() throws Exception {
+    TestComponent component = DaggerComponentWarmerTest_TestComponent.create();
+    ComponentWarmer.warmUp(component.child(), executor).get(10, TimeUnit.SECONDS);
+
+    // Only the subcomponent's own scoped bindings are warmed up, along with what they need.
+    assertThat(created).contains(ChildScoped.class);
+    assertThat(created).doesNotContain(CycleA.class);
+  }
+
+  @Test
+  public void warmUp_failure() throws Exception {
+    FailingComponent component = DaggerComponentWarmerTest_FailingComponent.create();
+    try {
+      ComponentWarmer.warmUp(component, executor).get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected).hasCauseThat().isInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  @Test
+  public void warmUp_notWarmable() {
+    try {
+      ComponentWarmer.warmUp(new Object(), executor);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Provider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MapFactoryTest {
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void nullKey() {
+    thrown.expect(NullPointerException.class);
+    MapFactory.<String, Integer>builder(1).put(null, incrementingIntegerProvider(1));
+  }
+
+  @Test
+  public void invokesProvidersEveryTime() {
+    Factory<Map<String, Integer>> factory =
+        MapFactory.<String, Integer>builder(2)
+            .put("one", incrementingIntegerProvider(10))
+            .put("two", incrementingIntegerProvider(20))
+            .build();
+    assertThat(factory.get()).containsExactly("one", 10, "two", 20).inOrder();
+    assertThat(factory.get()).containsExactly("one", 11, "two", 21).inOrder();
+  }
+
+  @Test
+  public void iterationOrder() {
+    Factory<Map<String, Integer>> factory =
+        MapFactory.<String, Integer>builder(4)
+            .put("two", () -> 2)
+            .put("one", () -> 1)
+            .put("three", () -> 3)
+            .put("one", () -> 5)
+            .put("four", () -> 4)
+            .build();
+
+    Map<String, Integer> expectedMap = new LinkedHashMap<>();
+    expectedMap.put("two", 2);
+    expectedMap.put("one", 5);
+    expectedMap.put("three", 3);
+    expectedMap.put("four", 4);
+    Map<String, Integer> map = factory.get();
+    assertThat(map).containsExactlyEntriesIn(expectedMap).inOrder();
+    assertThat(map.keySet()).containsExactlyElementsIn(expectedMap.keySet()).inOrder();
+    assertThat(map.values()).containsExactlyElementsIn(expectedMap.values()).inOrder();
+    assertThat(map).isEqualTo(expectedMap);
+    assertThat(map.hashCode()).isEqualTo(expectedMap.hashCode());
+  }
+
+  @Test
+  public void largeMap() {
+    MapFactory.Builder<Integer, String> builder = MapFactory.builder(200);
+    for (int i = 0; i < 200; i++) {
+      String value = Integer.toString(i);
+      builder.put(i, () -> value);
+    }
+    Map<Integer, String> map = builder.build().get();
+
+    assertThat(map).hasSize(200);
+    for (int i = 0; i < 200; i++) {
+      assertThat(map).containsEntry(i, Integer.toString(i));
+    }
+    assertThat(map).doesNotContainKey(200);
+    assertThat(map.get(200)).isNull();
+  }
+
+  @Test
+  public void sharesKeysBetweenCalls() {
+    Factory<Map<String, Integer>> factory =
+        MapFactory.<String, Integer>builder(1).put("one", incrementingIntegerProvider(1)).build();
+    assertThat(factory.get().keySet()).isSameInstanceAs(factory.get().keySet());
+  }
+
+  @Test
+  public void immutable() {
+    Map<String, Integer> map =
+        MapFactory.<String, Integer>builder(1).put("one", () -> 1).build().get();
+    thrown.expect(UnsupportedOperationException.class);
+    map.put("two", 2);
+  }
+
+  @Test
+  public void putAll() {
+    MapFactory<String, Integer> first =
+        MapFactory.<String, Integer>builder(1).put("one", () -> 1).build();
+    Map<String, Integer> map =
+        MapFactory.<String, Integer>builder(2).putAll(first).put("two", () -> 2).build().get();
+    assertThat(map).containsExactly("one", 1, "two", 2).inOrder();
+  }
+
+  private enum Color {
+    RED,
+    GREEN,
+    BLUE,
+  }
+
+  private enum Shape {
+    CIRCLE,
+    SQUARE {
+      @Override
+      public String toString() {
+        return "square";
+      }
+    },
+  }
+
+  @Test
+  public void enumKeys() {
+    Map<Enum<?>, Integer> map =
+        MapFactory.<Enum<?>, Integer>builder(3)
+            .put(Color.BLUE, () -> 3)
+            .put(Color.RED, () -> 1)
+            .put(Shape.SQUARE, () -> 4)
+            .build()
+            .get();
+
+    assertThat(map).containsExactly(Color.BLUE, 3, Color.RED, 1, Shape.SQUARE, 4).inOrder();
+    assertThat(map).doesNotContainKey(Color.GREEN);
+    assertThat(map).doesNotContainKey(Shape.CIRCLE);
+  }
+
+  @Test
+  public void enumKeys_sameEnum() {
+    Map<Color, Integer> map =
+        MapFactory.<Color, Integer>builder(2)
+            .put(Color.GREEN, () -> 2)
+            .put(Color.RED, () -> 1)
+            .build()
+            .get();
+
+    assertThat(map).containsExactly(Color.GREEN, 2, Color.RED, 1).inOrder();
+    assertThat(map.get(Color.BLUE)).isNull();
+    // Constants of other enums with the same ordinals are not keys.
+    assertThat(((Map<?, ?>) map).get(Shape.CIRCLE)).isNull();
+    assertThat(((Map<?, ?>) map).get(Shape.SQUARE)).isNull();
+    assertThat(((Map<?, ?>) map).get("GREEN")).isNull();
+  }
+
+  @Test
+  public void classKeys() {
+    MapFactory.Builder<Class<?>, Integer> builder = MapFactory.builder(20);
+    Class<?>[] classes = {
+      Object.class, String.class, Integer.class, Long.class, Short.class, Byte.class,
+      Character.class, Boolean.class, Float.class, Double.class, Number.class, Void.class,
+      Map.class, Provider.class, Factory.class, Color.class, Shape.class, Runnable.class,
+      Thread.class, Class.class
+    };
+    for (int i = 0; i < classes.length; i++) {
+      int value = i;
+      builder.put(classes[i], () -> value);
+    }
+    Map<Class<?>, Integer> map = builder.build().get();
+
+    assertThat(map.keySet()).containsExactlyElementsIn(classes).inOrder();
+    for (int i = 0; i < classes.length; i++) {
+      assertThat(map).containsEntry(classes[i], i);
+    }
+    assertThat(map).doesNotContainKey(Enum.class);
+    assertThat(((Map<?, ?>) map).get("java.lang.Object")).isNull();
+  }
+
+  private static Provider<Integer> incrementingIntegerProvider(int seed) {
+    return new AtomicInteger(seed)::getAndIncrement;
+  }
+}
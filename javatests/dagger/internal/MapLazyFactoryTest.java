@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import dagger.Lazy;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Provider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MapLazyFactoryTest {
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void nullKey() {
+    thrown.expect(NullPointerException.class);
+    MapLazyFactory.<String, Integer>builder(1).put(null, incrementingIntegerProvider(1));
+  }
+
+  @Test
+  public void valuesAreCreatedOnFirstAccess() {
+    AtomicInteger oneCalls = new AtomicInteger();
+    AtomicInteger twoCalls = new AtomicInteger();
+    Factory<Map<String, Lazy<Integer>>> factory =
+        MapLazyFactory.<String, Integer>builder(2)
+            .put("one", oneCalls::incrementAndGet)
+            .put("two", twoCalls::incrementAndGet)
+            .build();
+
+    Map<String, Lazy<Integer>> map = factory.get();
+    assertThat(map.keySet()).containsExactly("one", "two").inOrder();
+    assertThat(oneCalls.get()).isEqualTo(0);
+    assertThat(twoCalls.get()).isEqualTo(0);
+
+    assertThat(map.get("one").get()).isEqualTo(1);
+    assertThat(map.get("one").get()).isEqualTo(1);
+    assertThat(oneCalls.get()).isEqualTo(1);
+    assertThat(twoCalls.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void eachMapHasItsOwnLazies() {
+    Factory<Map<String, Lazy<Integer>>> factory =
+        MapLazyFactory.<String, Integer>builder(1)
+            .put("one", incrementingIntegerProvider(10))
+            .build();
+    assertThat(factory.get().get("one").get()).isEqualTo(10);
+    assertThat(factory.get().get("one").get()).isEqualTo(11);
+  }
+
+  @Test
+  public void sharesKeysBetweenCalls() {
+    Factory<Map<String, Lazy<Integer>>> factory =
+        MapLazyFactory.<String, Integer>builder(1)
+            .put("one", incrementingIntegerProvider(1))
+            .build();
+    assertThat(factory.get().keySet()).isSameInstanceAs(factory.get().keySet());
+  }
+
+  @Test
+  public void putAll() {
+    MapLazyFactory<String, Integer> first =
+        MapLazyFactory.<String, Integer>builder(1).put("one", () -> 1).build();
+    Map<String, Lazy<Integer>> map =
+        MapLazyFactory.<String, Integer>builder(2).putAll(first).put("two", () -> 2).build().get();
+    assertThat(map.keySet()).containsExactly("one", "two").inOrder();
+    assertThat(map.get("one").get()).isEqualTo(1);
+    assertThat(map.get("two").get()).isEqualTo(2);
+  }
+
+  private static Provider<Integer> incrementingIntegerProvider(int seed) {
+    return new AtomicInteger(seed)::getAndIncrement;
+  }
+}
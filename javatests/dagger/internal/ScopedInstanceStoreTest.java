@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
+import dagger.Lazy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ScopedInstanceStoreTest {
+  @Test
+  public void create_nullPointerException() {
+    try {
+      new ScopedInstanceStore(1, null);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  @Test
+  public void get_memoizesEachId() {
+    AtomicInteger provisions = new AtomicInteger();
+    ScopedInstanceStore store =
+        new ScopedInstanceStore(
+            2,
+            id -> {
+              provisions.incrementAndGet();
+              return new Object();
+            });
+    Object first = store.get(0);
+    Object second = store.get(1);
+    assertThat(first).isNotSameInstanceAs(second);
+    assertThat((Object) store.get(0)).isSameInstanceAs(first);
+    assertThat((Object) store.get(1)).isSameInstanceAs(second);
+    assertThat(provisions.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void get_memoizesNull() {
+    AtomicInteger provisions = new AtomicInteger();
+    ScopedInstanceStore store =
+        new ScopedInstanceStore(
+            1,
+            id -> {
+              provisions.incrementAndGet();
+              return null;
+            });
+    assertThat((Object) store.get(0)).isNull();
+    assertThat((Object) store.get(0)).isNull();
+    assertThat(provisions.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_concurrent() throws Exception {
+    int numThreads = 10;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+    final CountDownLatch latch = new CountDownLatch(numThreads);
+    final AtomicInteger provisions = new AtomicInteger();
+    final ScopedInstanceStore store =
+        new ScopedInstanceStore(
+            1,
+            id -> {
+              Uninterruptibles.awaitUninterruptibly(latch);
+              provisions.incrementAndGet();
+              return new Object();
+            });
+
+    List<Callable<Object>> tasks = Lists.newArrayListWithCapacity(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      tasks.add(
+          () -> {
+            latch.countDown();
+            return store.get(0);
+          });
+    }
+
+    List<Future<Object>> futures = executor.invokeAll(tasks);
+
+    assertThat(provisions.get()).isEqualTo(1);
+    Set<Object> results = Sets.newIdentityHashSet();
+    for (Future<Object> future : futures) {
+      results.add(future.get());
+    }
+    assertThat(results).hasSize(1);
+  }
+
+  @Test
+  public void get_bindingWaitingOnAnotherThreadCreatingAnotherBinding() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicReference<ScopedInstanceStore> reference = new AtomicReference<>();
+    Object second = new Object();
+    ScopedInstanceStore store =
+        new ScopedInstanceStore(
+            2,
+            id -> {
+              if (id == 1) {
+                return second;
+              }
+              // Binding 0 hands the request for binding 1 to another thread and waits for it, so
+              // creating binding 1 must not wait for binding 0's creation to finish.
+              Future<Object> future = executor.submit(() -> reference.get().get(1));
+              try {
+                return Arrays.asList(future.get(10, SECONDS));
+              } catch (Exception e) {
+                throw new AssertionError(e);
+              }
+            });
+    reference.set(store);
+    try {
+      assertThat((Object) store.get(0)).isEqualTo(Arrays.asList(second));
+      assertThat((Object) store.get(1)).isSameInstanceAs(second);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void get_retriesAfterException() {
+    AtomicInteger provisions = new AtomicInteger();
+    ScopedInstanceStore store =
+        new ScopedInstanceStore(
+            1,
+            id -> {
+              if (provisions.incrementAndGet() == 1) {
+                throw new IllegalStateException("first provision fails");
+              }
+              return "instance";
+            });
+    try {
+      store.get(0);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    assertThat((Object) store.get(0)).isEqualTo("instance");
+    assertThat(provisions.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void reentranceReturningSameInstance() {
+    final AtomicReference<ScopedInstanceStore> reference = new AtomicReference<>();
+    final AtomicInteger invocationCount = new AtomicInteger();
+    final Object object = new Object();
+    ScopedInstanceStore store =
+        new ScopedInstanceStore(
+            1,
+            id -> {
+              if (invocationCount.incrementAndGet() == 1) {
+                reference.get().get(id);
+              }
+              return object;
+            });
+    reference.set(store);
+    assertThat((Object) store.get(0)).isSameInstanceAs(object);
+  }
+
+  @Test
+  public void reentranceReturningDifferentInstances_throwsIllegalStateException() {
+    final AtomicReference<ScopedInstanceStore> reference = new AtomicReference<>();
+    final AtomicInteger invocationCount = new AtomicInteger();
+    ScopedInstanceStore store =
+        new ScopedInstanceStore(
+            1,
+            id -> {
+              if (invocationCount.incrementAndGet() == 1) {
+                reference.get().get(id);
+              }
+              return new Object();
+            });
+    reference.set(store);
+    try {
+      store.get(0);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test
+  public void provider_isLazyOverSameSlot() {
+    ScopedInstanceStore store = new ScopedInstanceStore(1, id -> new Object());
+    Provider<Object> provider = store.provider(0);
+    assertThat(provider).isInstanceOf(Lazy.class);
+    assertThat(provider.get()).isSameInstanceAs(store.get(0));
+    assertThat(DoubleCheck.lazy(provider)).isSameInstanceAs(provider);
+  }
+}
@@ -18,8 +18,12 @@ package dagger.internal;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.ImmutableSet;
+import java.util.AbstractCollection;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -74,6 +78,90 @@ public class SetFactoryTest {
     assertThat(factory.get()).containsExactly(2, 12, 24, 25, 34, 35);
   }
 
+  @Test
+  public void iteratesInContributionOrder() {
+    Factory<Set<Integer>> factory =
+        SetFactory.<Integer>builder(2, 1)
+            .addProvider(() -> 3)
+            .addProvider(() -> 1)
+            .addCollectionProvider(() -> Arrays.asList(2, 0))
+            .build();
+    assertThat(factory.get()).containsExactly(3, 1, 2, 0).inOrder();
+  }
+
+  @Test
+  public void duplicateElements() {
+    Factory<Set<Integer>> factory =
+        SetFactory.<Integer>builder(2, 1)
+            .addProvider(() -> 1)
+            .addProvider(() -> 2)
+            .addCollectionProvider(() -> Arrays.asList(2, 1, 3))
+            .build();
+    Set<Integer> set = factory.get();
+    assertThat(set).containsExactly(1, 2, 3).inOrder();
+    assertThat(set).hasSize(3);
+  }
+
+  @Test
+  public void collectionWithMoreElementsThanItsSize() {
+    Collection<Integer> underreportedSize =
+        new AbstractCollection<Integer>() {
+          @Override
+          public Iterator<Integer> iterator() {
+            return Arrays.asList(2, 3, 4).iterator();
+          }
+
+          @Override
+          public int size() {
+            return 1;
+          }
+        };
+    Factory<Set<Integer>> factory =
+        SetFactory.<Integer>builder(1, 1)
+            .addProvider(() -> 1)
+            .addCollectionProvider(() -> underreportedSize)
+            .build();
+    assertThat(factory.get()).containsExactly(1, 2, 3, 4).inOrder();
+  }
+
+  @Test
+  public void largeSet() {
+    SetFactory.Builder<Integer> builder = SetFactory.builder(100, 1);
+    for (int i = 0; i < 100; i++) {
+      int value = i;
+      builder.addProvider(() -> value);
+    }
+    builder.addCollectionProvider(() -> Arrays.asList(99, 100, 0, 101));
+    Set<Integer> set = builder.build().get();
+
+    assertThat(set).hasSize(102);
+    for (int i = 0; i < 102; i++) {
+      assertThat(set).contains(i);
+    }
+    assertThat(set).doesNotContain(102);
+    assertThat(set).doesNotContain(null);
+    assertThat(set).isEqualTo(ContiguousSet.closedOpen(0, 102));
+    assertThat(set.hashCode()).isEqualTo(ContiguousSet.closedOpen(0, 102).hashCode());
+  }
+
+  @Test
+  public void immutable() {
+    Set<Integer> set =
+        SetFactory.<Integer>builder(2, 0).addProvider(() -> 1).addProvider(() -> 2).build().get();
+    thrown.expect(UnsupportedOperationException.class);
+    set.add(3);
+  }
+
+  @Test
+  public void immutable_iteratorRemove() {
+    Set<Integer> set =
+        SetFactory.<Integer>builder(2, 0).addProvider(() -> 1).addProvider(() -> 2).build().get();
+    Iterator<Integer> iterator = set.iterator();
+    iterator.next();
+    thrown.expect(UnsupportedOperationException.class);
+    iterator.remove();
+  }
+
   private static Provider<Integer> incrementingIntegerProvider(int seed) {
     final AtomicInteger value = new AtomicInteger(seed);
     return value::getAndIncrement;
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.internal.DelegateFactory;
+import dagger.internal.DoubleCheck;
+import dagger.internal.InstanceFactory;
+import dagger.internal.SingleCheck;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link DelegateFactory}, compared with calling the delegate directly, as is done
+ * for bindings that are not part of a dependency cycle.
+ *
+ * <p>The {@code cycle_} benchmarks model a component with several cycles whose delegates are
+ * different provider classes. Through the {@link DelegateFactory} fields, every call shares the one
+ * call site in {@link DelegateFactory#get()}, which sees all of those classes. With {@code
+ * -Adagger.collapseDelegateFactories=enabled} the component fields hold the delegates that {@link
+ * DelegateFactory#setDelegateAndUnwrap} returns, so each call site sees only one class. See {@link
+ * EventBusCycleBenchmark} for the same comparison in generated components.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DelegateFactoryBenchmark {
+  private Provider<Object> delegate;
+  private Provider<Object> delegateFactory;
+
+  private Provider<Object> eventBusDelegateFactory;
+  private Provider<Object> listenerDelegateFactory;
+  private Provider<Object> registryDelegateFactory;
+  private Provider<Object> handlerDelegateFactory;
+
+  private Provider<Object> eventBus;
+  private Provider<Object> listener;
+  private Provider<Object> registry;
+  private Provider<Object> handler;
+
+  @Setup
+  public void setUp() {
+    delegate = DoubleCheck.provider(Object::new);
+    delegateFactory = new DelegateFactory<>();
+    DelegateFactory.setDelegate(delegateFactory, delegate);
+
+    eventBusDelegateFactory = new DelegateFactory<>();
+    listenerDelegateFactory = new DelegateFactory<>();
+    registryDelegateFactory = new DelegateFactory<>();
+    handlerDelegateFactory = new DelegateFactory<>();
+    eventBus =
+        DelegateFactory.setDelegateAndUnwrap(
+            eventBusDelegateFactory, DoubleCheck.provider(Object::new));
+    listener =
+        DelegateFactory.setDelegateAndUnwrap(
+            listenerDelegateFactory, SingleCheck.provider(Object::new));
+    registry =
+        DelegateFactory.setDelegateAndUnwrap(
+            registryDelegateFactory, InstanceFactory.create(new Object()));
+    handler = DelegateFactory.setDelegateAndUnwrap(handlerDelegateFactory, Object::new);
+  }
+
+  @Benchmark
+  public Object delegate_get() {
+    return delegate.get();
+  }
+
+  @Benchmark
+  public Object delegateFactory_get() {
+    return delegateFactory.get();
+  }
+
+  @Benchmark
+  public void cycle_delegateFactories(Blackhole blackhole) {
+    blackhole.consume(eventBusDelegateFactory.get());
+    blackhole.consume(listenerDelegateFactory.get());
+    blackhole.consume(registryDelegateFactory.get());
+    blackhole.consume(handlerDelegateFactory.get());
+  }
+
+  @Benchmark
+  public void cycle_collapsed(Blackhole blackhole) {
+    blackhole.consume(eventBus.get());
+    blackhole.consume(listener.get());
+    blackhole.consume(registry.get());
+    blackhole.consume(handler.get());
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.Lazy;
+import dagger.internal.DoubleCheck;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link DoubleCheck}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DoubleCheckBenchmark {
+  private Provider<Object> provider;
+  private Lazy<Object> lazy;
+
+  @Setup
+  public void setUp() {
+    provider = DoubleCheck.provider(Object::new);
+    lazy = DoubleCheck.lazy(Object::new);
+  }
+
+  /** Reads an already initialized scoped provider, as a singleton request does. */
+  @Benchmark
+  public Object provider_get() {
+    return provider.get();
+  }
+
+  /** Reads an already initialized {@link Lazy}. */
+  @Benchmark
+  public Object lazy_get() {
+    return lazy.get();
+  }
+
+  /** Creates and initializes a new scoped provider, as the first request for a binding does. */
+  @Benchmark
+  public Object provider_createAndGet() {
+    return DoubleCheck.provider(Object::new).get();
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.internal.benchmarks.EventBusCycleBindings.Dispatcher;
+import dagger.internal.benchmarks.EventBusCycleBindings.EventBus;
+import dagger.internal.benchmarks.EventBusCycleBindings.Listener;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares requests for the event bus of a generated component in which the event bus and its
+ * listener depend on each other, with and without {@code -Adagger.collapseDelegateFactories}.
+ *
+ * <p>Each {@link Cycle} requests the event bus from a component that Dagger generated for that mode
+ * (see the {@code BUILD} file). The event bus is requested:
+ *
+ * <ul>
+ *   <li>{@link #entryPoint}: through the provider returned by the component, which is the
+ *       component's field.
+ *   <li>{@link #afterCycle}: by a dispatcher created by the component after the cycle.
+ *   <li>{@link #inCycle}: by the listener, whose factory is created while the cycle is incomplete.
+ *       It goes through the {@code DelegateFactory} in both modes.
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventBusCycleBenchmark {
+  /** The mode that the component was generated in. */
+  public enum Cycle {
+    DELEGATE_FACTORY,
+    COLLAPSED,
+  }
+
+  @Param public Cycle cycle;
+
+  private Provider<EventBus> eventBusProvider;
+  private Dispatcher dispatcher;
+  private Listener listener;
+
+  @Setup
+  public void setUp() {
+    EventBusCycleBindings.EntryPoints component = component();
+    eventBusProvider = component.eventBus();
+    dispatcher = component.dispatcher();
+    listener = eventBusProvider.get().listener();
+  }
+
+  private EventBusCycleBindings.EntryPoints component() {
+    switch (cycle) {
+      case DELEGATE_FACTORY:
+        return DaggerEventBusCycleDefaultComponent.create();
+      case COLLAPSED:
+        return DaggerEventBusCycleCollapsedComponent.create();
+    }
+    throw new AssertionError(cycle);
+  }
+
+  @Benchmark
+  public EventBus entryPoint() {
+    return eventBusProvider.get();
+  }
+
+  @Benchmark
+  public EventBus afterCycle() {
+    return dispatcher.eventBus();
+  }
+
+  @Benchmark
+  public EventBus inCycle() {
+    return listener.eventBus();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * The bindings of the components benchmarked by EventBusCycleBenchmark: an event bus and a listener
+ * that depend on each other, and a dispatcher that depends on the event bus.
+ */
+public final class EventBusCycleBindings {
+  /** An event bus that delivers events to its listener. */
+  @Singleton
+  public static final class EventBus {
+    private final Provider<Listener> listenerProvider;
+
+    @Inject
+    EventBus(Provider<Listener> listenerProvider) {
+      this.listenerProvider = listenerProvider;
+    }
+
+    /** Returns the listener, which is created by a factory from within the cycle. */
+    public Listener listener() {
+      return listenerProvider.get();
+    }
+  }
+
+  /** A listener that posts events back to the event bus. */
+  public static final class Listener {
+    private final Provider<EventBus> eventBusProvider;
+
+    @Inject
+    Listener(Provider<EventBus> eventBusProvider) {
+      this.eventBusProvider = eventBusProvider;
+    }
+
+    public EventBus eventBus() {
+      return eventBusProvider.get();
+    }
+  }
+
+  /** Posts events to the event bus. Nothing in the cycle depends on it. */
+  public static final class Dispatcher {
+    private final Provider<EventBus> eventBusProvider;
+
+    @Inject
+    Dispatcher(Provider<EventBus> eventBusProvider) {
+      this.eventBusProvider = eventBusProvider;
+    }
+
+    public EventBus eventBus() {
+      return eventBusProvider.get();
+    }
+  }
+
+  /** The entry points of the components benchmarked by EventBusCycleBenchmark. */
+  public interface EntryPoints {
+    Provider<EventBus> eventBus();
+
+    Dispatcher dispatcher();
+  }
+
+  private EventBusCycleBindings() {}
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.Component;
+import javax.inject.Singleton;
+
+/**
+ * A component generated with {@code -Adagger.collapseDelegateFactories=enabled}, whose field for
+ * the event bus is reassigned to the delegate once the cycle is complete.
+ */
+@Singleton
+@Component
+interface EventBusCycleCollapsedComponent extends EventBusCycleBindings.EntryPoints {}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.internal.InstanceFactory;
+import dagger.internal.MapProviderFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks dispatching through a {@code Map<K, Provider<V>>} multibinding, as a plugin registry
+ * would: each operation requests the map and looks up one key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapKeyLookupBenchmark {
+  /** The kind of map key, which determines how the factory indexes its keys. */
+  public enum KeyKind {
+    STRING,
+    ENUM,
+    CLASS,
+  }
+
+  /** An enum with as many constants as there are keys. */
+  public enum Operation {
+    OP0, OP1, OP2, OP3, OP4, OP5, OP6, OP7, OP8, OP9, OP10, OP11, OP12, OP13, OP14, OP15,
+  }
+
+  private static final Class<?>[] CLASSES = {
+    Object.class, String.class, Integer.class, Long.class, Short.class, Byte.class,
+    Character.class, Boolean.class, Float.class, Double.class, Number.class, Void.class,
+    Map.class, Provider.class, Runnable.class, Thread.class,
+  };
+
+  @Param
+  public KeyKind keyKind;
+
+  private Provider<Map<Object, Provider<Integer>>> mapFactory;
+  private Object[] keys;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    keys = new Object[Operation.values().length];
+    for (int i = 0; i < keys.length; i++) {
+      switch (keyKind) {
+        case STRING:
+          keys[i] = Operation.values()[i].name();
+          break;
+        case ENUM:
+          keys[i] = Operation.values()[i];
+          break;
+        case CLASS:
+          keys[i] = CLASSES[i];
+          break;
+      }
+    }
+    MapProviderFactory.Builder<Object, Integer> builder = MapProviderFactory.builder(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      builder.put(keys[i], InstanceFactory.create(i));
+    }
+    mapFactory = builder.build();
+  }
+
+  @Benchmark
+  public Provider<Integer> lookup() {
+    Object key = keys[next];
+    next = (next + 1) % keys.length;
+    return mapFactory.get().get(key);
+  }
+}
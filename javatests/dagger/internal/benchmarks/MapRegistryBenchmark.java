@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.Lazy;
+import dagger.internal.MapFactory;
+import dagger.internal.MapLazyFactory;
+import dagger.internal.MapProviderFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link MapFactory}, {@link MapProviderFactory} and {@link MapLazyFactory} for a plugin
+ * registry: each operation requests the map and then uses a few of its values twice. The values are
+ * created by unscoped providers that allocate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapRegistryBenchmark {
+  /** The number of entries in the map. */
+  @Param({"16", "400"})
+  public int size;
+
+  /** The number of entries used by each operation. */
+  @Param({"3"})
+  public int touched;
+
+  private Provider<Map<String, String>> mapFactory;
+  private Provider<Map<String, Provider<String>>> mapProviderFactory;
+  private Provider<Map<String, Lazy<String>>> mapLazyFactory;
+  private String[] keys;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    MapFactory.Builder<String, String> mapBuilder = MapFactory.builder(size);
+    MapProviderFactory.Builder<String, String> mapProviderBuilder =
+        MapProviderFactory.builder(size);
+    MapLazyFactory.Builder<String, String> mapLazyBuilder = MapLazyFactory.builder(size);
+    keys = new String[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = "key" + i;
+      int value = i;
+      Provider<String> provider = () -> "value" + value;
+      mapBuilder.put(keys[i], provider);
+      mapProviderBuilder.put(keys[i], provider);
+      mapLazyBuilder.put(keys[i], provider);
+    }
+    mapFactory = mapBuilder.build();
+    mapProviderFactory = mapProviderBuilder.build();
+    mapLazyFactory = mapLazyBuilder.build();
+  }
+
+  @Benchmark
+  public void mapFactory(Blackhole blackhole) {
+    Map<String, String> map = mapFactory.get();
+    for (int i = 0; i < touched; i++) {
+      String key = nextKey();
+      blackhole.consume(map.get(key));
+      blackhole.consume(map.get(key));
+    }
+  }
+
+  @Benchmark
+  public void mapProviderFactory(Blackhole blackhole) {
+    Map<String, Provider<String>> map = mapProviderFactory.get();
+    for (int i = 0; i < touched; i++) {
+      String key = nextKey();
+      blackhole.consume(map.get(key).get());
+      blackhole.consume(map.get(key).get());
+    }
+  }
+
+  @Benchmark
+  public void mapLazyFactory(Blackhole blackhole) {
+    Map<String, Lazy<String>> map = mapLazyFactory.get();
+    for (int i = 0; i < touched; i++) {
+      String key = nextKey();
+      blackhole.consume(map.get(key).get());
+      blackhole.consume(map.get(key).get());
+    }
+  }
+
+  private String nextKey() {
+    String key = keys[next];
+    next = (next + 1) % keys.length;
+    return key;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import java.util.regex.Pattern;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the runtime benchmarks in this package, with allocation rates reported by the {@link
+ * GCProfiler}. The benchmarks in {@link #MULTI_THREADED_BENCHMARKS}, which share their state
+ * between threads, are run once for each thread count in {@link #THREAD_COUNTS}. The others, such
+ * as {@link ScopedProviderBenchmark}, which creates its own threads, are run once.
+ *
+ * <p>Any standard JMH command line options are forwarded to the runner, e.g. to run only the
+ * {@code DoubleCheck} benchmarks: {@code runtime_benchmarks DoubleCheckBenchmark}. If {@code -t} is
+ * given, every selected benchmark is run once with that thread count.
+ */
+public final class RuntimeBenchmarks {
+  private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+  private static final Class<?>[] MULTI_THREADED_BENCHMARKS = {
+    DelegateFactoryBenchmark.class,
+    DoubleCheckBenchmark.class,
+    MapFactoryBenchmark.class,
+    MapProviderFactoryBenchmark.class,
+    ProviderOfLazyBenchmark.class,
+    SetFactoryBenchmark.class,
+    SingleCheckBenchmark.class,
+  };
+
+  private static final String PACKAGE_PREFIX =
+      "^" + Pattern.quote(RuntimeBenchmarks.class.getPackage().getName() + ".");
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    if (commandLineOptions.getThreads().hasValue()) {
+      run(options(commandLineOptions));
+      return;
+    }
+    String multiThreadedBenchmarks = multiThreadedBenchmarksPattern();
+    for (int threads : THREAD_COUNTS) {
+      run(
+          options(commandLineOptions)
+              .exclude(PACKAGE_PREFIX + "(?!" + multiThreadedBenchmarks + ")")
+              .threads(threads));
+    }
+    run(options(commandLineOptions).exclude(PACKAGE_PREFIX + multiThreadedBenchmarks));
+  }
+
+  private static ChainedOptionsBuilder options(CommandLineOptions commandLineOptions) {
+    ChainedOptionsBuilder options =
+        new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class);
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      options.include(PACKAGE_PREFIX);
+    }
+    return options;
+  }
+
+  /** Returns a pattern that matches the class name of any of {@link #MULTI_THREADED_BENCHMARKS}. */
+  private static String multiThreadedBenchmarksPattern() {
+    StringBuilder pattern = new StringBuilder("(");
+    for (Class<?> benchmark : MULTI_THREADED_BENCHMARKS) {
+      if (pattern.length() > 1) {
+        pattern.append('|');
+      }
+      pattern.append(Pattern.quote(benchmark.getSimpleName()));
+    }
+    return pattern.append(")\\.").toString();
+  }
+
+  private static void run(ChainedOptionsBuilder options) throws RunnerException {
+    try {
+      new Runner(options.build()).run();
+    } catch (NoBenchmarksException e) {
+      // The benchmarks selected on the command line may all be in the other group.
+    }
+  }
+
+  private RuntimeBenchmarks() {}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.internal.DoubleCheck;
+import dagger.internal.ReentrantLockDoubleCheck;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link DoubleCheck} with {@link ReentrantLockDoubleCheck} during a startup burst, where
+ * many tasks concurrently request scoped bindings whose creation blocks.
+ *
+ * <p>The virtual thread variants require JDK 21 or later; on earlier JDKs their setup fails and
+ * JMH moves on to the next benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScopedProviderBenchmark {
+  /** The scoped provider implementation used by generated code. */
+  public enum ScopedProviderKind {
+    DOUBLE_CHECK {
+      @Override
+      Provider<Object> scope(Provider<Object> unscoped) {
+        return DoubleCheck.provider(unscoped);
+      }
+    },
+    REENTRANT_LOCK_DOUBLE_CHECK {
+      @Override
+      Provider<Object> scope(Provider<Object> unscoped) {
+        return ReentrantLockDoubleCheck.provider(unscoped);
+      }
+    };
+
+    abstract Provider<Object> scope(Provider<Object> unscoped);
+  }
+
+  /** The kind of threads that request the scoped bindings. */
+  public enum ThreadKind {
+    PLATFORM,
+    VIRTUAL,
+  }
+
+  @Param public ScopedProviderKind scopedProviderKind;
+
+  @Param public ThreadKind threadKind;
+
+  /** The number of distinct scoped bindings. */
+  @Param({"64"})
+  public int bindings;
+
+  /** The number of tasks that each request one of the scoped bindings. */
+  @Param({"1024"})
+  public int requests;
+
+  /** How long creating each scoped binding blocks, in milliseconds. */
+  @Param({"1"})
+  public int blockingMillis;
+
+  private ExecutorService executor;
+  private List<Callable<Object>> tasks;
+
+  @Setup(Level.Trial)
+  public void createExecutor() throws ReflectiveOperationException {
+    executor =
+        threadKind == ThreadKind.VIRTUAL
+            ? (ExecutorService)
+                Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null)
+            : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Setup(Level.Invocation)
+  public void createScopedBindings() {
+    List<Provider<Object>> scopedBindings = new ArrayList<>(bindings);
+    for (int i = 0; i < bindings; i++) {
+      scopedBindings.add(scopedProviderKind.scope(this::blockingProvision));
+    }
+    tasks = new ArrayList<>(requests);
+    for (int i = 0; i < requests; i++) {
+      Provider<Object> scopedBinding = scopedBindings.get(i % bindings);
+      tasks.add(scopedBinding::get);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  private Object blockingProvision() {
+    try {
+      Thread.sleep(blockingMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return new Object();
+  }
+
+  /** Requests all scoped bindings concurrently and waits until every request has completed. */
+  @Benchmark
+  public Object startupBurst() throws InterruptedException {
+    return executor.invokeAll(tasks);
+  }
+}
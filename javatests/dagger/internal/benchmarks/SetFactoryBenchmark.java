@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.internal.InstanceFactory;
+import dagger.internal.SetFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link SetFactory}. The contributions are instance factories so that the cost of
+ * the contributing providers themselves is not measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetFactoryBenchmark {
+  /** The number of elements in the set. */
+  @Param({"1", "16", "256"})
+  public int size;
+
+  /**
+   * If {@code true}, half of the elements are contributed by a single {@code @ElementsIntoSet}
+   * provider.
+   */
+  @Param({"false", "true"})
+  public boolean elementsIntoSet;
+
+  private Provider<Set<Integer>> setFactory;
+
+  @Setup
+  public void setUp() {
+    int individualProviders = elementsIntoSet ? size - size / 2 : size;
+    SetFactory.Builder<Integer> builder =
+        SetFactory.builder(individualProviders, elementsIntoSet ? 1 : 0);
+    for (int i = 0; i < individualProviders; i++) {
+      builder.addProvider(InstanceFactory.create(i));
+    }
+    if (elementsIntoSet) {
+      List<Integer> elements = new ArrayList<>();
+      for (int i = individualProviders; i < size; i++) {
+        elements.add(i);
+      }
+      builder.addCollectionProvider(InstanceFactory.<Collection<Integer>>create(elements));
+    }
+    setFactory = builder.build();
+  }
+
+  @Benchmark
+  public Set<Integer> get() {
+    return setFactory.get();
+  }
+}
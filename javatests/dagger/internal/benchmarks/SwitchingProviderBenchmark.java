@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the ways that generated code can dispatch {@code get()} on the providers of a component
+ * with 120 unscoped bindings.
+ *
+ * <p>Each {@link Dispatch} requests the providers from a component that Dagger generated for that
+ * mode (see the {@code BUILD} file):
+ *
+ * <ul>
+ *   <li>{@link Dispatch#DEFAULT_MODE}: each provider is the factory of its binding.
+ *   <li>{@link Dispatch#FAST_INIT}: the default {@code -Adagger.fastInit=enabled} output, where
+ *       {@code get()} switches on {@code id / 100} and then on {@code id} in one of two methods.
+ *   <li>{@link Dispatch#SERVER}: fastInit with {@code -Adagger.switchingProviderCasesPerSwitch=120}
+ *       and a {@code -Adagger.switchingProviderHotKeys} that lists the 8 hottest bindings,
+ *       which each get a provider class of their own.
+ * </ul>
+ *
+ * <p>All requests go through one call site, as requests through {@code DoubleCheck} or a
+ * multibound map do. With {@link Requests#SKEWED} requests, 90% of the requests are for the 8 hot
+ * bindings.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwitchingProviderBenchmark {
+  private static final int HOT_BINDINGS = 8;
+  private static final int REQUESTS = 1024;
+
+  /** The mode that the component was generated in. */
+  public enum Dispatch {
+    DEFAULT_MODE,
+    FAST_INIT,
+    SERVER,
+  }
+
+  /** The distribution of the requested bindings. */
+  public enum Requests {
+    UNIFORM,
+    SKEWED,
+  }
+
+  @Param public Dispatch dispatch;
+
+  @Param public Requests requests;
+
+  private final Provider<?>[] providers = new Provider<?>[REQUESTS];
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Provider<?>[] bindings = component().providers();
+    Random random = new Random(0);
+    for (int i = 0; i < REQUESTS; i++) {
+      providers[i] =
+          requests == Requests.SKEWED && random.nextInt(10) != 0
+              ? bindings[random.nextInt(HOT_BINDINGS)]
+              : bindings[random.nextInt(bindings.length)];
+    }
+  }
+
+  private SwitchingProviderBindings.EntryPoints component() {
+    switch (dispatch) {
+      case DEFAULT_MODE:
+        return DaggerSwitchingProviderDefaultModeComponent.create();
+      case FAST_INIT:
+        return DaggerSwitchingProviderFastInitComponent.create();
+      case SERVER:
+        return DaggerSwitchingProviderServerComponent.create();
+    }
+    throw new AssertionError(dispatch);
+  }
+
+  @Benchmark
+  public Object get() {
+    return providers[next++ & (REQUESTS - 1)].get();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMap;
+import dagger.testing.compile.CompilerTests;
+import dagger.testing.golden.GoldenFileRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests for {@code -Adagger.collapseDelegateFactories}. */
+@RunWith(Parameterized.class)
+public class CollapseDelegateFactoriesTest {
+  @Parameters(name = "{0}")
+  public static ImmutableCollection<Object[]> parameters() {
+    return CompilerMode.TEST_PARAMETERS;
+  }
+
+  @Rule public GoldenFileRule goldenFileRule = new GoldenFileRule();
+
+  private final CompilerMode compilerMode;
+
+  public CollapseDelegateFactoriesTest(CompilerMode compilerMode) {
+    this.compilerMode = compilerMode;
+  }
+
+  @Test
+  public void eventBusCycle() throws Exception {
+    // EventBus -> Provider<Listener> -> EventBus. In default mode, Listener's factory is created
+    // while the cycle is incomplete, so it keeps the DelegateFactory; only the component's field,
+    // and so Dispatcher, which is created after the cycle, get the delegate itself. In fastInit
+    // mode the cycle needs no DelegateFactory at all.
+    Source eventBus =
+        CompilerTests.javaSource(
+            "test.EventBus",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Provider;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "final class EventBus {",
+            "  @Inject EventBus(Provider<Listener> listenerProvider) {}",
+            "}");
+    Source listener =
+        CompilerTests.javaSource(
+            "test.Listener",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Listener {",
+            "  @Inject Listener(EventBus eventBus) {}",
+            "}");
+    Source dispatcher =
+        CompilerTests.javaSource(
+            "test.Dispatcher",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Provider;",
+            "",
+            "final class Dispatcher {",
+            "  @Inject Dispatcher(Provider<EventBus> eventBusProvider) {}",
+            "}");
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Provider;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  Provider<EventBus> eventBus();",
+            "  Dispatcher dispatcher();",
+            "}");
+
+    CompilerTests.daggerCompiler(eventBus, listener, dispatcher, component)
+        .withProcessingOptions(
+            ImmutableMap.<String, String>builder()
+                .putAll(compilerMode.processorOptions())
+                .put("dagger.collapseDelegateFactories", "enabled")
+                .buildOrThrow())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject.generatedSource(goldenFileRule.goldenSource("test/DaggerTestComponent"));
+            });
+  }
+}
@@ -227,6 +227,153 @@ public class ComponentShardTest {
             });
   }
 
+  @Test
+  public void testLazyShards() throws Exception {
+    // The same component as in testNewShardCreatedWithDependencies(). The shard is created by an
+    // accessor on the component the first time it's used, and doesn't take the component's
+    // constructor parameters.
+    ImmutableList.Builder<Source> sources = ImmutableList.builder();
+    sources.add(
+        createBinding("Binding1"),
+        createBinding("Binding2"),
+        CompilerTests.javaSource(
+            "dagger.internal.codegen.Binding3",
+            "package dagger.internal.codegen;",
+            "",
+            "class Binding3 {}"),
+        CompilerTests.javaSource(
+            "dagger.internal.codegen.Dependency",
+            "package dagger.internal.codegen;",
+            "",
+            "interface Dependency {",
+            "  Binding3 binding3();",
+            "}"),
+        CompilerTests.javaSource(
+            "dagger.internal.codegen.TestComponent",
+            "package dagger.internal.codegen;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Provider;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component(dependencies = Dependency.class)",
+            "interface TestComponent {",
+            "  Binding1 binding1();",
+            "  Binding2 binding2();",
+            "  Binding3 binding3();",
+            "  Provider<Binding1> providerBinding1();",
+            "  Provider<Binding2> providerBinding2();",
+            "  Provider<Binding3> providerBinding3();",
+            "}"));
+
+    CompilerTests.daggerCompiler(sources.build())
+        .withProcessingOptions(
+            ImmutableMap.<String, String>builder()
+                .putAll(compilerOptions())
+                .put("dagger.lazyComponentShards", "enabled")
+                .buildOrThrow())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject.generatedSource(
+                  goldenFileRule.goldenSource("dagger/internal/codegen/DaggerTestComponent"));
+            });
+  }
+
+  @Test
+  public void testTargetShardByteSize() throws Exception {
+    // The same bindings as in testNewShardCreated(), partitioned by their estimated sizes:
+    //
+    //     1 -> 2 -> 3 -> 4 -> 5 -> 6 -> 7
+    //          ^--------/
+    //
+    // The strongly connected components (7), (6), (5), (2, 3, 4) and (1) are estimated at 48, 56,
+    // 56, 176 and 56 bytes. With a target of 256 bytes, the fewest shards are 2, and the only way
+    // to split them into 2 shards within the target is after (5).
+    ImmutableList.Builder<Source> sources = ImmutableList.builder();
+    sources
+        // Shard 1: Bindings (1, 2, 3, 4)
+        .add(createBinding("Binding1", "Binding2 binding2"))
+        .add(createBinding("Binding2", "Binding3 binding3"))
+        .add(createBinding("Binding3", "Binding4 binding4"))
+        .add(createBinding("Binding4", "Binding5 binding5, Provider<Binding2> binding2Provider"))
+        // Component shard: Bindings (5, 6, 7)
+        .add(createBinding("Binding5", "Binding6 binding6"))
+        .add(createBinding("Binding6", "Binding7 binding7"))
+        .add(createBinding("Binding7"));
+
+    sources.add(
+        CompilerTests.javaSource(
+            "dagger.internal.codegen.TestComponent",
+            "package dagger.internal.codegen;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Provider;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  Binding1 binding1();",
+            "  Binding2 binding2();",
+            "  Binding3 binding3();",
+            "  Binding4 binding4();",
+            "  Binding5 binding5();",
+            "  Binding6 binding6();",
+            "  Binding7 binding7();",
+            "  Provider<Binding1> providerBinding1();",
+            "  Provider<Binding2> providerBinding2();",
+            "  Provider<Binding3> providerBinding3();",
+            "  Provider<Binding4> providerBinding4();",
+            "  Provider<Binding5> providerBinding5();",
+            "  Provider<Binding6> providerBinding6();",
+            "  Provider<Binding7> providerBinding7();",
+            "}"));
+
+    CompilerTests.daggerCompiler(sources.build())
+        .withProcessingOptions(
+            ImmutableMap.<String, String>builder()
+                .putAll(compilerMode.processorOptions())
+                .put("dagger.generatedClassExtendsComponent", "DISABLED")
+                .put("dagger.targetShardByteSize", "256")
+                .buildOrThrow())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject.generatedSource(
+                  goldenFileRule.goldenSource("dagger/internal/codegen/DaggerTestComponent"));
+            });
+  }
+
+  @Test
+  public void testInvalidTargetShardByteSize() throws Exception {
+    CompilerTests.daggerCompiler(
+            createBinding("Binding1"),
+            CompilerTests.javaSource(
+                "dagger.internal.codegen.TestComponent",
+                "package dagger.internal.codegen;",
+                "",
+                "import dagger.Component;",
+                "import javax.inject.Singleton;",
+                "",
+                "@Singleton",
+                "@Component",
+                "interface TestComponent {",
+                "  Binding1 binding1();",
+                "}"))
+        .withProcessingOptions(
+            ImmutableMap.<String, String>builder()
+                .putAll(compilerMode.processorOptions())
+                .put("dagger.targetShardByteSize", "0")
+                .buildOrThrow())
+        .compile(
+            subject ->
+                subject.hasErrorContaining(
+                    "Processor option -Adagger.targetShardByteSize must be a positive integer, "
+                        + "found: 0"));
+  }
+
   private static Source createBinding(String bindingName, String... deps) {
     return CompilerTests.javaSource(
         "dagger.internal.codegen." + bindingName,
@@ -611,6 +611,50 @@ public class DaggerSuperficialValidationTest {
         .compile(subject -> subject.hasError());
   }
 
+  @Test
+  public void isKnownUnresolvable() {
+    Source javaFileObject =
+        CompilerTests.javaSource(
+            "test.TestClass",
+            "package test;",
+            "",
+            "@javax.inject.Singleton", // TODO(b/249322175): Used to trigger processing step
+            "abstract class TestClass {}");
+    CompilerTests.daggerCompiler(javaFileObject)
+        .withProcessingSteps(
+            () -> new AssertingStep() {
+              @Override
+              void runAssertions(
+                  XProcessingEnv processingEnv, DaggerSuperficialValidation superficialValidation) {
+                boolean isJavac = processingEnv.getBackend() == XProcessingEnv.Backend.JAVAC;
+                assertThat(
+                        DaggerSuperficialValidation.isKnownUnresolvable(
+                            processingEnv, "test.MissingType"))
+                    .isEqualTo(isJavac);
+                assertThat(
+                        DaggerSuperficialValidation.isKnownUnresolvable(
+                            processingEnv, "test.MissingType<java.lang.String>[]"))
+                    .isEqualTo(isJavac);
+                // Simple names may be resolved by imports, so they're never known to be missing.
+                assertThat(
+                        DaggerSuperficialValidation.isKnownUnresolvable(
+                            processingEnv, "MissingType"))
+                    .isFalse();
+                assertThat(
+                        DaggerSuperficialValidation.isKnownUnresolvable(
+                            processingEnv, "missing.MissingType"))
+                    .isFalse();
+                assertThat(
+                        DaggerSuperficialValidation.isKnownUnresolvable(
+                            processingEnv, "test.TestClass"))
+                    .isFalse();
+                assertThat(DaggerSuperficialValidation.isKnownUnresolvable(processingEnv, "<any>"))
+                    .isFalse();
+              }
+            })
+        .compile(subject -> subject.hasErrorCount(0));
+  }
+
   private abstract static class AssertingStep implements XProcessingStep {
     private boolean processed = false;
 
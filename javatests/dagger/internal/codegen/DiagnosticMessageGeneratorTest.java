@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
+
+import androidx.room.compiler.processing.XProcessingEnv;
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import dagger.BindsInstance;
+import dagger.Component;
+import dagger.internal.codegen.validation.DiagnosticMessageGenerator;
+import dagger.spi.model.Binding;
+import dagger.spi.model.BindingGraph;
+import dagger.spi.model.BindingGraph.DependencyEdge;
+import dagger.spi.model.BindingGraphPlugin;
+import dagger.spi.model.DaggerProcessingEnv;
+import dagger.spi.model.DiagnosticReporter;
+import dagger.testing.compile.CompilerTests;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class DiagnosticMessageGeneratorTest {
+  private static final Source LEAF =
+      CompilerTests.javaSource(
+          "test.Leaf",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Leaf {",
+          "  @Inject Leaf() {}",
+          "}");
+  private static final Source A =
+      CompilerTests.javaSource(
+          "test.A",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class A {",
+          "  @Inject A(Leaf leafOfA) {}",
+          "}");
+  private static final Source B =
+      CompilerTests.javaSource(
+          "test.B",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class B {",
+          "  @Inject B(Leaf leafOfB) {}",
+          "}");
+
+  @Test
+  public void dependencyTrace_tiedPathLengths_prefersEntryPointDeclaredInComponent() {
+    Source supertype =
+        CompilerTests.javaSource(
+            "test.Supertype",
+            "package test;",
+            "",
+            "interface Supertype {",
+            "  A inSupertype();",
+            "}");
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface TestComponent extends Supertype {",
+            "  B inComponent();",
+            "}");
+
+    assertDependencyTraces(
+        (graph, generator) -> {
+          Binding leaf = bindingWithKey(graph, "test.Leaf");
+          assertThat(trace(generator, leaf, graph.entryPointEdgesDependingOnBinding(leaf)))
+              .containsExactly("leafOfB", "inComponent")
+              .inOrder();
+        },
+        supertype,
+        component);
+  }
+
+  @Test
+  public void dependencyTrace_tiedPathLengths_prefersEntryPointDeclaredFirst() {
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface TestComponent {",
+            "  B declaredFirst();",
+            "  A declaredSecond();",
+            "}");
+
+    assertDependencyTraces(
+        (graph, generator) -> {
+          Binding leaf = bindingWithKey(graph, "test.Leaf");
+          assertThat(trace(generator, leaf, graph.entryPointEdgesDependingOnBinding(leaf)))
+              .containsExactly("leafOfB", "declaredFirst")
+              .inOrder();
+        },
+        component);
+  }
+
+  @Test
+  public void dependencyTrace_entryPointsWithoutPreferredOne_searchesFromGivenEntryPoints() {
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface TestComponent {",
+            "  B declaredFirst();",
+            "  A declaredSecond();",
+            "  Leaf leaf();",
+            "}");
+
+    assertDependencyTraces(
+        (graph, generator) -> {
+          Binding leaf = bindingWithKey(graph, "test.Leaf");
+          // The shortest path is from leaf(), which the search from all entry points finds first.
+          assertThat(trace(generator, leaf, graph.entryPointEdgesDependingOnBinding(leaf)))
+              .containsExactly("leaf");
+          assertThat(trace(generator, leaf, entryPoints(graph, "declaredFirst", "declaredSecond")))
+              .containsExactly("leafOfB", "declaredFirst")
+              .inOrder();
+          assertThat(trace(generator, leaf, entryPoints(graph, "declaredSecond")))
+              .containsExactly("leafOfA", "declaredSecond")
+              .inOrder();
+        },
+        component);
+  }
+
+  /**
+   * Compiles {@code sources} with {@link #LEAF}, {@link #A} and {@link #B}, and runs {@code
+   * assertions} on the binding graph of the component with a message generator for it.
+   */
+  private static void assertDependencyTraces(
+      DependencyTraceAssertions assertions, Source... sources) {
+    CompilerTests.daggerCompiler(
+            ImmutableList.<Source>builder().add(LEAF, A, B).addAll(Arrays.asList(sources)).build())
+        .withBindingGraphPlugins(
+            () -> new BindingGraphPlugin() {
+              private XProcessingEnv processingEnv;
+
+              @Override
+              public void init(DaggerProcessingEnv processingEnv, Map<String, String> options) {
+                this.processingEnv = processingEnv.xprocessing();
+              }
+
+              @Override
+              public void visitGraph(BindingGraph graph, DiagnosticReporter reporter) {
+                assertions.run(
+                    graph,
+                    DaggerDiagnosticMessageGeneratorTest_TestComponent.factory()
+                        .create(processingEnv)
+                        .diagnosticMessageGeneratorFactory()
+                        .create(graph));
+              }
+            })
+        .compile(subject -> subject.hasErrorCount(0));
+  }
+
+  /** Returns the names of the request elements in a dependency trace, ending at the entry point. */
+  private static ImmutableList<String> trace(
+      DiagnosticMessageGenerator generator,
+      Binding binding,
+      ImmutableSet<DependencyEdge> entryPoints) {
+    return generator.dependencyTrace(binding, entryPoints).stream()
+        .map(edge -> getSimpleName(edge.dependencyRequest().requestElement().get().xprocessing()))
+        .collect(toImmutableList());
+  }
+
+  private static ImmutableSet<DependencyEdge> entryPoints(BindingGraph graph, String... names) {
+    ImmutableSet<String> entryPointNames = ImmutableSet.copyOf(names);
+    return graph.entryPointEdges().stream()
+        .filter(
+            edge ->
+                entryPointNames.contains(
+                    getSimpleName(edge.dependencyRequest().requestElement().get().xprocessing())))
+        .collect(toImmutableSet());
+  }
+
+  private static Binding bindingWithKey(BindingGraph graph, String key) {
+    return graph.bindings().stream()
+        .filter(binding -> binding.key().toString().equals(key))
+        .findFirst()
+        .get();
+  }
+
+  private interface DependencyTraceAssertions {
+    void run(BindingGraph graph, DiagnosticMessageGenerator generator);
+  }
+
+  @Component
+  interface TestComponent {
+    DiagnosticMessageGenerator.Factory diagnosticMessageGeneratorFactory();
+
+    @Component.Factory
+    interface Factory {
+      TestComponent create(@BindsInstance XProcessingEnv processingEnv);
+    }
+  }
+}
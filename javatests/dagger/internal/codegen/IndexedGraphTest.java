@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import dagger.internal.codegen.base.IndexedGraph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link IndexedGraph}. */
+@RunWith(JUnit4.class)
+public final class IndexedGraphTest {
+  @Test
+  public void successors_inOrderAdded() {
+    IndexedGraph graph =
+        IndexedGraph.builder(4).addEdge(0, 3).addEdge(2, 1).addEdge(0, 1).addEdge(0, 2).build();
+
+    assertThat(graph.nodeCount()).isEqualTo(4);
+    assertThat(successors(graph, 0)).asList().containsExactly(3, 1, 2).inOrder();
+    assertThat(successors(graph, 1)).isEmpty();
+    assertThat(successors(graph, 2)).asList().containsExactly(1);
+    assertThat(successors(graph, 3)).isEmpty();
+  }
+
+  @Test
+  public void parallelEdges_collapsed() {
+    IndexedGraph graph =
+        IndexedGraph.builder(3)
+            .addEdge(0, 1)
+            .addEdge(0, 2)
+            .addEdge(0, 1)
+            .addEdge(1, 2)
+            .addEdge(0, 2)
+            .addEdge(1, 2)
+            .build();
+
+    assertThat(successors(graph, 0)).asList().containsExactly(1, 2).inOrder();
+    assertThat(successors(graph, 1)).asList().containsExactly(2);
+  }
+
+  @Test
+  public void selfLoops_kept() {
+    IndexedGraph graph =
+        IndexedGraph.builder(2).addEdge(0, 0).addEdge(0, 1).addEdge(1, 1).addEdge(1, 1).build();
+
+    assertThat(successors(graph, 0)).asList().containsExactly(0, 1).inOrder();
+    assertThat(successors(graph, 1)).asList().containsExactly(1);
+  }
+
+  @Test
+  public void manyEdges() {
+    int nodeCount = 1000;
+    IndexedGraph.Builder builder = IndexedGraph.builder(nodeCount);
+    for (int node = 0; node < nodeCount; node++) {
+      builder.addEdge(node, (node + 1) % nodeCount).addEdge(node, (node + 7) % nodeCount);
+    }
+    IndexedGraph graph = builder.build();
+
+    for (int node = 0; node < nodeCount; node++) {
+      assertThat(successors(graph, node))
+          .asList()
+          .containsExactly((node + 1) % nodeCount, (node + 7) % nodeCount)
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void invalidNodes() {
+    IndexedGraph.Builder builder = IndexedGraph.builder(2);
+    assertThrows(IndexOutOfBoundsException.class, () -> builder.addEdge(0, 2));
+    assertThrows(IndexOutOfBoundsException.class, () -> builder.addEdge(-1, 0));
+
+    IndexedGraph graph = builder.addEdge(0, 1).build();
+    assertThrows(IndexOutOfBoundsException.class, () -> graph.successor(0, 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> graph.successor(1, 0));
+  }
+
+  @Test
+  public void shortestPath() {
+    // 0 -> 1 -> 2 -> 3 -> 4
+    //  \-> 5 -> 6 ----^
+    IndexedGraph graph =
+        IndexedGraph.builder(7)
+            .addEdge(0, 1)
+            .addEdge(1, 2)
+            .addEdge(2, 3)
+            .addEdge(3, 4)
+            .addEdge(0, 5)
+            .addEdge(5, 6)
+            .addEdge(6, 4)
+            .build();
+
+    assertThat(graph.shortestPath(0, 4, node -> true)).asList().containsExactly(0, 5, 6, 4);
+    assertThat(graph.shortestPath(0, 4, node -> node != 6))
+        .asList()
+        .containsExactly(0, 1, 2, 3, 4)
+        .inOrder();
+    assertThat(graph.shortestPath(0, 4, node -> node != 6 && node != 3)).isEmpty();
+    assertThat(graph.shortestPath(4, 0, node -> true)).isEmpty();
+    assertThat(graph.shortestPath(2, 2, node -> true)).asList().containsExactly(2);
+  }
+
+  @Test
+  public void shortestPath_throughCycle() {
+    // 0 -> 1 -> 2 -> 0, 2 -> 2
+    IndexedGraph graph =
+        IndexedGraph.builder(3).addEdge(0, 1).addEdge(1, 2).addEdge(2, 0).addEdge(2, 2).build();
+
+    assertThat(graph.shortestPath(1, 0, node -> true)).asList().containsExactly(1, 2, 0).inOrder();
+    assertThat(graph.shortestPath(2, 1, node -> true)).asList().containsExactly(2, 0, 1).inOrder();
+  }
+
+  private static int[] successors(IndexedGraph graph, int node) {
+    int[] successors = new int[graph.successorCount(node)];
+    for (int i = 0; i < successors.length; i++) {
+      successors[i] = graph.successor(node, i);
+    }
+    return successors;
+  }
+}
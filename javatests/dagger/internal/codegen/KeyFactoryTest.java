@@ -268,6 +268,26 @@ public class KeyFactoryTest {
     assertThat(integerKey.toString()).isEqualTo("java.lang.Integer");
   }
 
+  @Test public void equalKeysAreInternedUntilCacheIsCleared() {
+    XTypeElement primitiveHolder =
+        processingEnv.requireTypeElement(PrimitiveTypes.class.getCanonicalName());
+    XMethodElement intMethod = getOnlyElement(primitiveHolder.getDeclaredMethods());
+    XTypeElement boxedPrimitiveHolder =
+        processingEnv.requireTypeElement(BoxedPrimitiveTypes.class.getCanonicalName());
+    XMethodElement integerMethod = getOnlyElement(boxedPrimitiveHolder.getDeclaredMethods());
+
+    Key intKey = keyFactory.forProvidesMethod(intMethod, primitiveHolder);
+    Key integerKey = keyFactory.forProvidesMethod(integerMethod, boxedPrimitiveHolder);
+    assertThat(integerKey).isSameInstanceAs(intKey);
+    assertThat(keyFactory.forInjectConstructorWithResolvedType(integerMethod.getReturnType()))
+        .isSameInstanceAs(intKey);
+
+    keyFactory.clearCache();
+    Key integerKeyInNextRound = keyFactory.forProvidesMethod(integerMethod, boxedPrimitiveHolder);
+    assertThat(integerKeyInNextRound).isEqualTo(intKey);
+    assertThat(integerKeyInNextRound).isNotSameInstanceAs(intKey);
+  }
+
   @Test public void forProducesMethod() {
     XType stringType = processingEnv.requireType(String.class.getCanonicalName());
     XTypeElement moduleElement =
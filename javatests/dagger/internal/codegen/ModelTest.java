@@ -16,10 +16,15 @@
 
 package dagger.internal.codegen;
 
+import static com.google.common.truth.Truth.assertThat;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 import static dagger.spi.model.testing.BindingGraphSubject.assertThat;
 
 import androidx.room.compiler.processing.util.Source;
+import dagger.spi.model.Binding;
 import dagger.spi.model.BindingGraph;
+import dagger.spi.model.BindingGraph.ComponentNode;
+import dagger.spi.model.BindingGraph.DependencyEdge;
 import dagger.spi.model.BindingGraphPlugin;
 import dagger.spi.model.DiagnosticReporter;
 import dagger.testing.compile.CompilerTests;
@@ -76,4 +81,84 @@ public final class ModelTest {
             })
         .compile(subject -> subject.hasErrorCount(0));
   }
+
+  @Test
+  public void indexedQueries() {
+    Source a =
+        CompilerTests.javaSource(
+            "test.A",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class A {",
+            "  @Inject A(B b) {}",
+            "}");
+    Source b =
+        CompilerTests.javaSource(
+            "test.B",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class B {",
+            "  @Inject B() {}",
+            "}");
+    Source c =
+        CompilerTests.javaSource(
+            "test.C",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class C {",
+            "  @Inject C() {}",
+            "}");
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface TestComponent {",
+            "  A a();",
+            "  B b();",
+            "  C c();",
+            "}");
+
+    CompilerTests.daggerCompiler(a, b, c, component)
+        .withBindingGraphPlugins(
+            () -> new BindingGraphPlugin() {
+              @Override
+              public void visitGraph(BindingGraph graph, DiagnosticReporter reporter) {
+                for (Binding binding : graph.bindings()) {
+                  assertThat(graph.bindings(binding.key())).containsExactly(binding);
+                  for (DependencyEdge edge : graph.dependencyEdges(binding).values()) {
+                    assertThat(graph.dependencyEdges(edge.dependencyRequest())).contains(edge);
+                  }
+                }
+                ComponentNode root = graph.rootComponentNode();
+                assertThat(graph.componentNode(root.componentPath()).get()).isEqualTo(root);
+
+                Binding bBinding = bindingWithKey(graph, "test.B");
+                assertThat(
+                        graph.entryPointEdgesDependingOnBinding(bBinding).stream()
+                            .map(edge -> edge.dependencyRequest().key().toString())
+                            .collect(toImmutableList()))
+                    .containsExactly("test.A", "test.B");
+                assertThat(graph.requestingBindings(bBinding))
+                    .containsExactly(bindingWithKey(graph, "test.A"));
+              }
+            })
+        .compile(subject -> subject.hasErrorCount(0));
+  }
+
+  private static Binding bindingWithKey(BindingGraph graph, String key) {
+    return graph.bindings().stream()
+        .filter(binding -> binding.key().toString().equals(key))
+        .findFirst()
+        .get();
+  }
 }
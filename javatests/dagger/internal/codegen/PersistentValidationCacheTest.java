@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static dagger.internal.codegen.Compilers.CLASS_PATH_WITHOUT_GUAVA_OPTION;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import javax.tools.JavaFileObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@code -Adagger.validationCacheDirectory}. */
+@RunWith(JUnit4.class)
+public final class PersistentValidationCacheTest {
+  private static final JavaFileObject FOO =
+      JavaFileObjects.forSourceLines(
+          "library.Foo",
+          "package library;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "public final class Foo {",
+          "  @Inject Foo(Bar bar) {}",
+          "}");
+
+  private static final JavaFileObject BAR =
+      JavaFileObjects.forSourceLines(
+          "library.Bar",
+          "package library;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "public final class Bar {",
+          "  @Inject Bar() {}",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import library.Foo;",
+          "",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "}");
+
+  /** Options under which private injection sites are skipped with a warning. */
+  private static final ImmutableList<String> PRIVATE_MEMBER_WARNING_OPTIONS =
+      ImmutableList.of(
+          "-Adagger.privateMemberValidation=WARNING",
+          "-Adagger.ignorePrivateAndStaticInjectionForComponent=enabled");
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void injectTypesFromLibraries_areCachedAcrossCompilations() throws Exception {
+    File library = compileLibrary(FOO, BAR);
+    File cache = temporaryFolder.newFolder("cache");
+
+    assertThat(downstreamCompiler(library, cache).compile(COMPONENT)).succeeded();
+    ImmutableSet<Path> entries = cacheEntries(cache);
+    assertThat(entries).isNotEmpty();
+
+    assertThat(downstreamCompiler(library, cache).compile(COMPONENT)).succeeded();
+    assertThat(cacheEntries(cache)).isEqualTo(entries);
+  }
+
+  @Test
+  public void changedInjectTypes_areValidatedAgain() throws Exception {
+    File cache = temporaryFolder.newFolder("cache");
+    assertThat(downstreamCompiler(compileLibrary(FOO, BAR), cache).compile(COMPONENT))
+        .succeeded();
+    ImmutableSet<Path> entries = cacheEntries(cache);
+
+    JavaFileObject changedFoo =
+        JavaFileObjects.forSourceLines(
+            "library.Foo",
+            "package library;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Provider;",
+            "",
+            "public final class Foo {",
+            "  @Inject Foo(Provider<Bar> bar) {}",
+            "}");
+    assertThat(downstreamCompiler(compileLibrary(changedFoo, BAR), cache).compile(COMPONENT))
+        .succeeded();
+    assertThat(cacheEntries(cache)).containsAtLeastElementsIn(entries);
+    assertThat(cacheEntries(cache)).hasSize(entries.size() + 1);
+  }
+
+  @Test
+  public void injectTypesWithWarnings_areNeverCached() throws Exception {
+    JavaFileObject fooWithPrivateField =
+        JavaFileObjects.forSourceLines(
+            "library.Foo",
+            "package library;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "public final class Foo {",
+            "  @Inject private Bar bar;",
+            "",
+            "  @Inject Foo() {}",
+            "}");
+    File library =
+        compileLibrary(
+            compilerWithOptions(PRIVATE_MEMBER_WARNING_OPTIONS), fooWithPrivateField, BAR);
+    File cache = temporaryFolder.newFolder("cache");
+
+    Compilation compilation =
+        downstreamCompiler(library, cache, PRIVATE_MEMBER_WARNING_OPTIONS).compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation).hadWarningContaining("Dagger does not support injection into private");
+    ImmutableSet<Path> entries = cacheEntries(cache);
+
+    // The clean results cached for the other types don't hide Foo's warning.
+    compilation =
+        downstreamCompiler(library, cache, PRIVATE_MEMBER_WARNING_OPTIONS).compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation).hadWarningContaining("Dagger does not support injection into private");
+    assertThat(cacheEntries(cache)).isEqualTo(entries);
+  }
+
+  @Test
+  public void noCacheDirectory_writesNothing() throws Exception {
+    File library = compileLibrary(FOO, BAR);
+    File cache = temporaryFolder.newFolder("cache");
+
+    Compilation compilation =
+        daggerCompiler().withClasspath(classpathWith(library)).compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(cacheEntries(cache)).isEmpty();
+  }
+
+  @Test
+  public void changedModifiers_areValidatedAgain() throws Exception {
+    assertChangeIsValidatedAgain(
+        "Dagger does not support injection into private constructors",
+        foo("public final class Foo {", "  @Inject private Foo(Bar bar) {}", "}"));
+  }
+
+  @Test
+  public void changedThrownTypes_areValidatedAgain() throws Exception {
+    assertChangeIsValidatedAgain(
+        "Dagger does not support checked exceptions on @Inject constructors",
+        foo("public final class Foo {", "  @Inject Foo(Bar bar) throws Exception {}", "}"));
+  }
+
+  @Test
+  public void changedScopes_areValidatedAgain() throws Exception {
+    assertChangeIsValidatedAgain(
+        "A single binding may not declare more than one @Scope",
+        foo(
+            "@Singleton",
+            "@Reusable",
+            "public final class Foo {",
+            "  @Inject Foo(Bar bar) {}",
+            "}"));
+  }
+
+  @Test
+  public void changedQualifiers_areValidatedAgain() throws Exception {
+    assertChangeIsValidatedAgain(
+        "A single dependency request may not use more than one @Qualifier",
+        foo(
+            "public final class Foo {",
+            "  @Qualifier @interface Other {}",
+            "",
+            "  @Inject Foo(@Named(\"bar\") @Other Bar bar) {}",
+            "}"));
+  }
+
+  @Test
+  public void changedAssistedInjectionOfDependencies_areValidatedAgain() throws Exception {
+    assertChangeIsValidatedAgain(
+        "Dagger does not support injecting @AssistedInject type",
+        JavaFileObjects.forSourceLines(
+            "library.Bar",
+            "package library;",
+            "",
+            "import dagger.assisted.AssistedInject;",
+            "",
+            "public final class Bar {",
+            "  @AssistedInject Bar() {}",
+            "}"));
+  }
+
+  /**
+   * Asserts that a downstream compilation reports {@code expectedError} after {@code
+   * changedSources} replace classes of a library whose types were validated and cached. The library
+   * keeps the factories Dagger generated before the change, so its types are still looked up in the
+   * cache.
+   */
+  private void assertChangeIsValidatedAgain(String expectedError, JavaFileObject... changedSources)
+      throws Exception {
+    File library = compileLibrary(FOO, BAR);
+    File cache = temporaryFolder.newFolder("cache");
+    assertThat(downstreamCompiler(library, cache).compile(COMPONENT)).succeeded();
+    assertThat(cacheEntries(cache)).isNotEmpty();
+
+    Compilation changedLibrary =
+        javac().withClasspath(classpathWith(library)).compile(changedSources);
+    assertThat(changedLibrary).succeeded();
+    writeClassFiles(changedLibrary, library);
+
+    Compilation compilation = downstreamCompiler(library, cache).compile(COMPONENT);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorContaining(expectedError);
+  }
+
+  /** Returns a version of {@code library.Foo} with the given declaration. */
+  private static JavaFileObject foo(String... declaration) {
+    return JavaFileObjects.forSourceLines(
+        "library.Foo",
+        ImmutableList.<String>builder()
+            .add(
+                "package library;",
+                "",
+                "import dagger.Reusable;",
+                "import javax.inject.Inject;",
+                "import javax.inject.Named;",
+                "import javax.inject.Qualifier;",
+                "import javax.inject.Singleton;",
+                "")
+            .add(declaration)
+            .build());
+  }
+
+  /** Compiles {@code sources} and returns a directory containing the class files. */
+  private File compileLibrary(JavaFileObject... sources) throws Exception {
+    return compileLibrary(daggerCompiler(), sources);
+  }
+
+  /** Compiles {@code sources} with {@code compiler} and returns a directory of the class files. */
+  private File compileLibrary(Compiler compiler, JavaFileObject... sources) throws Exception {
+    Compilation compilation = compiler.compile(sources);
+    assertThat(compilation).succeeded();
+    File classes = temporaryFolder.newFolder();
+    writeClassFiles(compilation, classes);
+    return classes;
+  }
+
+  /** Writes the class files of {@code compilation} to {@code classes}, replacing existing ones. */
+  private static void writeClassFiles(Compilation compilation, File classes) throws Exception {
+    for (JavaFileObject file : compilation.generatedFiles()) {
+      if (file.getKind().equals(JavaFileObject.Kind.CLASS)) {
+        Path path =
+            classes.toPath().resolve(file.toUri().getPath().replaceFirst("^/CLASS_OUTPUT/", ""));
+        Files.createDirectories(path.getParent());
+        try (InputStream contents = file.openInputStream()) {
+          Files.copy(contents, path, REPLACE_EXISTING);
+        }
+      }
+    }
+  }
+
+  private static Compiler downstreamCompiler(File library, File cache) {
+    return downstreamCompiler(library, cache, ImmutableList.of());
+  }
+
+  private static Compiler downstreamCompiler(
+      File library, File cache, ImmutableList<String> options) {
+    return compilerWithOptions(
+            ImmutableList.<String>builder()
+                .addAll(options)
+                .add("-Adagger.validationCacheDirectory=" + cache)
+                .build())
+        .withClasspath(classpathWith(library));
+  }
+
+  private static ImmutableList<File> classpathWith(File library) {
+    return ImmutableList.<File>builder()
+        .addAll(CLASS_PATH_WITHOUT_GUAVA_OPTION)
+        .add(library)
+        .build();
+  }
+
+  private static ImmutableSet<Path> cacheEntries(File cache) throws Exception {
+    try (Stream<Path> files = Files.walk(cache.toPath())) {
+      return files.filter(Files::isRegularFile).collect(toImmutableSet());
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@code -Adagger.profileReport}. */
+@RunWith(JUnit4.class)
+public final class ProcessingProfilerTest {
+  private static final JavaFileObject FOO =
+      JavaFileObjects.forSourceLines(
+          "test.Foo",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Foo {",
+          "  @Inject Foo() {}",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "}");
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void jsonReport() throws Exception {
+    Path report = compileWithProfileReport("report.json");
+
+    String json = new String(Files.readAllBytes(report), UTF_8);
+    assertThat(json).startsWith("[");
+    assertThat(json).contains("\"phase\": \"BindingGraphFactory.create\"");
+    assertThat(json).contains("\"subject\": \"test.TestComponent\"");
+    assertThat(json).contains("\"nodes\": ");
+    assertThat(json).contains("\"phase\": \"ComponentProcessingStep\"");
+    assertThat(json).contains("\"phase\": \"ComponentGenerator.write\"");
+    assertThat(json).contains("\"phase\": \"plugin Dagger/DependencyCycle\"");
+  }
+
+  @Test
+  public void csvReport() throws Exception {
+    Path report = compileWithProfileReport("report.csv");
+
+    List<String> lines = Files.readAllLines(report, UTF_8);
+    assertThat(lines.get(0)).startsWith("round,phase,subject,wallNanos,allocatedBytes");
+    assertThat(lines.get(0)).contains("nodes");
+    assertThat(lines.get(0)).contains("lines");
+    assertThat(lines.stream().anyMatch(line -> line.contains(",BindingGraphFactory.create,")))
+        .isTrue();
+    assertThat(lines.stream().anyMatch(line -> line.contains(",ComponentGenerator.write,")))
+        .isTrue();
+  }
+
+  @Test
+  public void deferralCounts() throws Exception {
+    JavaFileObject usesMissingType =
+        JavaFileObjects.forSourceLines(
+            "test.UsesMissingType",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class UsesMissingType {",
+            "  @Inject UsesMissingType() {}",
+            "",
+            "  MissingType missingType() {",
+            "    return null;",
+            "  }",
+            "}");
+    Path report = temporaryFolder.newFolder().toPath().resolve("report.json");
+    Compilation compilation =
+        compilerWithOptions("-Adagger.profileReport=" + report).compile(usesMissingType);
+
+    assertThat(compilation).failed();
+    String json = new String(Files.readAllBytes(report), UTF_8);
+    assertThat(json)
+        .contains("\"phase\": \"deferral\", \"subject\": \"InjectProcessingStep\"");
+    assertThat(json).contains("\"deferred\": 1, \"stillBlocked\": 0, \"revalidated\": 0");
+  }
+
+  private Path compileWithProfileReport(String fileName) throws Exception {
+    Path report = temporaryFolder.newFolder().toPath().resolve(fileName);
+    Compilation compilation =
+        compilerWithOptions("-Adagger.profileReport=" + report).compile(FOO, COMPONENT);
+
+    assertThat(compilation).succeeded();
+    assertThat(Files.exists(report)).isTrue();
+    return report;
+  }
+}
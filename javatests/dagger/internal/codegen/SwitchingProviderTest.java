@@ -16,12 +16,18 @@
 
 package dagger.internal.codegen;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import androidx.room.compiler.processing.util.Source;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import dagger.testing.compile.CompilerTests;
 import dagger.testing.golden.GoldenFileRule;
+import java.io.File;
+import java.nio.file.Files;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
@@ -34,6 +40,7 @@ public class SwitchingProviderTest {
   }
 
   @Rule public GoldenFileRule goldenFileRule = new GoldenFileRule();
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
   private final CompilerMode compilerMode;
 
@@ -304,4 +311,84 @@ public class SwitchingProviderTest {
               subject.generatedSource(goldenFileRule.goldenSource("test/DaggerTestComponent"));
             });
   }
+
+  @Test
+  public void casesPerSwitchAndHotKeys() throws Exception {
+    ImmutableList.Builder<Source> sources = ImmutableList.builder();
+    StringBuilder entryPoints = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      String bindingName = "Binding" + i;
+      sources.add(
+          CompilerTests.javaSource(
+              "test." + bindingName,
+              "package test;",
+              "",
+              "import javax.inject.Inject;",
+              "",
+              "final class " + bindingName + " {",
+              "  @Inject",
+              "  " + bindingName + "() {}",
+              "}"));
+      entryPoints.append(String.format("  Provider<%1$s> get%1$sProvider();\n", bindingName));
+    }
+
+    sources.add(
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Provider;",
+            "",
+            "@Component",
+            "interface TestComponent {",
+            entryPoints.toString(),
+            "}"));
+
+    File hotKeysProfile = temporaryFolder.newFile("hot_keys.txt");
+    Files.write(
+        hotKeysProfile.toPath(),
+        ImmutableList.of("# The hottest bindings", "test.Binding3", ""),
+        UTF_8);
+
+    CompilerTests.daggerCompiler(sources.build())
+        .withProcessingOptions(
+            ImmutableMap.<String, String>builder()
+                .putAll(compilerMode.processorOptions())
+                .put("dagger.switchingProviderCasesPerSwitch", "3")
+                .put("dagger.switchingProviderHotKeysProfile", hotKeysProfile.getPath())
+                .put("dagger.switchingProviderHotKeys", "test.Binding7")
+                .buildOrThrow())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject.hasWarningCount(0);
+              subject.generatedSource(goldenFileRule.goldenSource("test/DaggerTestComponent"));
+            });
+  }
+
+  @Test
+  public void missingHotKeysProfile() throws Exception {
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface TestComponent {}");
+
+    CompilerTests.daggerCompiler(component)
+        .withProcessingOptions(
+            ImmutableMap.<String, String>builder()
+                .putAll(compilerMode.processorOptions())
+                .put("dagger.switchingProviderHotKeysProfile", "does/not/exist.txt")
+                .buildOrThrow())
+        .compile(
+            subject ->
+                subject.hasErrorContaining(
+                    "Processor option -Adagger.switchingProviderHotKeysProfile could not be read "
+                        + "from does/not/exist.txt"));
+  }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.graph.SuccessorsFunction;
+import dagger.internal.codegen.base.IndexedGraph;
+import dagger.internal.codegen.base.TarjanSCCs;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TarjanSCCs#compute(IndexedGraph)}. */
+@RunWith(JUnit4.class)
+public final class TarjanSCCsTest {
+  @Test
+  public void emptyGraph() {
+    assertThat(TarjanSCCs.compute(IndexedGraph.builder(0).build())).isEmpty();
+  }
+
+  @Test
+  public void noEdges() {
+    assertThat(TarjanSCCs.compute(IndexedGraph.builder(3).build()))
+        .asList()
+        .containsExactly(0, 1, 2)
+        .inOrder();
+  }
+
+  @Test
+  public void selfLoop() {
+    // 0 -> 0 -> 1
+    int[] components =
+        TarjanSCCs.compute(IndexedGraph.builder(2).addEdge(0, 0).addEdge(0, 1).build());
+
+    assertThat(components).asList().containsExactly(1, 0).inOrder();
+  }
+
+  @Test
+  public void parallelEdges() {
+    // 0 => 1 => 0, 1 => 2
+    int[] components =
+        TarjanSCCs.compute(
+            IndexedGraph.builder(3)
+                .addEdge(0, 1)
+                .addEdge(0, 1)
+                .addEdge(1, 0)
+                .addEdge(1, 0)
+                .addEdge(1, 2)
+                .addEdge(1, 2)
+                .build());
+
+    assertThat(components).asList().containsExactly(1, 1, 0).inOrder();
+  }
+
+  @Test
+  public void nestedCycles() {
+    // The cycles 0 -> 1 -> 2 -> 0 and 1 -> 3 -> 1 share node 1, so they form one component, which
+    // depends on the cycle 5 -> 6 -> 5 and is depended on by 4.
+    int[] components =
+        TarjanSCCs.compute(
+            IndexedGraph.builder(7)
+                .addEdge(0, 1)
+                .addEdge(1, 2)
+                .addEdge(2, 0)
+                .addEdge(1, 3)
+                .addEdge(3, 1)
+                .addEdge(4, 0)
+                .addEdge(2, 5)
+                .addEdge(5, 6)
+                .addEdge(6, 5)
+                .build());
+
+    assertThat(components[1]).isEqualTo(components[0]);
+    assertThat(components[2]).isEqualTo(components[0]);
+    assertThat(components[3]).isEqualTo(components[0]);
+    assertThat(components[6]).isEqualTo(components[5]);
+    assertThat(components[5]).isLessThan(components[0]);
+    assertThat(components[0]).isLessThan(components[4]);
+  }
+
+  @Test
+  public void deepChain() {
+    // 0 -> 1 -> ... -> n - 1, deeper than a recursive search could go.
+    int nodeCount = 200_000;
+    IndexedGraph.Builder builder = IndexedGraph.builder(nodeCount);
+    for (int node = 0; node < nodeCount - 1; node++) {
+      builder.addEdge(node, node + 1);
+    }
+    int[] components = TarjanSCCs.compute(builder.build());
+
+    for (int node = 0; node < nodeCount; node++) {
+      assertThat(components[node]).isEqualTo(nodeCount - 1 - node);
+    }
+  }
+
+  @Test
+  public void deepCycle() {
+    // 0 -> 1 -> ... -> n - 1 -> 0
+    int nodeCount = 200_000;
+    IndexedGraph.Builder builder = IndexedGraph.builder(nodeCount);
+    for (int node = 0; node < nodeCount; node++) {
+      builder.addEdge(node, (node + 1) % nodeCount);
+    }
+    int[] components = TarjanSCCs.compute(builder.build());
+
+    for (int node = 0; node < nodeCount; node++) {
+      assertThat(components[node]).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void randomGraphs_sameComponentsAsRecursiveImplementation() {
+    Random random = new Random(0);
+    for (int graphs = 0; graphs < 100; graphs++) {
+      int nodeCount = 1 + random.nextInt(50);
+      IndexedGraph.Builder builder = IndexedGraph.builder(nodeCount);
+      ImmutableSetMultimap.Builder<Integer, Integer> edges = ImmutableSetMultimap.builder();
+      for (int i = random.nextInt(nodeCount * 3); i > 0; i--) {
+        int source = random.nextInt(nodeCount);
+        int target = random.nextInt(nodeCount);
+        builder.addEdge(source, target);
+        edges.put(source, target);
+      }
+      IndexedGraph graph = builder.build();
+      ImmutableSetMultimap<Integer, Integer> successors = edges.build();
+      int[] components = TarjanSCCs.compute(graph);
+
+      ImmutableList.Builder<Integer> nodes = ImmutableList.builder();
+      for (int node = 0; node < nodeCount; node++) {
+        nodes.add(node);
+      }
+      ImmutableSet<ImmutableSet<Integer>> expectedComponents =
+          TarjanSCCs.compute(nodes.build(), (SuccessorsFunction<Integer>) successors::get);
+      int componentCount = 0;
+      for (ImmutableSet<Integer> expectedComponent : expectedComponents) {
+        int component = components[expectedComponent.iterator().next()];
+        for (int node : expectedComponent) {
+          assertThat(components[node]).isEqualTo(component);
+        }
+        componentCount++;
+      }
+      assertThat(Arrays.stream(components).distinct().count()).isEqualTo(componentCount);
+
+      // Components are in reverse topological order.
+      for (int source = 0; source < nodeCount; source++) {
+        for (int target : successors.get(source)) {
+          assertThat(components[target]).isAtMost(components[source]);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.tools.JavaFileObject;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the peak heap of running the Dagger processor over a synthetic project with {@link
+ * #components} root components, like a compilation full of Hilt test roots. Every component has
+ * its own module, and an entry point that depends on all {@link #bindings} {@code @Inject} types
+ * in the project, so each component has a binding graph and implementation of that size.
+ *
+ * <p>The score is the time to process the project. The peak heap, i.e. the most heap still in use
+ * right after any garbage collection, is reported as {@code peakHeapMegabytes}. JMH adds up
+ * auxiliary counters over all iterations, so only one iteration is measured. Check that the peak
+ * stays flat as {@link #components} grows, i.e. that nothing from one component is kept while the
+ * next ones are processed, with e.g.:
+ *
+ * <pre>
+ *   bazel run //javatests/dagger/internal/codegen/benchmarks:codegen_benchmarks -- \
+ *       ComponentProcessingHeapBenchmark -p components=50,100,200
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComponentProcessingHeapBenchmark {
+  @Param("200")
+  int components;
+
+  @Param("300")
+  int bindings;
+
+  private ImmutableList<JavaFileObject> sources;
+
+  /** The most heap in use right after a garbage collection during each iteration. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PeakHeapCounter {
+    public long peakHeapMegabytes;
+
+    private PeakHeap peakHeap;
+
+    @Setup(Level.Trial)
+    public void addListener() {
+      peakHeap = new PeakHeap();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      System.gc();
+      peakHeap.reset();
+      peakHeapMegabytes = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void recordPeakHeap() {
+      peakHeapMegabytes = peakHeap.peakBytes() >> 20;
+    }
+
+    @TearDown(Level.Trial)
+    public void removeListener() throws Exception {
+      peakHeap.remove();
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void createProject() {
+    List<JavaFileObject> sources = new ArrayList<>();
+    for (int i = 0; i < bindings; i++) {
+      // Each type depends on the previous one and on one halfway back, so the graph is connected
+      // but not just a chain.
+      sources.add(
+          JavaFileObjects.forSourceLines(
+              "test.Dep" + i,
+              "package test;",
+              "",
+              "import javax.inject.Inject;",
+              "",
+              "final class Dep" + i + " {",
+              i == 0
+                  ? "  @Inject Dep0(String string) {}"
+                  : String.format(
+                      "  @Inject Dep%s(Dep%s previous, Dep%s half) {}", i, i - 1, i / 2),
+              "}"));
+    }
+    for (int i = 0; i < components; i++) {
+      sources.add(
+          JavaFileObjects.forSourceLines(
+              "test.TestComponent" + i,
+              "package test;",
+              "",
+              "import dagger.Component;",
+              "import dagger.Module;",
+              "import dagger.Provides;",
+              "",
+              "@Component(modules = TestComponent" + i + ".TestModule.class)",
+              "interface TestComponent" + i + " {",
+              "  Dep" + (bindings - 1) + " dep();",
+              "",
+              "  @Module",
+              "  interface TestModule {",
+              "    @Provides",
+              "    static String string() {",
+              "      return \"" + i + "\";",
+              "    }",
+              "  }",
+              "}"));
+    }
+    this.sources = ImmutableList.copyOf(sources);
+  }
+
+  @Benchmark
+  public Compilation.Status processProject(PeakHeapCounter peakHeapCounter) {
+    return compilerWithOptions("-proc:only").compile(sources).status();
+  }
+
+  /** Tracks the most heap that was in use right after a garbage collection. */
+  private static final class PeakHeap implements NotificationListener {
+    private final ImmutableSet<String> heapPools =
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .map(MemoryPoolMXBean::getName)
+            .collect(toImmutableSet());
+    private final AtomicLong peakBytes = new AtomicLong();
+
+    PeakHeap() {
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+        ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+      }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+      if (!notification
+          .getType()
+          .equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+        return;
+      }
+      long usedBytes = 0;
+      for (Map.Entry<String, MemoryUsage> pool :
+          GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData())
+              .getGcInfo()
+              .getMemoryUsageAfterGc()
+              .entrySet()) {
+        if (heapPools.contains(pool.getKey())) {
+          usedBytes += pool.getValue().getUsed();
+        }
+      }
+      peakBytes.accumulateAndGet(usedBytes, Math::max);
+    }
+
+    long peakBytes() {
+      return peakBytes.get();
+    }
+
+    void reset() {
+      peakBytes.set(0);
+    }
+
+    void remove() throws Exception {
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+        ((NotificationEmitter) collector).removeNotificationListener(this);
+      }
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.tools.JavaFileObject;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code DependencyCycleValidator} while the Dagger processor validates a synthetic
+ * component with {@link #bindings} {@code @Inject} types in 100 layers. Each type depends on three
+ * types in the next layer, and one in ten of those dependencies is a {@code Provider} that breaks
+ * cycles. {@link #cycles} types are also depended on by their first dependency, which makes a
+ * dependency cycle. The component has an entry point for every type in the first layer.
+ *
+ * <p>The score is the time to process the project. The time the validator took is read from the
+ * {@code -Adagger.profileReport} and reported as {@code dependencyCycleMillis}. JMH adds up
+ * auxiliary counters over all iterations, so only one iteration is measured. Compare graphs with
+ * and without cycles with e.g.:
+ *
+ * <pre>
+ *   bazel run //javatests/dagger/internal/codegen/benchmarks:codegen_benchmarks -- \
+ *       DependencyCycleBenchmark -p bindings=2000,10000 -p cycles=0,10
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DependencyCycleBenchmark {
+  private static final int LAYERS = 100;
+  private static final int DEPENDENCIES_PER_BINDING = 3;
+
+  @Param("5000")
+  int bindings;
+
+  @Param("0")
+  int cycles;
+
+  private ImmutableList<JavaFileObject> sources;
+  private Path report;
+
+  /** The time {@code DependencyCycleValidator} took in each iteration. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class ValidatorTime {
+    public double dependencyCycleMillis;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      dependencyCycleMillis = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void createProject() throws IOException {
+    Random random = new Random(0);
+    int layerSize = bindings / LAYERS;
+    List<List<String>> dependencies = new ArrayList<>();
+    for (int i = 0; i < bindings; i++) {
+      List<String> dependenciesOfBinding = new ArrayList<>();
+      if (i < bindings - layerSize) {
+        // The first dependency is in the same position in the next layer, so that every type is
+        // reachable from an entry point.
+        dependenciesOfBinding.add("Dep" + (i + layerSize));
+        int nextLayer = (i / layerSize + 1) * layerSize;
+        for (int j = 1; j < DEPENDENCIES_PER_BINDING; j++) {
+          String dependency = "Dep" + (nextLayer + random.nextInt(layerSize));
+          dependenciesOfBinding.add(
+              random.nextInt(10) == 0 ? "Provider<" + dependency + ">" : dependency);
+        }
+      }
+      dependencies.add(dependenciesOfBinding);
+    }
+    for (int i = 0; i < cycles; i++) {
+      int binding = random.nextInt(bindings - layerSize);
+      dependencies.get(binding + layerSize).add("Dep" + binding);
+    }
+
+    List<JavaFileObject> sources = new ArrayList<>();
+    for (int i = 0; i < bindings; i++) {
+      List<String> parameters = new ArrayList<>();
+      for (String dependency : dependencies.get(i)) {
+        parameters.add(dependency + " dep" + parameters.size());
+      }
+      sources.add(
+          JavaFileObjects.forSourceLines(
+              "test.Dep" + i,
+              "package test;",
+              "",
+              "import javax.inject.Inject;",
+              "import javax.inject.Provider;",
+              "",
+              "final class Dep" + i + " {",
+              "  @Inject Dep" + i + "(" + String.join(", ", parameters) + ") {}",
+              "}"));
+    }
+    List<String> component = new ArrayList<>();
+    component.add("package test;");
+    component.add("");
+    component.add("@dagger.Component");
+    component.add("interface TestComponent {");
+    for (int i = 0; i < layerSize; i++) {
+      component.add("  Dep" + i + " dep" + i + "();");
+    }
+    component.add("}");
+    sources.add(JavaFileObjects.forSourceLines("test.TestComponent", component));
+    this.sources = ImmutableList.copyOf(sources);
+    this.report = Files.createTempFile("dagger-profile", ".csv");
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteReport() throws IOException {
+    Files.delete(report);
+  }
+
+  @Benchmark
+  public Compilation.Status processProject(ValidatorTime validatorTime) throws IOException {
+    Compilation.Status status =
+        compilerWithOptions("-proc:only", "-Adagger.profileReport=" + report)
+            .compile(sources)
+            .status();
+    validatorTime.dependencyCycleMillis +=
+        ProfileReports.pluginWallNanos(report, "Dagger/DependencyCycle") / 1e6;
+    return status;
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.tools.JavaFileObject;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code DuplicateBindingsValidator} while the Dagger processor validates a synthetic
+ * project with about {@link #bindings} bindings in a root component, 4 child subcomponents and 16
+ * grandchild subcomponents. Every binding is a {@code @Provides} method for a qualified {@code
+ * String} with an entry point in the component that binds it.
+ *
+ * <p>The project has {@link #multibindingContributions} contributions to 1 multibound set per 50
+ * contributions, in random components, and every component has an entry point for each set. A
+ * tenth of the other keys are bound in the root component and depend on a set that the
+ * grandchildren contribute to, and a random grandchild has an entry point for each of them, so
+ * their bindings are copied to that grandchild. {@link #duplicates} keys are bound twice.
+ *
+ * <p>The score is the time to process the project. The time the validator took is read from the
+ * {@code -Adagger.profileReport} and reported as {@code duplicateBindingsMillis}. JMH adds up
+ * auxiliary counters over all iterations, so only one iteration is measured. Compare projects
+ * with and without duplicates with e.g.:
+ *
+ * <pre>
+ *   bazel run //javatests/dagger/internal/codegen/benchmarks:codegen_benchmarks -- \
+ *       DuplicateBindingsBenchmark -p bindings=5000,20000 -p duplicates=0,10
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DuplicateBindingsBenchmark {
+  private static final int CHILDREN = 4;
+  private static final int CONTRIBUTIONS_PER_MULTIBINDING = 50;
+  private static final String RETURN_STRING = " { return \"\"; }";
+
+  @Param("10000")
+  int bindings;
+
+  @Param("1000")
+  int multibindingContributions;
+
+  @Param("0")
+  int duplicates;
+
+  private ImmutableList<JavaFileObject> sources;
+  private Path report;
+
+  /** The time {@code DuplicateBindingsValidator} took in each iteration. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class ValidatorTime {
+    public double duplicateBindingsMillis;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      duplicateBindingsMillis = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void createProject() throws IOException {
+    Random random = new Random(0);
+    List<ComponentSource> components = new ArrayList<>();
+    List<ComponentSource> grandchildren = new ArrayList<>();
+    ComponentSource root = new ComponentSource("TestComponent", null);
+    components.add(root);
+    for (int i = 0; i < CHILDREN; i++) {
+      ComponentSource child = new ComponentSource("Child" + i, root);
+      components.add(child);
+      for (int j = 0; j < CHILDREN; j++) {
+        ComponentSource grandchild = new ComponentSource("Grandchild" + i + "_" + j, child);
+        components.add(grandchild);
+        grandchildren.add(grandchild);
+      }
+    }
+
+    int multibindings = Math.max(1, multibindingContributions / CONTRIBUTIONS_PER_MULTIBINDING);
+    for (int i = 0; i < multibindings; i++) {
+      String key = "multibinding" + i;
+      root.moduleMethods.add(
+          "  @Multibinds @Named(\"" + key + "\") abstract Set<String> declare" + i + "();");
+      for (ComponentSource component : components) {
+        component.componentMethods.add("  @Named(\"" + key + "\") Set<String> " + key + "();");
+      }
+    }
+    for (int i = 0; i < multibindingContributions; i++) {
+      components
+          .get(random.nextInt(components.size()))
+          .moduleMethods
+          .add(
+              "  @Provides @IntoSet @Named(\"multibinding"
+                  + (i % multibindings)
+                  + "\") static String contribution"
+                  + i
+                  + "()"
+                  + RETURN_STRING);
+    }
+
+    int remainingBindings =
+        bindings - multibindings * components.size() - multibindingContributions;
+    int copiedKeys = remainingBindings / 10;
+    root.moduleMethods.add("  @Multibinds @Named(\"local\") abstract Set<String> declareLocal();");
+    for (ComponentSource grandchild : grandchildren) {
+      grandchild.moduleMethods.add(
+          "  @Provides @IntoSet @Named(\"local\") static String local()" + RETURN_STRING);
+    }
+    for (int i = 0; i < copiedKeys; i++) {
+      String key = "copied" + i;
+      root.provide(key, "@Named(\"local\") Set<String> local");
+      grandchildren.get(random.nextInt(grandchildren.size())).entryPoint(key);
+    }
+    int uniqueKeys = remainingBindings - 2 * copiedKeys;
+    for (int i = 0; i < uniqueKeys; i++) {
+      components.get(random.nextInt(components.size())).provide("unique" + i, "");
+    }
+    for (int i = 0; i < duplicates; i++) {
+      components
+          .get(random.nextInt(components.size()))
+          .moduleMethods
+          .add(
+              "  @Provides @Named(\"unique"
+                  + random.nextInt(uniqueKeys)
+                  + "\") static String duplicate"
+                  + i
+                  + "()"
+                  + RETURN_STRING);
+    }
+
+    ImmutableList.Builder<JavaFileObject> sources = ImmutableList.builder();
+    for (ComponentSource component : components) {
+      component.addSources(sources);
+    }
+    this.sources = sources.build();
+    this.report = Files.createTempFile("dagger-profile", ".csv");
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteReport() throws IOException {
+    Files.delete(report);
+  }
+
+  @Benchmark
+  public Compilation.Status processProject(ValidatorTime validatorTime) throws IOException {
+    Compilation.Status status =
+        compilerWithOptions("-proc:only", "-Adagger.profileReport=" + report)
+            .compile(sources)
+            .status();
+    validatorTime.duplicateBindingsMillis +=
+        ProfileReports.pluginWallNanos(report, "Dagger/DuplicateBindings") / 1e6;
+    return status;
+  }
+
+  /** The source of a component or subcomponent and its module. */
+  private static final class ComponentSource {
+    final String name;
+    final ComponentSource parent;
+    final List<String> componentMethods = new ArrayList<>();
+    final List<String> moduleMethods = new ArrayList<>();
+
+    ComponentSource(String name, ComponentSource parent) {
+      this.name = name;
+      this.parent = parent;
+      if (parent != null) {
+        parent.componentMethods.add("  " + name + " " + name.toLowerCase() + "();");
+      }
+    }
+
+    /** Binds {@code key} in this component's module, with an entry point for it. */
+    void provide(String key, String parameters) {
+      moduleMethods.add(
+          "  @Provides @Named(\""
+              + key
+              + "\") static String "
+              + key
+              + "("
+              + parameters
+              + ")"
+              + RETURN_STRING);
+      entryPoint(key);
+    }
+
+    void entryPoint(String key) {
+      componentMethods.add("  @Named(\"" + key + "\") String " + key + "();");
+    }
+
+    void addSources(ImmutableList.Builder<JavaFileObject> sources) {
+      List<String> component = new ArrayList<>();
+      component.add("package test;");
+      component.add("");
+      component.add("import java.util.Set;");
+      component.add("import javax.inject.Named;");
+      component.add("");
+      component.add(
+          (parent == null ? "@dagger.Component" : "@dagger.Subcomponent")
+              + "(modules = "
+              + name
+              + "Module.class)");
+      component.add("interface " + name + " {");
+      component.addAll(componentMethods);
+      component.add("}");
+      sources.add(JavaFileObjects.forSourceLines("test." + name, component));
+
+      List<String> module = new ArrayList<>();
+      module.add("package test;");
+      module.add("");
+      module.add("import dagger.Provides;");
+      module.add("import dagger.multibindings.IntoSet;");
+      module.add("import dagger.multibindings.Multibinds;");
+      module.add("import java.util.Set;");
+      module.add("import javax.inject.Named;");
+      module.add("");
+      module.add("@dagger.Module");
+      module.add("abstract class " + name + "Module {");
+      module.addAll(moduleMethods);
+      module.add("}");
+      sources.add(JavaFileObjects.forSourceLines("test." + name + "Module", module));
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/** Reads the CSV report written for {@code -Adagger.profileReport=<path>}. */
+final class ProfileReports {
+  /**
+   * Returns the total wall time, in nanoseconds, of every visit of a binding graph by the plugin
+   * named {@code pluginName} in the report at {@code path}.
+   */
+  static long pluginWallNanos(Path path, String pluginName) throws IOException {
+    List<String> lines = Files.readAllLines(path, UTF_8);
+    ImmutableList<String> header = fields(lines.get(0));
+    int phase = header.indexOf("phase");
+    int wallNanos = header.indexOf("wallNanos");
+    long total = 0;
+    for (String line : lines.subList(1, lines.size())) {
+      ImmutableList<String> fields = fields(line);
+      if (fields.get(phase).equals("plugin " + pluginName)) {
+        total += Long.parseLong(fields.get(wallNanos));
+      }
+    }
+    return total;
+  }
+
+  private static ImmutableList<String> fields(String line) {
+    ImmutableList.Builder<String> fields = ImmutableList.builder();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '"') {
+        if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = !quoted;
+        }
+      } else if (c == ',' && !quoted) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    return fields.add(field.toString()).build();
+  }
+
+  private ProfileReports() {}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.validation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.room.compiler.processing.XTypeElement;
+import androidx.room.compiler.processing.util.Source;
+import dagger.testing.compile.CompilerTests;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PersistentValidationCacheTest {
+  private static final Source FOO =
+      CompilerTests.javaSource("test.Foo", "package test;", "", "final class Foo {}");
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void cacheHit_skipsValidator() {
+    CompilerTests.invocationCompiler(FOO)
+        .compile(
+            invocation -> {
+              XTypeElement foo = invocation.getProcessingEnv().requireTypeElement("test.Foo");
+              PersistentValidationCache cache =
+                  new PersistentValidationCache(
+                      Optional.of(newCacheDirectory()), Optional.of("build"));
+              AtomicInteger validations = new AtomicInteger();
+              Function<XTypeElement, ValidationReport> validator =
+                  type -> {
+                    validations.incrementAndGet();
+                    return ValidationReport.about(type).build();
+                  };
+
+              assertThat(cache.validate("test", foo, Optional.of("Foo"), validator).isClean())
+                  .isTrue();
+              assertThat(cache.validate("test", foo, Optional.of("Foo"), validator).isClean())
+                  .isTrue();
+              assertThat(validations.get()).isEqualTo(1);
+
+              cache.validate("test", foo, Optional.of("changed Foo"), validator);
+              assertThat(validations.get()).isEqualTo(2);
+            });
+  }
+
+  @Test
+  public void reportsWithDiagnostics_areValidatedEveryTime() {
+    CompilerTests.invocationCompiler(FOO)
+        .compile(
+            invocation -> {
+              XTypeElement foo = invocation.getProcessingEnv().requireTypeElement("test.Foo");
+              PersistentValidationCache cache =
+                  new PersistentValidationCache(
+                      Optional.of(newCacheDirectory()), Optional.of("build"));
+              AtomicInteger validations = new AtomicInteger();
+              Function<XTypeElement, ValidationReport> validator =
+                  type -> {
+                    validations.incrementAndGet();
+                    return ValidationReport.about(type).addWarning("a warning").build();
+                  };
+
+              assertThat(cache.validate("test", foo, Optional.of("Foo"), validator).allItems())
+                  .hasSize(1);
+              assertThat(cache.validate("test", foo, Optional.of("Foo"), validator).allItems())
+                  .hasSize(1);
+              assertThat(validations.get()).isEqualTo(2);
+            });
+  }
+
+  @Test
+  public void entriesFromOtherProcessorBuilds_areNotFound() {
+    CompilerTests.invocationCompiler(FOO)
+        .compile(
+            invocation -> {
+              XTypeElement foo = invocation.getProcessingEnv().requireTypeElement("test.Foo");
+              Optional<Path> directory = Optional.of(newCacheDirectory());
+              AtomicInteger validations = new AtomicInteger();
+              Function<XTypeElement, ValidationReport> validator =
+                  type -> {
+                    validations.incrementAndGet();
+                    return ValidationReport.about(type).build();
+                  };
+
+              new PersistentValidationCache(directory, Optional.of("build"))
+                  .validate("test", foo, Optional.of("Foo"), validator);
+              new PersistentValidationCache(directory, Optional.of("other build"))
+                  .validate("test", foo, Optional.of("Foo"), validator);
+              assertThat(validations.get()).isEqualTo(2);
+            });
+  }
+
+  @Test
+  public void unknownProcessorBuild_disablesCache() throws Exception {
+    Path directory = newCacheDirectory();
+    CompilerTests.invocationCompiler(FOO)
+        .compile(
+            invocation -> {
+              XTypeElement foo = invocation.getProcessingEnv().requireTypeElement("test.Foo");
+              new PersistentValidationCache(Optional.of(directory), Optional.empty())
+                  .validate(
+                      "test",
+                      foo,
+                      Optional.of("Foo"),
+                      type -> ValidationReport.about(type).build());
+            });
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files.count()).isEqualTo(0L);
+    }
+  }
+
+  /**
+   * Returns a new cache directory for each invocation, since the sources are processed once by
+   * each backend.
+   */
+  private Path newCacheDirectory() {
+    try {
+      return temporaryFolder.newFolder().toPath();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.truth.Truth.assertThat;
+import static dagger.internal.codegen.writing.ShardPartitioner.partitionEnds;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ShardPartitioner}. */
+@RunWith(JUnit4.class)
+public class ShardPartitionerTest {
+  @Test
+  public void noUnits() {
+    assertThat(partitionEnds(new int[] {}, dependencies(0), 100)).isEmpty();
+  }
+
+  @Test
+  public void unitsFitInTarget_onePartition() {
+    assertThat(partitionEnds(new int[] {10, 10, 10}, dependencies(3), 1000))
+        .containsExactly(3);
+  }
+
+  @Test
+  public void unitsLargerThanTarget_partitionEach() {
+    assertThat(partitionEnds(new int[] {100, 100, 100}, dependencies(3), 50))
+        .containsExactly(1, 2, 3)
+        .inOrder();
+  }
+
+  @Test
+  public void unitLargerThanTarget_neverSharesAPartition() {
+    assertThat(partitionEnds(new int[] {48, 500, 48}, dependencies(3), 100))
+        .containsExactly(1, 2, 3)
+        .inOrder();
+  }
+
+  @Test
+  public void fewestPartitionsWithinTarget() {
+    // At most 2 units fit in the target, so 3 partitions are needed. When the costs are equal,
+    // the later partitions are the larger ones.
+    assertThat(partitionEnds(new int[] {48, 48, 48, 48, 48}, dependencies(5), 100))
+        .containsExactly(1, 3, 5)
+        .inOrder();
+  }
+
+  @Test
+  public void dependencies_keepDependentUnitsTogether() {
+    // Unit 2 depends on unit 1 three times, so they share a partition.
+    List<List<Integer>> dependencies = dependencies(3);
+    dependencies.get(2).addAll(Arrays.asList(1, 1, 1));
+    assertThat(partitionEnds(new int[] {48, 48, 48}, dependencies, 100))
+        .containsExactly(1, 3)
+        .inOrder();
+
+    // Unit 1 depends on unit 0 three times, so they share a partition instead.
+    dependencies = dependencies(3);
+    dependencies.get(1).addAll(Arrays.asList(0, 0, 0));
+    assertThat(partitionEnds(new int[] {48, 48, 48}, dependencies, 100))
+        .containsExactly(2, 3)
+        .inOrder();
+  }
+
+  @Test
+  public void dependencies_notCountedWithinPartition() {
+    // Each unit depends on all of the units before it, but only the dependencies on earlier
+    // partitions cost anything, so the cheapest partitions are still the fewest.
+    List<List<Integer>> dependencies = dependencies(4);
+    for (int unit = 1; unit < 4; unit++) {
+      for (int dependency = 0; dependency < unit; dependency++) {
+        dependencies.get(unit).add(dependency);
+      }
+    }
+    assertThat(partitionEnds(new int[] {48, 48, 48, 48}, dependencies, 100))
+        .containsExactly(2, 4)
+        .inOrder();
+  }
+
+  @Test
+  public void largeTarget_allUnitsFit() {
+    // The window of starts covers every unit, which would make the program quadratic.
+    int size = 100_000;
+    int[] unitBytes = new int[size];
+    Arrays.fill(unitBytes, 48);
+    assertThat(partitionEnds(unitBytes, chain(size), Integer.MAX_VALUE)).containsExactly(size);
+  }
+
+  @Test
+  public void largeTarget_justUnderAllUnits() {
+    // The window still covers almost every unit, but the units need 2 partitions.
+    int size = 2_000;
+    int[] unitBytes = new int[size];
+    Arrays.fill(unitBytes, 48);
+    ImmutableList<Integer> ends = partitionEnds(unitBytes, chain(size), 48 * size - 1);
+    assertThat(ends).hasSize(2);
+    assertThat(ends.get(1)).isEqualTo(size);
+  }
+
+  /** Returns the dependencies of units that don't depend on each other. */
+  private static List<List<Integer>> dependencies(int size) {
+    List<List<Integer>> dependencies = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      dependencies.add(new ArrayList<>());
+    }
+    return dependencies;
+  }
+
+  /** Returns the dependencies of units that each depend on the unit before. */
+  private static List<List<Integer>> chain(int size) {
+    List<List<Integer>> dependencies = dependencies(size);
+    for (int i = 1; i < size; i++) {
+      dependencies.get(i).add(i - 1);
+    }
+    return dependencies;
+  }
+}
@@ -28,6 +28,16 @@ BUILD_VARIANTS = {
     "Shards": ["-Adagger.keysPerComponentShard=2"],
     "FastInit": ["-Adagger.fastInit=enabled"],
     "FastInit_Shards": ["-Adagger.fastInit=enabled", "-Adagger.keysPerComponentShard=2"],
+    "NonPinningScopedProviders": ["-Adagger.nonPinningScopedProviders=enabled"],
+    "CollapseDelegateFactories": ["-Adagger.collapseDelegateFactories=enabled"],
+    "FastInit_CompactScopedInstances": [
+        "-Adagger.fastInit=enabled",
+        "-Adagger.compactScopedInstances=enabled",
+    ],
+    "Shards_LazyComponentShards": [
+        "-Adagger.keysPerComponentShard=2",
+        "-Adagger.lazyComponentShards=enabled",
+    ],
 }
 
 # TODO(ronshapiro): convert this to use bazel_common